@@ -0,0 +1,99 @@
+package com.duom.ardabiomeseditor.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Minimal benchmark harness for the {@code benchmark} Maven profile.
+ * <p>
+ * A workload is warmed up, then run a fixed number of times on the calling thread; the mean time and, when the JVM
+ * exposes it, the mean heap allocation of one run are printed. Results of each run are consumed so the JIT cannot
+ * drop the work. Run a benchmark with:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dbenchmark=com.duom.ardabiomeseditor.services.loaders.LoaderParseBenchmark
+ * </pre>
+ * Benchmarks live in the package of the code they measure, so that they can reach package-private entry points.
+ */
+public final class Benchmark {
+
+    /**
+     * Allocated bytes of the current thread - com.sun.management is looked up reflectively, the module does not
+     * require jdk.management
+     */
+    private static final Method ALLOCATED_BYTES = findAllocatedBytesMethod();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static volatile int sink;
+
+    private Benchmark() {}
+
+    /**
+     * Runs a workload and prints its mean time and allocation per run.
+     *
+     * @param name              The name printed with the results.
+     * @param warmupIterations  The number of runs before measuring.
+     * @param iterations        The number of measured runs.
+     * @param workload          The workload.
+     * @throws Exception If the workload fails.
+     */
+    public static void run(String name, int warmupIterations, int iterations, Workload workload) throws Exception {
+
+        for (int i = 0; i < warmupIterations; i++) consume(workload.run());
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++) consume(workload.run());
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-48s %12.1f us/op %12s%n", name, elapsed / 1000d / iterations,
+                allocatedBefore < 0 ? "" : String.format("%.1f KB/op", allocated / 1024d / iterations));
+    }
+
+    private static void consume(Object result) {
+
+        sink += result == null ? 0 : result.hashCode();
+    }
+
+    private static long allocatedBytes() {
+
+        if (ALLOCATED_BYTES == null) return -1;
+
+        try {
+
+            return (long) ALLOCATED_BYTES.invoke(THREADS);
+
+        } catch (ReflectiveOperationException e) {
+
+            return -1;
+        }
+    }
+
+    private static Method findAllocatedBytesMethod() {
+
+        try {
+
+            return Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+
+        } catch (ReflectiveOperationException | LinkageError e) {
+
+            return null;
+        }
+    }
+
+    /**
+     * A benchmarked operation.
+     */
+    @FunctionalInterface
+    public interface Workload {
+
+        /**
+         * @return a result of the operation, consumed by the harness.
+         */
+        Object run() throws Exception;
+    }
+}
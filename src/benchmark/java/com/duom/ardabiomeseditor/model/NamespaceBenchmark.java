@@ -0,0 +1,71 @@
+package com.duom.ardabiomeseditor.model;
+
+import com.duom.ardabiomeseditor.benchmark.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Namespace parsing: {@link Namespace#fromString(String)} against the previous path, which compiled
+ * {@link Namespace#NAMESPACE_REGEX} on every call and built a new record per reference.
+ * <p>
+ * The references are 1000 colormap and biome ID mapper references over 4 namespaces, as found in modifiers - each
+ * namespace is referenced many times. Parsing with an empty pool, then with every reference already pooled, are
+ * measured separately.
+ */
+public final class NamespaceBenchmark {
+
+    private static final int NAMESPACES = 4;
+    private static final int REFERENCES = 1000;
+
+    private NamespaceBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+
+        List<String> references = new ArrayList<>(REFERENCES);
+
+        for (int i = 0; i < REFERENCES; i++)
+            references.add("namespace" + i % NAMESPACES + ":colormaps/colormap_" + i % 64);
+
+        Benchmark.run("Regex, new records (previous path)", 50, 200, () -> parseWithRegex(references));
+        Benchmark.run("fromString, empty pool", 50, 200, () -> {
+
+            Namespace.resetPool();
+            return parse(references);
+        });
+        Benchmark.run("fromString, pooled", 50, 200, () -> parse(references));
+    }
+
+    private static int parse(List<String> references) {
+
+        int found = 0;
+
+        for (String reference : references) {
+
+            Namespace namespace = Namespace.fromString(reference);
+
+            if (namespace != null) found += namespace.localName().length();
+        }
+
+        return found;
+    }
+
+    /**
+     * The previous parsing - the pattern compiled for each reference.
+     */
+    private static int parseWithRegex(List<String> references) {
+
+        int found = 0;
+
+        for (String reference : references) {
+
+            Matcher matcher = Pattern.compile(Namespace.NAMESPACE_REGEX).matcher(reference);
+
+            if (matcher.matches()) found += new Namespace(matcher.group("name"), matcher.group("localName")).localName().length();
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,102 @@
+package com.duom.ardabiomeseditor.services;
+
+import com.duom.ardabiomeseditor.benchmark.Benchmark;
+import com.duom.ardabiomeseditor.services.png.ColorPalette;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Texture updates of a save: column and row writes through the raster-backed {@link ColorMapService.ArgbPixelWriter}
+ * against the previous per-pixel {@link BufferedImage#setRGB(int, int, int)} calls, and the palette lookup building
+ * the indexed output against the previous boxed map.
+ * <p>
+ * Every column, then every row, of 256x256 and 1024x1024 ARGB colormaps is overwritten; palettes are built from
+ * textures holding 200 distinct colors.
+ */
+public final class TextureWriteBenchmark {
+
+    private static final int[] SIZES = {256, 1024};
+    private static final int PALETTE_COLORS = 200;
+
+    private TextureWriteBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+
+        Random random = new Random(42);
+
+        for (int size : SIZES) {
+
+            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            int[][] lines = new int[size][size];
+
+            for (int[] line : lines)
+                for (int i = 0; i < size; i++) line[i] = random.nextInt();
+
+            int iterations = size <= 256 ? 200 : 20;
+            String label = size + "x" + size;
+
+            Benchmark.run("Columns, setRGB (previous path) " + label, iterations / 4, iterations, () -> {
+
+                for (int x = 0; x < size; x++)
+                    for (int y = 0; y < size; y++) image.setRGB(x, y, lines[x][y]);
+                return image;
+            });
+            Benchmark.run("Columns, raster " + label, iterations / 4, iterations, () -> {
+
+                ColorMapService.ArgbPixelWriter writer = new ColorMapService.ArgbPixelWriter(image);
+                for (int x = 0; x < size; x++) ColorMapService.writeColumnColorData(x, lines[x], writer);
+                return writer.isChanged();
+            });
+
+            Benchmark.run("Rows, setRGB (previous path) " + label, iterations / 4, iterations, () -> {
+
+                for (int y = 0; y < size; y++)
+                    for (int x = 0; x < size; x++) image.setRGB(x, y, lines[y][x]);
+                return image;
+            });
+            Benchmark.run("Rows, raster " + label, iterations / 4, iterations, () -> {
+
+                ColorMapService.ArgbPixelWriter writer = new ColorMapService.ArgbPixelWriter(image);
+                for (int y = 0; y < size; y++) ColorMapService.writeRowColorData(y, lines[y], writer);
+                return writer.isChanged();
+            });
+
+            int[] palettePixels = new int[size * size];
+            for (int i = 0; i < palettePixels.length; i++) palettePixels[i] = 0xFF000000 | random.nextInt(PALETTE_COLORS) * 0x010203;
+            byte[] indices = new byte[palettePixels.length];
+
+            Benchmark.run("Palette lookup, boxed map (previous path) " + label, iterations / 4, iterations,
+                    () -> indexWithMap(palettePixels, indices));
+            Benchmark.run("Palette lookup, ColorPalette " + label, iterations / 4, iterations,
+                    () -> ColorPalette.index(palettePixels, indices).size());
+        }
+    }
+
+    /**
+     * The previous palette building - colors boxed into a map, in order of first appearance.
+     */
+    private static int indexWithMap(int[] argb, byte[] indices) {
+
+        Map<Integer, Integer> palette = new LinkedHashMap<>();
+
+        for (int i = 0; i < argb.length; i++) {
+
+            Integer index = palette.get(argb[i]);
+
+            if (index == null) {
+
+                if (palette.size() == ColorPalette.MAX_COLORS) return -1;
+
+                index = palette.size();
+                palette.put(argb[i], index);
+            }
+
+            indices[i] = (byte) (int) index;
+        }
+
+        return palette.size();
+    }
+}
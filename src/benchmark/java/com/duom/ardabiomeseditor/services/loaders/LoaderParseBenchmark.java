@@ -0,0 +1,165 @@
+package com.duom.ardabiomeseditor.services.loaders;
+
+import com.duom.ardabiomeseditor.benchmark.Benchmark;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Json asset parsing: the streaming parsers of {@link ResourcePackLoader} against the previous DOM path, which read
+ * each file into a String, built a Gson tree and scanned its entries for the colormap keys.
+ * <p>
+ * The files are generated in a temporary directory: biome ID mappers, colormaps, and modifiers carrying a typical
+ * amount of content the editor never reads. Both paths parse the same files on the calling thread; a whole
+ * sequential load is measured as well, manifest scan and model building included.
+ */
+public final class LoaderParseBenchmark {
+
+    private static final int NAMESPACES = 4;
+    private static final int BIOMES = 256;
+    private static final int COLORMAPS = 32;
+    private static final int MODIFIERS = 500;
+
+    private LoaderParseBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+
+        Path pack = Files.createTempDirectory("arda-loader-benchmark-");
+
+        try {
+
+            generatePack(pack);
+
+            List<Path> mappers = listJsonFiles(pack, "biome_id_mappers");
+            List<Path> colormaps = listJsonFiles(pack, "colormaps");
+            List<Path> modifiers = listJsonFiles(pack, "block_modifiers");
+
+            System.out.printf("%d mappers, %d colormaps, %d modifiers%n", mappers.size(), colormaps.size(), modifiers.size());
+
+            ResourcePackLoader loader = new ResourcePackLoader();
+
+            Benchmark.run("Modifiers, DOM (previous path)", 10, 50, () -> parseWithDom(modifiers));
+            Benchmark.run("Modifiers, streaming", 10, 50, () -> {
+
+                int found = 0;
+                for (Path modifier : modifiers) found += loader.parseModifierFile(modifier).inlinedColormaps().size();
+                return found;
+            });
+
+            Benchmark.run("Mappers and colormaps, DOM (previous path)", 10, 50,
+                    () -> parseWithDom(mappers) + parseWithDom(colormaps));
+            Benchmark.run("Mappers and colormaps, streaming", 10, 50, () -> {
+
+                int found = 0;
+                for (Path mapper : mappers) found += loader.parseBiomeIdMapper(mapper).mappings().size();
+                for (Path colormap : colormaps) found += loader.parseColormapFile(colormap).xAxis().length();
+                return found;
+            });
+
+            Benchmark.run("Whole load, sequential, no pack index", 3, 10, () -> {
+
+                ResourcePackLoader packLoader = new ResourcePackLoader(ResourcePackLoader.LoadMode.SEQUENTIAL, null);
+                packLoader.load(pack);
+                return packLoader.getPolytoneResourcePack().getModifiers().size();
+            });
+
+        } finally {
+
+            try (Stream<Path> files = Files.walk(pack)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * The previous parsing - a Gson tree per file, scanned for the entries the editor reads.
+     */
+    private static int parseWithDom(List<Path> jsonFiles) throws IOException {
+
+        int found = 0;
+
+        for (Path file : jsonFiles) {
+
+            JsonObject root = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+
+            for (Map.Entry<String, JsonElement> entry : root.entrySet()) {
+
+                if (entry.getKey().endsWith("colormap")) {
+
+                    JsonElement colormap = entry.getValue();
+
+                    if (colormap.isJsonObject()) found += colormap.getAsJsonObject().entrySet().size();
+                    else found += colormap.getAsString().length();
+
+                } else if (entry.getKey().endsWith("_axis") || entry.getKey().equals("biome_id_mapper")) {
+
+                    found++;
+
+                } else if (entry.getValue().isJsonPrimitive() && entry.getValue().getAsJsonPrimitive().isNumber()) {
+
+                    found += entry.getValue().getAsInt();
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private static List<Path> listJsonFiles(Path pack, String subFolder) throws IOException {
+
+        try (Stream<Path> files = Files.walk(pack)) {
+
+            return files.filter(file -> file.getParent().getFileName().toString().equals(subFolder))
+                    .filter(file -> file.toString().endsWith(".json"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void generatePack(Path pack) throws IOException {
+
+        for (int n = 0; n < NAMESPACES; n++) {
+
+            String namespace = "namespace" + n;
+            Path polytone = pack.resolve("assets").resolve(namespace).resolve("polytone");
+
+            StringBuilder mapper = new StringBuilder("{\"texture_size\":" + BIOMES);
+            for (int b = 0; b < BIOMES; b++) mapper.append(",\"").append(namespace).append(":biome_").append(b).append("\":").append(b);
+            write(polytone.resolve("biome_id_mappers").resolve("mapper.json"), mapper.append('}'));
+
+            for (int c = 0; c < COLORMAPS; c++) {
+
+                write(polytone.resolve("colormaps").resolve("colormap_" + c + ".json"),
+                        "{\"x_axis\":\"biome_id\",\"y_axis\":\"temperature\",\"biome_id_mapper\":\"" + namespace + ":mapper\"}");
+            }
+
+            for (int m = 0; m < MODIFIERS; m++) {
+
+                StringBuilder modifier = new StringBuilder("{\"targets\":[");
+                for (int t = 0; t < 12; t++) modifier.append(t == 0 ? "" : ",").append("\"minecraft:block_").append(m).append('_').append(t).append('"');
+                modifier.append("],\"tint_colormap\":\"").append(namespace).append(":colormap_").append(m % COLORMAPS).append('"');
+                modifier.append(",\"colormap\":{\"x_axis\":\"biome_id\",\"y_axis\":\"downfall\",\"biome_id_mapper\":{\"texture_size\":8");
+                for (int b = 0; b < 8; b++) modifier.append(",\"minecraft:biome_").append(b).append("\":").append(b);
+                modifier.append("}},\"sounds\":{");
+                for (int s = 0; s < 16; s++) modifier.append(s == 0 ? "" : ",").append("\"sound_").append(s).append("\":{\"volume\":0.5,\"pitch\":[1,2,3],\"events\":[\"a\",\"b\"]}");
+                modifier.append("},\"particle_emitters\":[");
+                for (int p = 0; p < 8; p++) modifier.append(p == 0 ? "" : ",").append("{\"particle\":\"minecraft:smoke\",\"chance\":0.1,\"count\":3,\"x\":\"rand()\",\"y\":\"1\"}");
+                write(polytone.resolve("block_modifiers").resolve("modifier_" + m + ".json"), modifier.append("]}"));
+            }
+        }
+    }
+
+    private static void write(Path file, CharSequence content) throws IOException {
+
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
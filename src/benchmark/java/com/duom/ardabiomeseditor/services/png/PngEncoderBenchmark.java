@@ -0,0 +1,106 @@
+package com.duom.ardabiomeseditor.services.png;
+
+import com.duom.ardabiomeseditor.benchmark.Benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoding of a save, per save mode: {@link PngEncoder} as configured by the FAST and SMALLEST modes, against
+ * the ImageIO writer of the IMAGE_IO mode.
+ * <p>
+ * The images are 256x256 and 1024x1024 opaque colormaps - smooth gradients with some noise, as painted colormaps
+ * are - written as RGB, plus a 256x256 indexed colormap. The encoded size of each mode is printed along with the
+ * timings.
+ */
+public final class PngEncoderBenchmark {
+
+    private static final int[] SIZES = {256, 1024};
+
+    private PngEncoderBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+
+        PngEncoder fast = new PngEncoder(Deflater.BEST_SPEED, PngEncoder.FilterStrategy.SUB);
+        PngEncoder smallest = new PngEncoder(Deflater.BEST_COMPRESSION, PngEncoder.FilterStrategy.ADAPTIVE);
+
+        for (int size : SIZES) {
+
+            BufferedImage image = createColormap(size);
+            int[] argb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int iterations = size <= 256 ? 100 : 10;
+            // Best compression takes seconds on large colormaps
+            int smallestIterations = size <= 256 ? 10 : 2;
+            String label = " " + size + "x" + size + " RGB";
+
+            printSize("FAST" + label, fast.encodeArgb(size, size, argb));
+            printSize("SMALLEST" + label, smallest.encodeArgb(size, size, argb));
+            printSize("IMAGE_IO" + label, encodeWithImageIO(image));
+
+            Benchmark.run("FAST" + label, iterations / 4, iterations, () -> fast.encodeArgb(size, size, argb));
+            Benchmark.run("SMALLEST" + label, 1, smallestIterations, () -> smallest.encodeArgb(size, size, argb));
+            Benchmark.run("IMAGE_IO" + label, iterations / 4, iterations, () -> encodeWithImageIO(image));
+        }
+
+        BufferedImage colormap = createColormap(256);
+        byte[] indices = new byte[256 * 256];
+        int[] argb = ((DataBufferInt) colormap.getRaster().getDataBuffer()).getData();
+
+        // Quantize to a 64 color palette, as indexed colormaps usually hold few colors
+        for (int i = 0; i < argb.length; i++) argb[i] = 0xFF000000 | (argb[i] & 0xC0C0C0);
+
+        ColorPalette palette = ColorPalette.index(argb, indices);
+        BufferedImage indexed = new BufferedImage(palette.toColorModel(),
+                Raster.createInterleavedRaster(new DataBufferByte(indices, indices.length), 256, 256, 256, 1, new int[]{0}, null),
+                false, null);
+        String label = " 256x256 indexed";
+
+        printSize("FAST" + label, fast.encodeIndexed(256, 256, indices, palette.toColorModel()));
+        printSize("IMAGE_IO" + label, encodeWithImageIO(indexed));
+
+        Benchmark.run("FAST" + label, 25, 100, () -> fast.encodeIndexed(256, 256, indices, palette.toColorModel()));
+        Benchmark.run("IMAGE_IO" + label, 25, 100, () -> encodeWithImageIO(indexed));
+    }
+
+    private static BufferedImage createColormap(int size) {
+
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+
+        for (int y = 0; y < size; y++) {
+
+            for (int x = 0; x < size; x++) {
+
+                int red = x * 255 / size;
+                int green = (y * 191 / size + 32 + random.nextInt(3)) & 0xFF;
+                int blue = (x + y) * 127 / size;
+                image.setRGB(x, y, red << 16 | green << 8 | blue);
+            }
+        }
+
+        BufferedImage argb = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        argb.getGraphics().drawImage(image, 0, 0, null);
+
+        return argb;
+    }
+
+    private static byte[] encodeWithImageIO(BufferedImage image) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+
+        return out.toByteArray();
+    }
+
+    private static void printSize(String name, byte[] png) {
+
+        System.out.printf("%-48s %12.1f KB%n", name + ", encoded size", png.length / 1024d);
+    }
+}
@@ -13,8 +13,71 @@ import java.util.List;
 public class ArdaBiomesEditorConfiguration {
 
     public static final int MAX_RECENT_FILES = 10;
+    public static final int DEFAULT_TEXTURE_CACHE_BUDGET_MB = 256;
+    public static final int DEFAULT_TEXTURE_STORE_BUDGET_MB = 1024;
+
+    /**
+     * PNG encoding used when saving textures.
+     */
+    public enum PngSaveMode {
+
+        /** Fastest deflate level with a cheap scanline filter. */
+        FAST,
+
+        /** Best deflate level with per-row adaptive filter selection. */
+        SMALLEST,
+
+        /** Generic ImageIO PNG writer. */
+        IMAGE_IO
+    }
+
     private List<String> recentFiles = new ArrayList<>();
 
+    /**
+     * Memory budget of the decoded texture cache, in megabytes.
+     */
+    private int textureCacheBudgetMb = DEFAULT_TEXTURE_CACHE_BUDGET_MB;
+
+    /**
+     * Whether decoded textures are kept on disk, memory-mapped on the next read.
+     */
+    private boolean textureStoreEnabled = false;
+
+    /**
+     * Disk budget of the decoded texture store, in megabytes.
+     */
+    private int textureStoreBudgetMb = DEFAULT_TEXTURE_STORE_BUDGET_MB;
+
+    /**
+     * Whether resource pack files are read and parsed concurrently.
+     */
+    private boolean parallelLoading = true;
+
+    /**
+     * Whether a persistent index of each opened resource pack is kept to speed up reopening.
+     */
+    private boolean packIndexEnabled = true;
+
+    /**
+     * Whether indexed textures keep their palette and index raster when saved.
+     */
+    private boolean preserveIndexedFormat = true;
+
+    /**
+     * PNG encoding used when saving textures.
+     */
+    private PngSaveMode pngSaveMode = PngSaveMode.FAST;
+
+    /**
+     * Deflate level of saved textures, from 0 to 9 - a negative value uses the default level of the save mode.
+     */
+    private int pngCompressionLevel = -1;
+
+    /**
+     * Whether unsaved edits are journaled to disk, so that they can be recovered after a crash.
+     */
+    private boolean changeJournalEnabled = true;
+
     /**
      * Retrieves the list of recently accessed files.
      *
@@ -32,4 +95,166 @@ public class ArdaBiomesEditorConfiguration {
     public void setRecentFiles(List<String> recentFiles) {
         this.recentFiles = recentFiles;
     }
+
+    /**
+     * Retrieves the memory budget of the decoded texture cache.
+     *
+     * @return The budget in megabytes.
+     */
+    public int getTextureCacheBudgetMb() {
+        return textureCacheBudgetMb;
+    }
+
+    /**
+     * Updates the memory budget of the decoded texture cache.
+     *
+     * @param textureCacheBudgetMb The budget in megabytes.
+     */
+    public void setTextureCacheBudgetMb(int textureCacheBudgetMb) {
+        this.textureCacheBudgetMb = textureCacheBudgetMb;
+    }
+
+    /**
+     * Indicates whether resource pack files are read and parsed concurrently.
+     *
+     * @return True if parallel loading is enabled.
+     */
+    public boolean isParallelLoading() {
+        return parallelLoading;
+    }
+
+    /**
+     * Enables or disables concurrent reading and parsing of resource pack files.
+     *
+     * @param parallelLoading True to enable parallel loading.
+     */
+    public void setParallelLoading(boolean parallelLoading) {
+        this.parallelLoading = parallelLoading;
+    }
+
+    /**
+     * Indicates whether a persistent index of each opened resource pack is kept.
+     *
+     * @return True if the pack index is enabled.
+     */
+    public boolean isPackIndexEnabled() {
+        return packIndexEnabled;
+    }
+
+    /**
+     * Enables or disables the persistent resource pack index.
+     *
+     * @param packIndexEnabled True to enable the pack index.
+     */
+    public void setPackIndexEnabled(boolean packIndexEnabled) {
+        this.packIndexEnabled = packIndexEnabled;
+    }
+
+    /**
+     * Indicates whether indexed textures keep their palette and index raster when saved.
+     *
+     * @return True if the indexed format is preserved.
+     */
+    public boolean isPreserveIndexedFormat() {
+        return preserveIndexedFormat;
+    }
+
+    /**
+     * Enables or disables format-preserving saves of indexed textures.
+     *
+     * @param preserveIndexedFormat True to preserve the indexed format.
+     */
+    public void setPreserveIndexedFormat(boolean preserveIndexedFormat) {
+        this.preserveIndexedFormat = preserveIndexedFormat;
+    }
+
+    /**
+     * Retrieves the PNG encoding used when saving textures.
+     *
+     * @return The PNG save mode.
+     */
+    public PngSaveMode getPngSaveMode() {
+        return pngSaveMode == null ? PngSaveMode.FAST : pngSaveMode;
+    }
+
+    /**
+     * Updates the PNG encoding used when saving textures.
+     *
+     * @param pngSaveMode The PNG save mode.
+     */
+    public void setPngSaveMode(PngSaveMode pngSaveMode) {
+        this.pngSaveMode = pngSaveMode;
+    }
+
+    /**
+     * Retrieves the deflate level of saved textures.
+     *
+     * @return The level from 0 to 9, or a negative value for the default level of the save mode.
+     */
+    public int getPngCompressionLevel() {
+        return pngCompressionLevel;
+    }
+
+    /**
+     * Updates the deflate level of saved textures.
+     *
+     * @param pngCompressionLevel The level from 0 to 9, or a negative value for the default level of the save mode.
+     */
+    public void setPngCompressionLevel(int pngCompressionLevel) {
+        this.pngCompressionLevel = pngCompressionLevel;
+    }
+
+    /**
+     * Indicates whether decoded textures are kept on disk, memory-mapped on the next read.
+     *
+     * @return True if the decoded texture store is enabled.
+     */
+    public boolean isTextureStoreEnabled() {
+        return textureStoreEnabled;
+    }
+
+    /**
+     * Enables or disables the decoded texture store.
+     *
+     * @param textureStoreEnabled True to keep decoded textures on disk.
+     */
+    public void setTextureStoreEnabled(boolean textureStoreEnabled) {
+        this.textureStoreEnabled = textureStoreEnabled;
+    }
+
+    /**
+     * Retrieves the disk budget of the decoded texture store.
+     *
+     * @return The budget in megabytes.
+     */
+    public int getTextureStoreBudgetMb() {
+        return textureStoreBudgetMb;
+    }
+
+    /**
+     * Updates the disk budget of the decoded texture store.
+     *
+     * @param textureStoreBudgetMb The budget in megabytes.
+     */
+    public void setTextureStoreBudgetMb(int textureStoreBudgetMb) {
+        this.textureStoreBudgetMb = textureStoreBudgetMb;
+    }
+
+    /**
+     * Indicates whether unsaved edits are journaled to disk.
+     *
+     * @return True if the change journal is enabled.
+     */
+    public boolean isChangeJournalEnabled() {
+        return changeJournalEnabled;
+    }
+
+    /**
+     * Enables or disables the journal of unsaved edits.
+     *
+     * @param changeJournalEnabled True to journal unsaved edits.
+     */
+    public void setChangeJournalEnabled(boolean changeJournalEnabled) {
+        this.changeJournalEnabled = changeJournalEnabled;
+    }
 }
\ No newline at end of file
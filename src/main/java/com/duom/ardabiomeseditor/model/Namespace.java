@@ -1,7 +1,8 @@
 package com.duom.ardabiomeseditor.model;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Identifies a logical resource namespace that maps to a physical file.
@@ -16,20 +17,79 @@ public record Namespace(String name, String localName) implements Comparable<Nam
 
     public static final String NAMESPACE_REGEX = "^(?<name>[a-z0-9._-]+):(?<localName>[a-z0-9/._-]+)$";
 
+    /**
+     * Interned namespaces by name, then by local name - lookups do not allocate. The pool holds the namespaces of the
+     * loaded resource pack, and is replaced when another pack is loaded.
+     */
+    private static volatile Map<String, Map<String, Namespace>> pool = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the shared instance of a namespace, so that equal namespaces built over and over - by the loader,
+     * the resource trees - are held once and compared by reference first.
+     * Namespaces interned before the last {@link #resetPool()} remain valid: they are equal to the new instances,
+     * only not identical.
+     *
+     * @param name      the name
+     * @param localName the local name
+     * @return the interned namespace
+     */
+    public static Namespace of(String name, String localName) {
+
+        if (name == null || localName == null) return new Namespace(name, localName);
+
+        Map<String, Map<String, Namespace>> namespaces = pool;
+        Map<String, Namespace> localNames = namespaces.get(name);
+
+        if (localNames == null) localNames = namespaces.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+
+        Namespace namespace = localNames.get(localName);
+
+        return namespace != null ? namespace : localNames.computeIfAbsent(localName, key -> new Namespace(name, key));
+    }
+
+    /**
+     * Drops the interned namespaces, so that the namespaces of a previous resource pack are not retained for the rest
+     * of the session. Called when a resource pack is loaded.
+     */
+    public static void resetPool() {
+
+        pool = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Parses a namespace in string form "name:localName", as matched by {@link #NAMESPACE_REGEX}.
+     *
+     * @param namespaceString the namespace string
+     * @return the interned namespace, or null if the string is not a valid namespace
+     */
     public static Namespace fromString(String namespaceString) {
 
-        Namespace namespace = null;
-        Pattern pattern = Pattern.compile(Namespace.NAMESPACE_REGEX);
-        Matcher matcher = pattern.matcher(namespaceString);
+        int separator = namespaceString.indexOf(':');
 
-        if (matcher.matches()) {
+        if (separator <= 0 || separator == namespaceString.length() - 1) return null;
 
-            String name = matcher.group("name");
-            String localName = matcher.group("localName");
-            namespace = new Namespace(name, localName);
+        for (int i = 0; i < namespaceString.length(); i++) {
+
+            char c = namespaceString.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '_' || c == '-'
+                    || (c == '/' && i > separator) || i == separator;
+
+            if (!valid) return null;
         }
 
-        return namespace;
+        return of(namespaceString.substring(0, separator), namespaceString.substring(separator + 1));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        return this == o || (o instanceof Namespace other && Objects.equals(name, other.name) && Objects.equals(localName, other.localName));
+    }
+
+    @Override
+    public int hashCode() {
+
+        return 31 * Objects.hashCode(name) + Objects.hashCode(localName);
     }
 
     /**
@@ -38,7 +98,7 @@ public record Namespace(String name, String localName) implements Comparable<Nam
     @Override
     public String toString() {
 
-        return String.format("%s:%s", name, localName);
+        return name + ":" + localName;
     }
 
     @Override
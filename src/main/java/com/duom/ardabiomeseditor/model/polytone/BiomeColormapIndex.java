@@ -0,0 +1,178 @@
+package com.duom.ardabiomeseditor.model.polytone;
+
+import com.duom.ardabiomeseditor.model.Namespace;
+
+import java.util.*;
+
+/**
+ * Adjacency index of the biomes of each biome ID mapper to the colormaps using them.
+ * <p>
+ * A colormap uses the biomes of a mapper if one of its axes is biome ID mapped and the mapper is its biome ID mapper.
+ * Colormaps without a biome ID mapper use the biomes of every standalone mapper. Every biome of a mapper is used by
+ * the same colormaps, so the colormap list is stored once per mapper and shared by its biomes: a biome is resolved to
+ * its index through the mapping table of the mapper. The index is a snapshot of the resource pack it was built from.
+ */
+public final class BiomeColormapIndex {
+
+    /**
+     * Convenience - empty index constant.
+     */
+    public static final BiomeColormapIndex EMPTY = new BiomeColormapIndex(Map.of());
+
+    /**
+     * Mappings and colormaps of each mapper, by mapper namespace
+     */
+    private final Map<Namespace, MapperColormaps> colormapsByMapper;
+
+    private BiomeColormapIndex(Map<Namespace, MapperColormaps> colormapsByMapper) {
+
+        this.colormapsByMapper = colormapsByMapper;
+    }
+
+    /**
+     * Builds the index of a resource pack.
+     *
+     * @param biomeIdMappers The biome ID mappers of the pack, by namespace.
+     * @param colormaps      The colormaps of the pack, in load order.
+     * @return The index.
+     */
+    public static BiomeColormapIndex build(Map<Namespace, BiomeIdMapper> biomeIdMappers, Collection<Colormap> colormaps) {
+
+        // Group the biome mapped colormaps by mapper - the mapper of a colormap is not necessarily in the pack maps
+        Map<BiomeIdMapper, List<ColormapAxis>> colormapsByMapperInstance = new IdentityHashMap<>();
+        List<ColormapAxis> unmappedColormaps = new ArrayList<>();
+        List<ColormapAxis> biomeMappedColormaps = new ArrayList<>();
+
+        for (Colormap colormap : colormaps) {
+
+            BiomeAxis axis = BiomeAxis.of(colormap);
+
+            if (axis == null) continue;
+
+            ColormapAxis colormapAxis = new ColormapAxis(colormap, axis);
+            biomeMappedColormaps.add(colormapAxis);
+
+            if (colormap.getBiomeIdMapper() == null) unmappedColormaps.add(colormapAxis);
+            else colormapsByMapperInstance.computeIfAbsent(colormap.getBiomeIdMapper(), mapper -> new ArrayList<>()).add(colormapAxis);
+        }
+
+        // Standalone mappers without colormaps of their own share a single list
+        List<ColormapAxis> sharedUnmappedColormaps = List.copyOf(unmappedColormaps);
+        Map<Namespace, MapperColormaps> colormapsByMapper = HashMap.newHashMap(biomeIdMappers.size());
+
+        for (var mapperEntry : biomeIdMappers.entrySet()) {
+
+            BiomeIdMapper mapper = mapperEntry.getValue();
+            List<ColormapAxis> ownColormaps = colormapsByMapperInstance.get(mapper);
+            boolean usedByUnmapped = mapper.getDeclarationType() != PolytoneAssetDeclarationType.INLINE;
+            List<ColormapAxis> mapperColormaps;
+
+            if (ownColormaps == null) {
+
+                mapperColormaps = usedByUnmapped ? sharedUnmappedColormaps : List.of();
+
+            } else if (usedByUnmapped && !unmappedColormaps.isEmpty()) {
+
+                // Own and unmapped colormaps interleave - gathered again from the load order
+                mapperColormaps = biomeMappedColormaps.stream()
+                        .filter(colormapAxis -> colormapAxis.colormap().getBiomeIdMapper() == null
+                                || colormapAxis.colormap().getBiomeIdMapper() == mapper)
+                        .toList();
+
+            } else {
+
+                mapperColormaps = List.copyOf(ownColormaps);
+            }
+
+            if (mapperColormaps.isEmpty() || mapper.getMappings().isEmpty()) continue;
+
+            colormapsByMapper.put(mapperEntry.getKey(), new MapperColormaps(mapper.getMappings(), mapperColormaps));
+        }
+
+        return new BiomeColormapIndex(colormapsByMapper);
+    }
+
+    /**
+     * Retrieves the colormaps using a biome.
+     *
+     * @param mapperNamespace The namespace of the biome ID mapper.
+     * @param biomeName       The biome name, as declared in the mapper.
+     * @return The usages of the biome, in colormap load order - empty if the biome is not mapped.
+     */
+    public List<BiomeUsage> getUsages(Namespace mapperNamespace, String biomeName) {
+
+        MapperColormaps mapperColormaps = colormapsByMapper.get(mapperNamespace);
+
+        if (mapperColormaps == null) return List.of();
+
+        int biomeIndex = mapperColormaps.mappings().getIndex(biomeName);
+
+        if (biomeIndex < 0) return List.of();
+
+        List<BiomeUsage> usages = new ArrayList<>(mapperColormaps.colormaps().size());
+
+        for (ColormapAxis colormapAxis : mapperColormaps.colormaps())
+            usages.add(new BiomeUsage(colormapAxis.colormap(), colormapAxis.axis(), biomeIndex));
+
+        return usages;
+    }
+
+    /**
+     * Retrieves the colormaps using a biome.
+     *
+     * @param mapperNamespace The namespace of the biome ID mapper.
+     * @param biomeName       The biome name, as declared in the mapper.
+     * @return The colormaps, in load order.
+     */
+    public List<Colormap> getColormaps(Namespace mapperNamespace, String biomeName) {
+
+        MapperColormaps mapperColormaps = colormapsByMapper.get(mapperNamespace);
+
+        if (mapperColormaps == null || mapperColormaps.mappings().getIndex(biomeName) < 0) return List.of();
+
+        return mapperColormaps.colormaps().stream().map(ColormapAxis::colormap).toList();
+    }
+
+    /**
+     * Texture axis along which a colormap is indexed by biome.
+     */
+    public enum BiomeAxis {
+
+        /** The biome index is a texture column. */
+        X,
+
+        /** The biome index is a texture row. */
+        Y;
+
+        /**
+         * @param colormap the colormap
+         * @return the biome mapped axis of the colormap - X if both are - or null if none is
+         */
+        private static BiomeAxis of(Colormap colormap) {
+
+            if (colormap.getxAxisMappingType() == Colormap.AxisMappingType.BIOME_ID) return X;
+            if (colormap.getyAxisMappingType() == Colormap.AxisMappingType.BIOME_ID) return Y;
+
+            return null;
+        }
+    }
+
+    /**
+     * Use of a biome by a colormap.
+     *
+     * @param colormap the colormap
+     * @param axis     the biome mapped axis of the colormap texture
+     * @param index    the biome index - the column or row of the texture
+     */
+    public record BiomeUsage(Colormap colormap, BiomeAxis axis, int index) {}
+
+    private record ColormapAxis(Colormap colormap, BiomeAxis axis) {}
+
+    /**
+     * Colormaps using the biomes of a mapper.
+     *
+     * @param mappings  the mapping table of the mapper when the index was built - tables are immutable
+     * @param colormaps the colormaps using every biome of the mapper, in load order
+     */
+    private record MapperColormaps(BiomeMappingTable mappings, List<ColormapAxis> colormaps) {}
+}
@@ -1,8 +1,6 @@
 package com.duom.ardabiomeseditor.model.polytone;
 
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * Biome ID mapper descriptor, equivalent to a biome id mapper json definition.
@@ -15,9 +13,9 @@ public class BiomeIdMapper extends PolytoneAsset {
      */
     public static final BiomeIdMapper EMPTY = new BiomeIdMapper("", Path.of(""), PolytoneAssetDeclarationType.UNDEFINED, null);
     /**
-     * Mapping of biome names to their respective indices
+     * Mapping of biome names to their respective indices - immutable, possibly shared with other mappers
      */
-    private final Map<String, Integer> mappings;
+    private BiomeMappingTable mappings = BiomeMappingTable.EMPTY;
     /**
      * Size of the texture (square)
      */
@@ -44,14 +42,45 @@ public class BiomeIdMapper extends PolytoneAsset {
      */
     public BiomeIdMapper(String name, Path path, PolytoneAssetDeclarationType declarationType, PolytoneAsset declaringAsset) {
         super(name, path, declarationType, declaringAsset);
-
-        this.mappings = new LinkedHashMap<>();
     }
 
-    public Map<String, Integer> getMappings() {
+    /**
+     * @return the biome names and their indices, in declaration order - read-only.
+     */
+    public BiomeMappingTable getMappings() {
         return mappings;
     }
 
+    /**
+     * Replaces the mappings, e.g. by a table shared with other mappers through a {@link BiomeMappingPool}.
+     *
+     * @param mappings The biome names and their indices.
+     */
+    public void setMappings(BiomeMappingTable mappings) {
+        this.mappings = mappings;
+    }
+
+    /**
+     * Retrieves the index of a biome, without boxing.
+     *
+     * @param biomeName The biome name.
+     * @return The biome index, or {@link BiomeMappingTable#UNMAPPED} if the biome is not mapped.
+     */
+    public int getBiomeIndex(String biomeName) {
+        return mappings.getIndex(biomeName);
+    }
+
+    /**
+     * Retrieves the name of the biome mapped to the specified index.
+     * If several biomes share the index, the first declared one is returned.
+     *
+     * @param biomeIndex The biome index.
+     * @return The biome name, or null if no biome is mapped to the index.
+     */
+    public String getBiomeName(int biomeIndex) {
+        return mappings.getName(biomeIndex);
+    }
+
     public int getTextureSize() {
         return textureSize;
     }
@@ -0,0 +1,70 @@
+package com.duom.ardabiomeseditor.model.polytone;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of the biome mapping tables of a resource pack.
+ * <p>
+ * Biome names are interned - "minecraft:plains" is held once however many mappers declare it - and mappers declaring
+ * the same mappings in the same order share a single {@link BiomeMappingTable}. The pool is thread safe, so that
+ * mapper definitions can be interned while they are parsed concurrently.
+ */
+public final class BiomeMappingPool {
+
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final Map<DeclarationKey, BiomeMappingTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the pooled table holding the given mappings, creating it if needed.
+     *
+     * @param mappings The biome names and their indices, in declaration order.
+     * @return The table shared by every mapper declaring these mappings.
+     */
+    public BiomeMappingTable intern(Map<String, Integer> mappings) {
+
+        if (mappings.isEmpty()) return BiomeMappingTable.EMPTY;
+
+        // Already pooled
+        if (mappings instanceof BiomeMappingTable table && tables.get(new DeclarationKey(table)) == table) return table;
+
+        BiomeMappingTable table = BiomeMappingTable.copyOf(mappings, this::internName);
+        BiomeMappingTable pooled = tables.putIfAbsent(new DeclarationKey(table), table);
+
+        return pooled != null ? pooled : table;
+    }
+
+    /**
+     * @param name a biome name
+     * @return the canonical instance of the name
+     */
+    public String internName(String name) {
+
+        String pooled = names.putIfAbsent(name, name);
+
+        return pooled != null ? pooled : name;
+    }
+
+    /**
+     * @return the number of distinct tables in the pool.
+     */
+    public int getTableCount() {
+        return tables.size();
+    }
+
+    /**
+     * Pool key - tables are shared only if they declare the same mappings in the same order.
+     */
+    private record DeclarationKey(BiomeMappingTable table) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof DeclarationKey key && table.hasSameDeclarations(key.table);
+        }
+
+        @Override
+        public int hashCode() {
+            return table.hashCode();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.duom.ardabiomeseditor.model.polytone;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable table of biome names to biome indices, in declaration order.
+ * <p>
+ * Names and indices are held in parallel arrays and looked up through an open-addressing hash table of positions,
+ * so indices are never boxed by {@link #getIndex(String)}. Being immutable, a table can be shared by every mapper
+ * declaring the same mappings - see {@link BiomeMappingPool}. The table is also a read-only {@link Map}.
+ */
+public final class BiomeMappingTable extends AbstractMap<String, Integer> {
+
+    /**
+     * Convenience - empty table constant.
+     */
+    public static final BiomeMappingTable EMPTY = new BiomeMappingTable(new String[0], new int[0]);
+
+    /**
+     * Index returned for unmapped biome names.
+     */
+    public static final int UNMAPPED = -1;
+
+    private final String[] names;
+    private final int[] indices;
+
+    /**
+     * Position + 1 of the name hashed to each slot, 0 for free slots. Capacity is a power of two, at least twice the
+     * number of names.
+     */
+    private final int[] slots;
+
+    private final int hashCode;
+
+    /**
+     * Reverse index of biome names by index - the first declared name wins. Built on first use.
+     */
+    private volatile NamesByIndex namesByIndex;
+
+    private Set<Entry<String, Integer>> entrySet;
+
+    private BiomeMappingTable(String[] names, int[] indices) {
+
+        this.names = names;
+        this.indices = indices;
+        this.slots = new int[Math.max(2, Integer.highestOneBit(Math.max(1, names.length) * 2 - 1) << 1)];
+
+        int mask = slots.length - 1;
+        int hash = 0;
+
+        for (int position = 0; position < names.length; position++) {
+
+            int slot = spread(names[position].hashCode()) & mask;
+
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+
+            slots[slot] = position + 1;
+            hash += names[position].hashCode() ^ Integer.hashCode(indices[position]);
+        }
+
+        this.hashCode = hash;
+    }
+
+    /**
+     * Creates a table holding the given mappings.
+     *
+     * @param mappings The biome names and their indices, in declaration order.
+     * @return The table.
+     */
+    public static BiomeMappingTable copyOf(Map<String, Integer> mappings) {
+
+        return copyOf(mappings, UnaryOperator.identity());
+    }
+
+    /**
+     * Creates a table holding the given mappings.
+     *
+     * @param mappings     The biome names and their indices, in declaration order.
+     * @param nameInterner The function returning the canonical instance of each biome name.
+     * @return The table.
+     */
+    static BiomeMappingTable copyOf(Map<String, Integer> mappings, UnaryOperator<String> nameInterner) {
+
+        if (mappings.isEmpty()) return EMPTY;
+
+        String[] names = new String[mappings.size()];
+        int[] indices = new int[names.length];
+        int position = 0;
+
+        for (var mapping : mappings.entrySet()) {
+
+            names[position] = nameInterner.apply(Objects.requireNonNull(mapping.getKey(), "Biome name"));
+            indices[position] = mapping.getValue();
+            position++;
+        }
+
+        return new BiomeMappingTable(names, indices);
+    }
+
+    /**
+     * Retrieves the index of a biome.
+     *
+     * @param biomeName The biome name.
+     * @return The biome index, or {@link #UNMAPPED} if the biome is not mapped.
+     */
+    public int getIndex(String biomeName) {
+
+        int position = positionOf(biomeName);
+
+        return position >= 0 ? indices[position] : UNMAPPED;
+    }
+
+    /**
+     * Retrieves the name of the biome mapped to the specified index.
+     * If several biomes share the index, the first declared one is returned.
+     *
+     * @param biomeIndex The biome index.
+     * @return The biome name, or null if no biome is mapped to the index.
+     */
+    public String getName(int biomeIndex) {
+
+        NamesByIndex reverseIndex = namesByIndex;
+
+        if (reverseIndex == null) {
+
+            reverseIndex = NamesByIndex.of(names, indices);
+            namesByIndex = reverseIndex;
+        }
+
+        return reverseIndex.get(biomeIndex);
+    }
+
+    /**
+     * Indicates whether both tables declare the same mappings in the same order - unlike {@link #equals(Object)},
+     * which ignores the order.
+     *
+     * @param other The other table.
+     * @return true if the tables have the same declarations.
+     */
+    boolean hasSameDeclarations(BiomeMappingTable other) {
+
+        return hashCode == other.hashCode && Arrays.equals(indices, other.indices) && Arrays.equals(names, other.names);
+    }
+
+    private int positionOf(Object biomeName) {
+
+        if (!(biomeName instanceof String name) || names.length == 0) return -1;
+
+        int mask = slots.length - 1;
+
+        for (int slot = spread(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+
+            int position = slots[slot] - 1;
+
+            if (position < 0) return -1;
+            if (names[position].equals(name)) return position;
+        }
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits used to select a slot.
+     */
+    private static int spread(int hash) {
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Biome names by index. Indices come from the pack and may be arbitrarily large: they are held by position only
+     * when they are dense, otherwise sorted and binary searched, so that the index stays proportional to the number
+     * of mappings.
+     *
+     * @param sortedIndices The mapped indices in ascending order, or null if names are held by index.
+     * @param names         The name of each index.
+     */
+    private record NamesByIndex(int[] sortedIndices, String[] names) {
+
+        /**
+         * Names are held by position while the largest index is below the greater of these bounds.
+         */
+        private static final int DENSE_SLOTS_PER_MAPPING = 4;
+        private static final int MIN_DENSE_SLOTS = 256;
+
+        static NamesByIndex of(String[] names, int[] indices) {
+
+            int maxIndex = -1;
+
+            for (int index : indices) maxIndex = Math.max(maxIndex, index);
+
+            if (maxIndex < Math.max(MIN_DENSE_SLOTS, (long) names.length * DENSE_SLOTS_PER_MAPPING)) {
+
+                String[] namesByIndex = new String[maxIndex + 1];
+
+                for (int position = 0; position < names.length; position++) {
+
+                    int index = indices[position];
+
+                    if (index >= 0 && namesByIndex[index] == null) namesByIndex[index] = names[position];
+                }
+
+                return new NamesByIndex(null, namesByIndex);
+            }
+
+            // Index in the high bits, declaration position in the low bits - sorted by index, then declaration order
+            long[] keys = new long[names.length];
+            int count = 0;
+
+            for (int position = 0; position < names.length; position++) {
+
+                if (indices[position] >= 0) keys[count++] = (long) indices[position] << 32 | position;
+            }
+
+            Arrays.sort(keys, 0, count);
+
+            int[] sortedIndices = new int[count];
+            String[] sortedNames = new String[count];
+            int size = 0;
+
+            for (int i = 0; i < count; i++) {
+
+                int index = (int) (keys[i] >>> 32);
+
+                if (size > 0 && sortedIndices[size - 1] == index) continue;
+
+                sortedIndices[size] = index;
+                sortedNames[size] = names[(int) keys[i]];
+                size++;
+            }
+
+            return new NamesByIndex(Arrays.copyOf(sortedIndices, size), Arrays.copyOf(sortedNames, size));
+        }
+
+        String get(int index) {
+
+            if (sortedIndices == null) return index >= 0 && index < names.length ? names[index] : null;
+
+            int position = Arrays.binarySearch(sortedIndices, index);
+
+            return position >= 0 ? names[position] : null;
+        }
+    }
+
+    /*
+     * Map implementation
+     */
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return positionOf(key) >= 0;
+    }
+
+    @Override
+    public Integer get(Object key) {
+
+        int position = positionOf(key);
+
+        return position >= 0 ? indices[position] : null;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Integer> action) {
+
+        for (int position = 0; position < names.length; position++) action.accept(names[position], indices[position]);
+    }
+
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+
+        if (entrySet == null) {
+
+            entrySet = new AbstractSet<>() {
+
+                @Override
+                public Iterator<Entry<String, Integer>> iterator() {
+
+                    return new Iterator<>() {
+
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, Integer> next() {
+
+                            if (position >= names.length) throw new NoSuchElementException();
+
+                            var entry = new SimpleImmutableEntry<>(names[position], indices[position]);
+                            position++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (other instanceof BiomeMappingTable table && (table.hashCode != hashCode || table.size() != size())) return false;
+
+        return super.equals(other);
+    }
+}
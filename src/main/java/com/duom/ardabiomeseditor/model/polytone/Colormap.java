@@ -23,6 +23,11 @@ public class Colormap extends PolytoneAsset {
      */
     private int textureWidth, textureHeight;
 
+    /**
+     * Texture PNG bit depth and color type, as declared in its header - 0 if unknown.
+     */
+    private int textureBitDepth, textureColorType;
+
     /**
      * X axis mapping definition.
      */
@@ -125,6 +130,22 @@ public class Colormap extends PolytoneAsset {
         this.textureWidth = textureWidth;
     }
 
+    public int getTextureBitDepth() {
+        return textureBitDepth;
+    }
+
+    public void setTextureBitDepth(int textureBitDepth) {
+        this.textureBitDepth = textureBitDepth;
+    }
+
+    public int getTextureColorType() {
+        return textureColorType;
+    }
+
+    public void setTextureColorType(int textureColorType) {
+        this.textureColorType = textureColorType;
+    }
+
     /**
      * Enumeration of possible axis mapping types.
      */
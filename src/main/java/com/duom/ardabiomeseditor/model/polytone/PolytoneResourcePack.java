@@ -2,12 +2,14 @@ package com.duom.ardabiomeseditor.model.polytone;
 
 import com.duom.ardabiomeseditor.model.Namespace;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Represents a Polytone resource pack containing modifiers, colormaps, and biome ID mappers.
+ * <p>
+ * Besides the maps of assets by namespace, the pack maintains secondary indexes by root namespace, declaration type
+ * and modifier type, so that the queries of the resource trees and views do not scan every asset.
+ * The colormaps using each biome are indexed in a {@link BiomeColormapIndex}.
  */
 public class PolytoneResourcePack {
 
@@ -26,6 +28,22 @@ public class PolytoneResourcePack {
      */
     private final Map<Namespace, BiomeIdMapper> biomeIdMappers;
 
+    /*
+     * Secondary indexes - updated by the add methods
+     */
+
+    private final AssetIndex<String, Modifier> modifiersByRootNamespace = new AssetIndex<>();
+    private final AssetIndex<TypedNamespace, Modifier> modifiersByType = new AssetIndex<>();
+    private final AssetIndex<String, Colormap> colormapsByRootNamespace = new AssetIndex<>();
+    private final AssetIndex<TypedNamespace, Colormap> colormapsByDeclarationType = new AssetIndex<>();
+    private final AssetIndex<String, BiomeIdMapper> biomeIdMappersByRootNamespace = new AssetIndex<>();
+    private final AssetIndex<TypedNamespace, BiomeIdMapper> biomeIdMappersByDeclarationType = new AssetIndex<>();
+
+    /**
+     * Biome to colormap adjacency index - built once the pack is loaded, then published whole to the reading threads
+     */
+    private volatile BiomeColormapIndex biomeColormapIndex = BiomeColormapIndex.EMPTY;
+
     public PolytoneResourcePack() {
 
         this.modifiers = new HashMap<>();
@@ -47,19 +65,197 @@ public class PolytoneResourcePack {
 
     public void addBiomeIdMapper(String namespace, BiomeIdMapper biomeIdMapper) {
 
-        Namespace biomeIdMapperNamespace = new Namespace(namespace, biomeIdMapper.getName());
-        biomeIdMappers.put(biomeIdMapperNamespace, biomeIdMapper);
+        Namespace biomeIdMapperNamespace = Namespace.of(namespace, biomeIdMapper.getName());
+        BiomeIdMapper previous = biomeIdMappers.put(biomeIdMapperNamespace, biomeIdMapper);
+
+        if (previous != null) {
+
+            biomeIdMappersByRootNamespace.remove(namespace, biomeIdMapperNamespace);
+            biomeIdMappersByDeclarationType.remove(new TypedNamespace(namespace, previous.getDeclarationType()), biomeIdMapperNamespace);
+        }
+
+        biomeIdMappersByRootNamespace.add(namespace, biomeIdMapperNamespace, biomeIdMapper);
+        biomeIdMappersByDeclarationType.add(new TypedNamespace(namespace, biomeIdMapper.getDeclarationType()), biomeIdMapperNamespace, biomeIdMapper);
     }
 
     public void addModifier(String namespace, Modifier modifier) {
 
-        Namespace modifierNamespace = new Namespace(namespace, modifier.getName());
-        modifiers.put(modifierNamespace, modifier);
+        Namespace modifierNamespace = Namespace.of(namespace, modifier.getName());
+        Modifier previous = modifiers.put(modifierNamespace, modifier);
+
+        if (previous != null) {
+
+            modifiersByRootNamespace.remove(namespace, modifierNamespace);
+            modifiersByType.remove(new TypedNamespace(namespace, previous.getType()), modifierNamespace);
+        }
+
+        modifiersByRootNamespace.add(namespace, modifierNamespace, modifier);
+        modifiersByType.add(new TypedNamespace(namespace, modifier.getType()), modifierNamespace, modifier);
     }
 
     public void addColormap(String namespace, Colormap colormap) {
-        Namespace colormapNamespace = new Namespace(namespace, colormap.getName());
-        colormaps.put(colormapNamespace, colormap);
+        Namespace colormapNamespace = Namespace.of(namespace, colormap.getName());
+        Colormap previous = colormaps.put(colormapNamespace, colormap);
+
+        if (previous != null) {
+
+            colormapsByRootNamespace.remove(namespace, colormapNamespace);
+            colormapsByDeclarationType.remove(new TypedNamespace(namespace, previous.getDeclarationType()), colormapNamespace);
+        }
+
+        colormapsByRootNamespace.add(namespace, colormapNamespace, colormap);
+        colormapsByDeclarationType.add(new TypedNamespace(namespace, colormap.getDeclarationType()), colormapNamespace, colormap);
+    }
+
+    /*
+     * Indexed queries
+     */
+
+    /**
+     * @return the root namespaces declaring at least one modifier.
+     */
+    public Set<String> getModifierRootNamespaces() {
+        return modifiersByRootNamespace.keys();
+    }
+
+    /**
+     * @return the root namespaces declaring at least one colormap.
+     */
+    public Set<String> getColormapRootNamespaces() {
+        return colormapsByRootNamespace.keys();
+    }
+
+    /**
+     * @return the root namespaces declaring at least one biome ID mapper.
+     */
+    public Set<String> getBiomeIdMapperRootNamespaces() {
+        return biomeIdMappersByRootNamespace.keys();
+    }
+
+    /**
+     * @param rootNamespace The root namespace - the polytone root declaring the assets.
+     * @return the modifiers of the root namespace, in load order.
+     */
+    public Collection<Modifier> getModifiers(String rootNamespace) {
+        return modifiersByRootNamespace.get(rootNamespace);
+    }
+
+    /**
+     * @param rootNamespace The root namespace - the polytone root declaring the assets.
+     * @return the modifiers of the root namespace grouped by modifier type, in type order then load order.
+     */
+    public Map<Modifier.Type, Collection<Modifier>> getModifiersByType(String rootNamespace) {
+
+        Map<Modifier.Type, Collection<Modifier>> modifiersByTypeInNamespace = new EnumMap<>(Modifier.Type.class);
+
+        for (Modifier.Type type : Modifier.Type.values()) {
+
+            Collection<Modifier> modifiersOfType = modifiersByType.get(new TypedNamespace(rootNamespace, type));
+
+            if (!modifiersOfType.isEmpty()) modifiersByTypeInNamespace.put(type, modifiersOfType);
+        }
+
+        return modifiersByTypeInNamespace;
+    }
+
+    /**
+     * @param rootNamespace The root namespace - the polytone root declaring the assets.
+     * @return the colormaps of the root namespace, in load order.
+     */
+    public Collection<Colormap> getColormaps(String rootNamespace) {
+        return colormapsByRootNamespace.get(rootNamespace);
+    }
+
+    /**
+     * @param rootNamespace   The root namespace - the polytone root declaring the assets.
+     * @param declarationType The declaration type.
+     * @return the colormaps of the root namespace with the declaration type, in load order.
+     */
+    public Collection<Colormap> getColormaps(String rootNamespace, PolytoneAssetDeclarationType declarationType) {
+        return colormapsByDeclarationType.get(new TypedNamespace(rootNamespace, declarationType));
+    }
+
+    /**
+     * @param rootNamespace The root namespace - the polytone root declaring the assets.
+     * @return the biome ID mappers of the root namespace, in load order.
+     */
+    public Collection<BiomeIdMapper> getBiomeIdMappers(String rootNamespace) {
+        return biomeIdMappersByRootNamespace.get(rootNamespace);
+    }
+
+    /**
+     * @param rootNamespace   The root namespace - the polytone root declaring the assets.
+     * @param declarationType The declaration type.
+     * @return the biome ID mappers of the root namespace with the declaration type, in load order.
+     */
+    public Collection<BiomeIdMapper> getBiomeIdMappers(String rootNamespace, PolytoneAssetDeclarationType declarationType) {
+        return biomeIdMappersByDeclarationType.get(new TypedNamespace(rootNamespace, declarationType));
+    }
+
+    /**
+     * Builds the biome to colormap adjacency index from the current assets, then publishes it.
+     * Called by the loader once every asset is added - assets added afterward are not indexed until the next call.
+     */
+    public synchronized void rebuildBiomeColormapIndex() {
+
+        List<Colormap> colormapsInLoadOrder = new ArrayList<>(colormaps.size());
+
+        for (String rootNamespace : colormapsByRootNamespace.keys())
+            colormapsInLoadOrder.addAll(colormapsByRootNamespace.get(rootNamespace));
+
+        // Readers see either the previous index or the complete new one
+        biomeColormapIndex = BiomeColormapIndex.build(biomeIdMappers, colormapsInLoadOrder);
     }
 
-}
\ No newline at end of file
+    /**
+     * @return the index of the colormaps using each biome, as of the last {@link #rebuildBiomeColormapIndex()} - empty
+     * until the pack is loaded.
+     */
+    public BiomeColormapIndex getBiomeColormapIndex() {
+
+        return biomeColormapIndex;
+    }
+
+    /**
+     * Index key combining a root namespace and a type - a declaration type or a modifier type.
+     *
+     * @param rootNamespace the root namespace
+     * @param type          the type
+     */
+    private record TypedNamespace(String rootNamespace, Enum<?> type) {}
+
+    /**
+     * Groups of assets by key, each group keeping its assets by namespace in insertion order.
+     * Lookups return read-only views and cost no copy.
+     *
+     * @param <K> the key type
+     * @param <V> the asset type
+     */
+    private static final class AssetIndex<K, V> {
+
+        private final Map<K, Map<Namespace, V>> groups = new LinkedHashMap<>();
+
+        private void add(K key, Namespace namespace, V asset) {
+
+            groups.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(namespace, asset);
+        }
+
+        private void remove(K key, Namespace namespace) {
+
+            Map<Namespace, V> group = groups.get(key);
+
+            if (group != null && group.remove(namespace) != null && group.isEmpty()) groups.remove(key);
+        }
+
+        private Collection<V> get(K key) {
+
+            Map<Namespace, V> group = groups.get(key);
+
+            return group != null ? Collections.unmodifiableCollection(group.values()) : List.of();
+        }
+
+        private Set<K> keys() {
+            return Collections.unmodifiableSet(groups.keySet());
+        }
+    }
+}
@@ -1,25 +1,85 @@
 package com.duom.ardabiomeseditor.services;
 
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+import com.duom.ardabiomeseditor.model.ArdaBiomesEditorConfiguration;
 import com.duom.ardabiomeseditor.model.polytone.Colormap;
+import com.duom.ardabiomeseditor.services.cache.DecodedTexture;
+import com.duom.ardabiomeseditor.services.cache.FileFingerprint;
+import com.duom.ardabiomeseditor.services.cache.TextureCache;
+import com.duom.ardabiomeseditor.services.cache.TextureSidecarStore;
+import com.duom.ardabiomeseditor.services.cache.TiledTexture;
+import com.duom.ardabiomeseditor.services.png.ColorPalette;
+import com.duom.ardabiomeseditor.services.png.PngDecoder;
+import com.duom.ardabiomeseditor.services.png.PngEncoder;
+import com.duom.ardabiomeseditor.services.png.PngHeader;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.IndexColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
 
 /**
  * Service class for handling color map I/O.
  */
 public class ColorMapService {
 
+    /**
+     * Textures with more pixels are never decoded whole - they are read and edited as tiles.
+     */
+    private static final long LARGE_TEXTURE_PIXELS = 4096L * 4096L;
+
+    /**
+     * Colormaps with more pixels are not opened whole in the editor, which holds every column of the displayed
+     * colormap - 256 MB of colors at this size. Their biomes remain editable through the biome mapped views, which
+     * read a single line of each colormap.
+     */
+    public static final long MAX_EDITOR_PIXELS = 8192L * 8192L;
+
+    private static final int TILE_SIZE = 256;
+    private static final long TILE_BUDGET_BYTES = 64L * 1024L * 1024L;
+
+    /**
+     * Shared cache of decoded textures - avoids decoding the same PNG on every selection.
+     */
+    private static final TextureCache TEXTURE_CACHE = new TextureCache(
+            ArdaBiomesEditor.CONFIG.getConfiguration().getTextureCacheBudgetMb() * 1024L * 1024L);
+
+    /**
+     * Optional on-disk store of decoded textures - avoids decoding the same PNG again in later sessions.
+     */
+    private static final TextureSidecarStore TEXTURE_STORE = ArdaBiomesEditor.CONFIG.getConfiguration().isTextureStoreEnabled()
+            ? new TextureSidecarStore(ArdaBiomesEditor.CONFIG.getTextureStoreDirectory(),
+                    ArdaBiomesEditor.CONFIG.getConfiguration().getTextureStoreBudgetMb() * 1024L * 1024L)
+            : null;
+
+    /**
+     * Bounded pool reading the textures of several colormaps concurrently. Texture reads block on I/O - they are
+     * kept off the common fork-join pool.
+     */
+    private static final ExecutorService TEXTURE_READERS = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            Thread.ofPlatform().name("texture-reader-", 0).daemon().factory());
+
     /**
      * Extracts hex color codes for a specific biome from the modifier's texture data.
      *
@@ -29,113 +89,389 @@ public class ColorMapService {
      */
     public static int[] getColorsForBiomeId(Colormap colormap, int biomeIndex) {
 
-        int[] colormapArgb = null;
+        Map<Integer, int[]> biomeColors = getColorsForBiomeIds(List.of(colormap), List.of(biomeIndex)).get(colormap);
 
-        Path colormapTexturePath = colormap.getTexturePath();
+        return biomeColors != null ? biomeColors.get(biomeIndex) : null;
+    }
+
+    /**
+     * Extracts the colors of several biomes from several colormaps in one pass.
+     * Each texture is decoded at most once, through the shared texture cache, and textures are read concurrently on a
+     * bounded pool.
+     *
+     * @param colormaps    The colormaps referencing the texture data.
+     * @param biomeIndices The indices of the biomes (columns or rows in the textures, depending on the biome mapped axis).
+     * @return For each colormap with a texture and a biome mapped axis, in iteration order, the colors of each
+     * requested biome by biome index.
+     */
+    public static Map<Colormap, Map<Integer, int[]>> getColorsForBiomeIds(Collection<Colormap> colormaps, Collection<Integer> biomeIndices) {
+
+        int[] indices = biomeIndices.stream().mapToInt(Integer::intValue).distinct().toArray();
+
+        List<Map<Integer, int[]>> extracted = new ArrayList<>(colormaps.size());
+
+        if (colormaps.size() == 1) {
+
+            extracted.add(extractBiomeColors(colormaps.iterator().next(), indices));
+
+        } else {
+
+            List<Future<Map<Integer, int[]>>> futures = new ArrayList<>(colormaps.size());
 
-        if (colormapTexturePath != null && Files.exists(colormapTexturePath) && colormapTexturePath.getFileName().toString().endsWith(".png")) {
+            for (Colormap colormap : colormaps)
+                futures.add(TEXTURE_READERS.submit(() -> extractBiomeColors(colormap, indices)));
 
             try {
-                BufferedImage image = ImageIO.read(colormapTexturePath.toFile());
-                if (image == null) {
-                    throw new IllegalArgumentException("Unsupported or corrupted image file");
-                }
 
-                int width = image.getWidth();
-                int height = image.getHeight();
+                for (Future<Map<Integer, int[]>> future : futures) extracted.add(future.get());
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                futures.forEach(future -> future.cancel(true));
+                throw new UncheckedIOException(new InterruptedIOException("Texture reading interrupted"));
+
+            } catch (ExecutionException e) {
 
-                colormap.setTextureWidth(width);
-                colormap.setTextureHeight(height);
+                futures.forEach(future -> future.cancel(true));
 
-                if (biomeIndex < 0) {
-                    throw new IllegalArgumentException("Biome index out of bounds: " + biomeIndex);
+                switch (e.getCause()) {
+                    case RuntimeException re -> throw re;
+                    case Error err -> throw err;
+                    default -> throw new UncheckedIOException(new IOException(e.getCause()));
                 }
+            }
+        }
+
+        Map<Colormap, Map<Integer, int[]>> colorsByColormap = new LinkedHashMap<>();
+        Iterator<Colormap> colormapIterator = colormaps.iterator();
+
+        for (Map<Integer, int[]> biomeColors : extracted) {
+
+            Colormap colormap = colormapIterator.next();
+
+            if (biomeColors != null) colorsByColormap.put(colormap, biomeColors);
+        }
+
+        return colorsByColormap;
+    }
+
+    /**
+     * Extracts the colors of the specified biomes from a colormap texture.
+     *
+     * @param colormap The colormap referencing the texture data.
+     * @param indices  The indices of the biomes.
+     * @return The colors of each biome by biome index, or null if the colormap has no texture or no biome mapped axis.
+     */
+    private static Map<Integer, int[]> extractBiomeColors(Colormap colormap, int[] indices) {
+
+        Path colormapTexturePath = colormap.getTexturePath();
+
+        if (colormapTexturePath == null || !Files.exists(colormapTexturePath) || !colormapTexturePath.getFileName().toString().endsWith(".png")) {
+            return null;
+        }
 
-                if (colormap.getxAxisMappingType() == Colormap.AxisMappingType.BIOME_ID) {
+        try {
 
-                    if (biomeIndex >= width) {
-                        throw new IllegalArgumentException("Biome index out of bounds on the X axis: " + biomeIndex);
-                    }
+            if (isLargeTexture(colormapTexturePath)) {
 
-                    colormapArgb = new int[height];
-                    image.getRGB(biomeIndex, 0, 1, height, colormapArgb, 0, 1);
+                return TEXTURE_CACHE.withTiledTexture(colormapTexturePath, ColorMapService::openTiledTexture,
+                        texture -> extractBiomeColors(colormap, indices, texture.width(), texture.height(), texture::getColumn, texture::getRow));
+            }
 
-                } else if (colormap.getyAxisMappingType() == Colormap.AxisMappingType.BIOME_ID) {
+            DecodedTexture texture = readTexture(colormapTexturePath);
 
-                    if (biomeIndex >= height) {
-                        throw new IllegalArgumentException("Biome index out of bounds on the Y axis: " + biomeIndex);
-                    }
+            return extractBiomeColors(colormap, indices, texture.width(), texture.height(), texture::getColumn, texture::getRow);
 
-                    colormapArgb = new int[width];
-                    image.getRGB(0, biomeIndex, width, 1, colormapArgb, 0, 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image data", e);
+        }
+    }
+
+    /**
+     * Extracts the colors of the specified biomes through the column and row accessors of a texture.
+     *
+     * @param colormap     The colormap referencing the texture data.
+     * @param indices      The indices of the biomes.
+     * @param width        The texture width.
+     * @param height       The texture height.
+     * @param columnReader The reader of a texture column.
+     * @param rowReader    The reader of a texture row.
+     * @return The colors of each biome by biome index, or null if the colormap has no biome mapped axis.
+     * @throws IOException If an I/O error occurs during image reading.
+     */
+    private static Map<Integer, int[]> extractBiomeColors(Colormap colormap, int[] indices, int width, int height,
+                                                          LineReader columnReader, LineReader rowReader) throws IOException {
+
+        boolean isXaxisBiomeMapped = colormap.getxAxisMappingType() == Colormap.AxisMappingType.BIOME_ID;
+        boolean isYaxisBiomeMapped = colormap.getyAxisMappingType() == Colormap.AxisMappingType.BIOME_ID;
+
+        colormap.setTextureWidth(width);
+        colormap.setTextureHeight(height);
+
+        for (int biomeIndex : indices) {
+
+            if (biomeIndex < 0) {
+                throw new IllegalArgumentException("Biome index out of bounds: " + biomeIndex);
+            }
+        }
+
+        if (!isXaxisBiomeMapped && !isYaxisBiomeMapped) return null;
+
+        Map<Integer, int[]> biomeColors = LinkedHashMap.newLinkedHashMap(indices.length);
+
+        for (int biomeIndex : indices) {
+
+            int[] colormapArgb;
+
+            if (isXaxisBiomeMapped) {
+
+                if (biomeIndex >= width) {
+                    throw new IllegalArgumentException("Biome index out of bounds on the X axis: " + biomeIndex);
                 }
 
-            } catch (IOException e) {
-                throw new UncheckedIOException("Failed to read image data", e);
+                colormapArgb = columnReader.read(biomeIndex);
+
+            } else {
+
+                if (biomeIndex >= height) {
+                    throw new IllegalArgumentException("Biome index out of bounds on the Y axis: " + biomeIndex);
+                }
+
+                colormapArgb = rowReader.read(biomeIndex);
             }
+
+            biomeColors.put(biomeIndex, colormapArgb);
         }
 
-        return colormapArgb;
+        return biomeColors;
+    }
+
+    /**
+     * Extracts every column of the colormap's texture, left to right.
+     * Each column is a separate array, so no single array holds the whole texture - large textures are read tile by
+     * tile.
+     *
+     * @param colormap The colormap referencing the texture data.
+     * @return The ARGB colors of each column, top to bottom - empty if the colormap has no PNG texture.
+     */
+    public static int[][] getColumns(Colormap colormap) {
+
+        return readLines(colormap, true);
     }
 
     /**
-     * Extracts all ARGB color codes from the colormap's texture data.
+     * Extracts every row of the colormap's texture, top to bottom.
      *
      * @param colormap The colormap referencing the texture data.
-     * @return An array of ARGB color codes.
+     * @return The ARGB colors of each row, left to right - empty if the colormap has no PNG texture.
+     * @see #getColumns(Colormap)
      */
-    public static int[] getAllColors(Colormap colormap) {
+    public static int[][] getRows(Colormap colormap) {
+
+        return readLines(colormap, false);
+    }
 
-        int[] colors = new int[0];
+    private static int[][] readLines(Colormap colormap, boolean columns) {
 
         Path colormapTexturePath = colormap.getTexturePath();
 
-        if (colormapTexturePath != null && Files.exists(colormapTexturePath) && colormapTexturePath.getFileName().toString().endsWith(".png")) {
-
-            try (InputStream in = Files.newInputStream(colormapTexturePath)) {
-
-                var image = ImageIO.read(in);
-                var width = image.getWidth();
-                var height = image.getHeight();
-
-                colormap.setTextureWidth(width);
-                colormap.setTextureHeight(height);
-
-                int[] pixels = image.getRGB(
-                        0,
-                        0,
-                        width,
-                        height,
-                        null,
-                        0,
-                        width
-                );
-
-                colors = new int[pixels.length];
-
-                /*
-                 * Image.getRGB returns pixels in row-major order
-                 * Rotate through x and y to get colors in column-major order
-                 */
-                for (int column = 0; column < width; column++) {
-                    for (int row = 0; row < height; row++) {
-                        colors[column * height + row] = pixels[row * width + column];
-                    }
-                }
+        if (colormapTexturePath == null || !Files.exists(colormapTexturePath) || !colormapTexturePath.getFileName().toString().endsWith(".png")) {
+            return new int[0][];
+        }
 
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read image data", e);
+        try {
+
+            if (isLargeTexture(colormapTexturePath)) {
+
+                return TEXTURE_CACHE.withTiledTexture(colormapTexturePath, ColorMapService::openTiledTexture,
+                        texture -> readLines(colormap, texture.width(), texture.height(), texture::getRow, columns));
+            }
+
+            DecodedTexture texture = readTexture(colormapTexturePath);
+
+            colormap.setTextureWidth(texture.width());
+            colormap.setTextureHeight(texture.height());
+
+            // Decoded textures are column-major - columns are copied as is, rows gathered
+            int[][] lines = new int[columns ? texture.width() : texture.height()][];
+
+            for (int i = 0; i < lines.length; i++)
+                lines[i] = columns ? texture.getColumn(i) : texture.getRow(i);
+
+            return lines;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image data", e);
+        }
+    }
+
+    /**
+     * Reads a tiled texture row by row - tiles are loaded once per tile row, whereas reading a column loads every
+     * tile row - and transposes the rows into columns if requested.
+     */
+    private static int[][] readLines(Colormap colormap, int width, int height, LineReader rowReader, boolean columns) throws IOException {
+
+        colormap.setTextureWidth(width);
+        colormap.setTextureHeight(height);
+
+        int[][] lines = columns ? new int[width][height] : new int[height][];
+
+        for (int y = 0; y < height; y++) {
+
+            int[] row = rowReader.read(y);
+
+            if (!columns) {
+                lines[y] = row;
+                continue;
+            }
+
+            for (int x = 0; x < width; x++) lines[x][y] = row[x];
+        }
+
+        return lines;
+    }
+
+    /**
+     * Retrieves the decoded texture from the shared cache, decoding it on a cache miss.
+     *
+     * @param texturePath The path to the texture image.
+     * @return The decoded texture - shared, must not be modified.
+     * @throws IOException If an I/O error occurs during image reading.
+     */
+    private static DecodedTexture readTexture(Path texturePath) throws IOException {
+
+        return TEXTURE_CACHE.get(texturePath, ColorMapService::loadTexture);
+    }
+
+    /**
+     * Reads a texture from the decoded texture store if enabled and up to date, otherwise decodes it and stores it.
+     *
+     * @param texturePath The path to the texture image.
+     * @return The decoded texture.
+     * @throws IOException If an I/O error occurs during image reading.
+     */
+    private static DecodedTexture loadTexture(Path texturePath) throws IOException {
+
+        if (TEXTURE_STORE == null) return decodeTexture(texturePath);
+
+        FileFingerprint fingerprint = FileFingerprint.of(texturePath);
+        DecodedTexture texture = TEXTURE_STORE.read(texturePath, fingerprint);
+
+        if (texture == null) {
+
+            texture = decodeTexture(texturePath);
+            TEXTURE_STORE.write(texturePath, fingerprint, texture);
+        }
+
+        return texture;
+    }
+
+    /**
+     * Decodes a PNG texture into ARGB pixels.
+     * Common colormap formats are decoded by {@link PngDecoder}, other formats through ImageIO.
+     *
+     * @param texturePath The path to the texture image.
+     * @return The decoded texture.
+     * @throws IOException If an I/O error occurs during image reading.
+     */
+    private static DecodedTexture decodeTexture(Path texturePath) throws IOException {
+
+        DecodedTexture texture = PngDecoder.decode(texturePath);
+
+        if (texture != null) return texture;
+
+        try (InputStream in = Files.newInputStream(texturePath)) {
+
+            BufferedImage image = ImageIO.read(in);
+
+            if (image == null) {
+                throw new IllegalArgumentException("Unsupported or corrupted image file");
             }
+
+            int width = image.getWidth();
+            int height = image.getHeight();
+
+            return DecodedTexture.ofRowMajor(width, height, image.getRGB(0, 0, width, height, null, 0, width));
         }
+    }
+
+    /**
+     * Indicates whether a colormap can be opened whole in the editor.
+     *
+     * @param colormap The colormap, its texture dimensions read.
+     * @return False if its texture has more than {@link #MAX_EDITOR_PIXELS} pixels.
+     */
+    public static boolean fitsEditor(Colormap colormap) {
 
-        return colors;
+        return (long) colormap.getTextureWidth() * colormap.getTextureHeight() <= MAX_EDITOR_PIXELS;
+    }
+
+    /**
+     * Indicates whether a texture is too large to be decoded whole, and must be handled as a {@link TiledTexture}.
+     *
+     * @param texturePath The path to the texture image.
+     * @return True if the texture has more than {@link #LARGE_TEXTURE_PIXELS} pixels.
+     * @throws IOException If the PNG header cannot be read.
+     */
+    private static boolean isLargeTexture(Path texturePath) throws IOException {
+
+        PngHeader header = PngHeader.read(texturePath);
+
+        return (long) header.width() * header.height() > LARGE_TEXTURE_PIXELS;
+    }
+
+    /**
+     * Opens a large texture as tiles, holding at most {@link #TILE_BUDGET_BYTES} of pixels in memory.
+     *
+     * @param texturePath The path to the texture image.
+     * @return The tiled texture - must be closed by the caller.
+     * @throws IOException If an I/O error occurs during image reading.
+     */
+    private static TiledTexture openTiledTexture(Path texturePath) throws IOException {
+
+        return TiledTexture.open(texturePath, TILE_SIZE, TILE_BUDGET_BYTES);
+    }
+
+    /**
+     * Reloads the texture of a colormap after it was modified on disk.
+     * The cached pixels are replaced and the colormap texture dimensions and format updated.
+     *
+     * @param colormap The colormap to refresh.
+     * @throws IOException If an I/O error occurs during image reading.
+     */
+    public static void refreshColormap(Colormap colormap) throws IOException {
+
+        Path texturePath = colormap.getTexturePath();
+
+        if (texturePath == null || !Files.exists(texturePath)) return;
+
+        TEXTURE_CACHE.invalidate(texturePath);
+
+        // Large textures are opened again as tiles on their next read
+        if (!isLargeTexture(texturePath)) readTexture(texturePath);
+
+        // The writer may have changed the PNG format, e.g. from indexed to ARGB
+        PngHeader header = PngHeader.read(texturePath);
+        colormap.setTextureWidth(header.width());
+        colormap.setTextureHeight(header.height());
+        colormap.setTextureBitDepth(header.bitDepth());
+        colormap.setTextureColorType(header.colorType());
+    }
+
+    /**
+     * @return the shared decoded texture cache.
+     */
+    public static TextureCache getTextureCache() {
+        return TEXTURE_CACHE;
     }
 
     /**
      * Applies color changes to a modifier texture based on the provided biome colors
      * using the mapping types of the colormap : x, y or both axes mapped to BIOME_ID.
      * <p>
-     * Note: this method works with ARGB images, that is if the source image is indexed, it wont preserve the format.
+     * Note: indexed textures keep their palette only when format preservation is enabled in the configuration,
+     * otherwise they are converted to ARGB and re-quantized.
      *
      * @param colormap      The colormap referencing the texture data.
      * @param indexedColors A map where keys are biome indices and values are arrays of ARGB color codes.
@@ -143,13 +479,192 @@ public class ColorMapService {
      */
     public static void applyIndexedColorChangesToColormapTexture(Colormap colormap, Map<Integer, int[]> indexedColors) throws IOException {
 
+        applyIndexedColorChangesToColormapTexture(colormap, indexedColors, colormap.getTexturePath());
+    }
+
+    /**
+     * Applies color changes to a modifier texture and writes the result to the specified output path.
+     *
+     * @param colormap      The colormap referencing the texture data.
+     * @param indexedColors A map where keys are biome indices and values are arrays of ARGB color codes.
+     * @param outputPath    The path the updated texture is written to - may differ from the colormap texture path.
+     * @throws IOException If an I/O error occurs during image reading or writing.
+     * @see #applyIndexedColorChangesToColormapTexture(Colormap, Map)
+     */
+    public static void applyIndexedColorChangesToColormapTexture(Colormap colormap, Map<Integer, int[]> indexedColors, Path outputPath) throws IOException {
+
+        try (EncodedTexture encodedTexture = encodeIndexedColorChanges(colormap, indexedColors)) {
+
+            if (encodedTexture != null) writeEncodedTexture(colormap, encodedTexture, outputPath);
+        }
+    }
+
+    /**
+     * Applies color changes to a modifier texture in memory and encodes the result as PNG, without writing it.
+     * Thread safe - textures may be encoded concurrently.
+     *
+     * @param colormap      The colormap referencing the texture data.
+     * @param indexedColors A map where keys are biome indices and values are arrays of ARGB color codes.
+     * @return The encoded PNG texture - to be closed by the caller, or null if the colormap has no PNG texture or the
+     * changes leave its pixels unchanged.
+     * @throws IOException If an I/O error occurs during image reading or encoding.
+     * @see #writeEncodedTexture(Colormap, EncodedTexture, Path)
+     */
+    public static EncodedTexture encodeIndexedColorChanges(Colormap colormap, Map<Integer, int[]> indexedColors) throws IOException {
+
         Path texturePath = colormap.getTexturePath();
 
         if (texturePath == null || !Files.exists(texturePath) || !texturePath.toString().endsWith(".png")) {
-            return;
+            return null;
+        }
+
+        if (isLargeTexture(texturePath)) return encodeLargeTextureColorChanges(colormap, indexedColors, texturePath);
+
+        // Format-preserving mode - keep the palette and index raster of indexed textures
+        if (ArdaBiomesEditor.CONFIG.getConfiguration().isPreserveIndexedFormat()) {
+
+            PngDecoder.IndexedImage indexedImage = PngDecoder.decodeIndexed(texturePath);
+
+            if (indexedImage != null) {
+
+                IndexedPixelWriter writer = new IndexedPixelWriter(indexedImage);
+
+                if (writeColorChanges(colormap, indexedColors, writer)) {
+
+                    if (!writer.isChanged()) return null;
+
+                    // Only palette entries changed - the image data is kept as is
+                    int[] remappedPalette = writer.getRemappedPalette();
+
+                    return EncodedTexture.ofBytes(remappedPalette != null
+                            ? PngEncoder.replacePalette(texturePath, remappedPalette)
+                            : encodeImage(writer.toImage()));
+                }
+
+                ArdaBiomesEditor.LOGGER.info("Palette of {} exceeds 256 colors, saving as ARGB", texturePath);
+            }
         }
 
         BufferedImage image = getBufferedImage(texturePath);
+        ArgbPixelWriter writer = new ArgbPixelWriter(image);
+
+        writeColorChanges(colormap, indexedColors, writer);
+
+        return writer.isChanged() ? EncodedTexture.ofBytes(encodeImage(toOutputImage(image))) : null;
+    }
+
+    /**
+     * Applies color changes to a large texture through its tiles, and encodes the result row by row to a spool file.
+     * Large textures are always saved as truecolor, with the streaming encoder: quantizing them to a palette, or
+     * encoding them through ImageIO, would require the whole image in memory.
+     * <p>
+     * The cached texture is shared with concurrent readers, so it is never written to: the edits are kept in a
+     * private overlay, merged into the rows as they are encoded. Readers see the texture as saved on disk until the
+     * new file is written, and nothing if the save fails.
+     *
+     * @param colormap      The colormap referencing the texture data.
+     * @param indexedColors A map where keys are biome indices and values are arrays of ARGB color codes.
+     * @param texturePath   The path to the texture image.
+     * @return The encoded PNG texture, or null if the changes leave its pixels unchanged.
+     * @throws IOException If an I/O error occurs during image reading or encoding.
+     */
+    private static EncodedTexture encodeLargeTextureColorChanges(Colormap colormap, Map<Integer, int[]> indexedColors, Path texturePath) throws IOException {
+
+        try {
+
+            return TEXTURE_CACHE.withTiledTexture(texturePath, ColorMapService::openTiledTexture, texture -> {
+
+                OverlayPixelWriter writer = new OverlayPixelWriter(texture);
+
+                writeColorChanges(colormap, indexedColors, writer);
+
+                if (!writer.isChanged()) return null;
+
+                PngEncoder encoder = createPngEncoder();
+
+                if (encoder == null) encoder = new PngEncoder(Deflater.BEST_SPEED, PngEncoder.FilterStrategy.SUB);
+
+                Path spoolFile = EncodedTexture.createSpoolFile(texturePath);
+
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(spoolFile), 64 * 1024)) {
+
+                    encoder.encodeArgb(texture.width(), texture.height(), !texture.isOpaque(), (y, row) -> {
+
+                        try {
+
+                            writer.copyRow(y, row);
+
+                        } catch (IOException e) {
+
+                            throw new UncheckedIOException(e);
+                        }
+                    }, out);
+
+                } catch (IOException | RuntimeException e) {
+
+                    Files.deleteIfExists(spoolFile);
+                    throw e;
+                }
+
+                return EncodedTexture.ofSpoolFile(spoolFile);
+            });
+
+        } catch (UncheckedIOException e) {
+
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes a texture encoded by {@link #encodeIndexedColorChanges(Colormap, Map)} to the specified output path.
+     *
+     * @param colormap       The colormap referencing the texture data.
+     * @param encodedTexture The encoded PNG texture.
+     * @param outputPath     The path the texture is written to - may differ from the colormap texture path.
+     * @throws IOException If an I/O error occurs during writing.
+     * @see EncodedTexture#writeTo(Path)
+     */
+    public static void writeEncodedTexture(Colormap colormap, EncodedTexture encodedTexture, Path outputPath) throws IOException {
+
+        encodedTexture.writeTo(outputPath);
+
+        TEXTURE_CACHE.invalidate(colormap.getTexturePath());
+        TEXTURE_CACHE.invalidate(outputPath);
+    }
+
+    /**
+     * Swaps encoded textures in place of the textures of their colormaps, all or none. Each texture must have been
+     * staged for the texture path of its colormap, on the default file system.
+     *
+     * @param colormaps       The colormaps referencing the textures.
+     * @param encodedTextures The encoded PNG textures, staged by {@link EncodedTexture#stage(Path)}.
+     * @throws IOException If a texture cannot be swapped in - the textures already replaced are then restored.
+     * @see EncodedTexture#swapInAll(List, List)
+     */
+    public static void swapInEncodedTextures(List<Colormap> colormaps, List<EncodedTexture> encodedTextures) throws IOException {
+
+        List<Path> texturePaths = colormaps.stream().map(Colormap::getTexturePath).toList();
+
+        try {
+
+            EncodedTexture.swapInAll(encodedTextures, texturePaths);
+
+        } finally {
+
+            // Restored textures may have been read while they were replaced
+            texturePaths.forEach(TEXTURE_CACHE::invalidate);
+        }
+    }
+
+    /**
+     * Writes color changes using the mapping types of the colormap : x, y or both axes mapped to BIOME_ID.
+     *
+     * @param colormap      The colormap referencing the texture data.
+     * @param indexedColors A map where keys are biome indices and values are arrays of ARGB color codes.
+     * @param writer        The pixel writer of the texture.
+     * @return false if a color could not be written, in which case the texture is partially updated.
+     */
+    private static boolean writeColorChanges(Colormap colormap, Map<Integer, int[]> indexedColors, PixelWriter writer) {
 
         boolean isXaxisBiomeMapped = colormap.getxAxisMappingType() == Colormap.AxisMappingType.BIOME_ID;
         boolean isYaxisBiomeMapped = colormap.getyAxisMappingType() == Colormap.AxisMappingType.BIOME_ID;
@@ -158,35 +673,39 @@ public class ColorMapService {
 
             int index = entry.getKey();
             int[] colors = entry.getValue();
+            boolean written;
 
             // Case 1: X & Y both BIOME_ID maps to a single pixel
             if (isXaxisBiomeMapped && isYaxisBiomeMapped) {
 
-                writePixelColorData(index, colors[0], image);
+                written = writePixelColorData(index, colors[0], writer);
 
                 // Case 2: X axis BIOME_ID maps as a column
             } else if (isXaxisBiomeMapped) {
 
-                writeColumnColorData(index, colors, image);
+                written = writeColumnColorData(index, colors, writer);
 
                 // Case 3: Y axis BIOME_ID maps as a row (provided as column)
             } else if (isYaxisBiomeMapped) {
 
-                writeRowColorData(index, colors, image);
+                written = writeRowColorData(index, colors, writer);
 
                 // Case 4: this colormap is function mapped - write the entire image as is
             } else {
 
-                writeColumnColorData(index, colors, image);
+                written = writeColumnColorData(index, colors, writer);
             }
+
+            if (!written) return false;
         }
 
-        writeImage(image, texturePath);
+        return true;
     }
 
     /**
      * Loads an image from the specified path into a BufferedImage with ARGB format.
      * If the source image is in a different format, it is converted to ARGB, indexed images included.
+     * The pixels are read through the shared texture cache.
      *
      * @param texturePath The path to the texture image.
      * @return A BufferedImage in ARGB format.
@@ -194,49 +713,80 @@ public class ColorMapService {
      */
     private static BufferedImage getBufferedImage(Path texturePath) throws IOException {
 
-        BufferedImage source = ImageIO.read(texturePath.toFile());
+        DecodedTexture source = readTexture(texturePath);
         BufferedImage image = new BufferedImage(
-                source.getWidth(),
-                source.getHeight(),
+                source.width(),
+                source.height(),
                 BufferedImage.TYPE_INT_ARGB
         );
 
-        Graphics2D graphics = image.createGraphics();
-        graphics.drawImage(source, 0, 0, null);
-        graphics.dispose();
+        // Cached pixels are shared - copy them into the image's own raster
+        source.copyRowMajor(getPixels(image));
 
         return image;
     }
 
     /**
-     * Writes a single pixel color into the specified image.
+     * Indicates whether an image is 8 bit indexed, backed by a byte array holding one index per pixel in row-major
+     * order.
      *
-     * @param index The index for both x and y axis (pixel position).
-     * @param color The ARGB color to write.
-     * @param image The BufferedImage to write to.
+     * @param image The image to check.
+     * @return True if the image is a packed indexed image.
      */
-    private static void writePixelColorData(int index, int color, BufferedImage image) {
+    private static boolean isPackedIndexed(BufferedImage image) {
+
+        return image.getType() == BufferedImage.TYPE_BYTE_INDEXED
+                && image.getSampleModel() instanceof PixelInterleavedSampleModel sampleModel
+                && sampleModel.getPixelStride() == 1
+                && sampleModel.getScanlineStride() == image.getWidth()
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0
+                && image.getRaster().getDataBuffer().getOffset() == 0;
+    }
 
-        int width = image.getWidth();
-        int height = image.getHeight();
+    /**
+     * Retrieves the pixel array backing an ARGB image, in row-major order.
+     * Writes to the array are written to the image directly.
+     *
+     * @param image A BufferedImage of type {@link BufferedImage#TYPE_INT_ARGB}.
+     * @return The ARGB pixels of the image.
+     */
+    private static int[] getPixels(BufferedImage image) {
+
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Writes a single pixel color into the specified texture.
+     *
+     * @param index  The index for both x and y axis (pixel position).
+     * @param color  The ARGB color to write.
+     * @param writer The pixel writer of the texture.
+     * @return false if the color could not be written.
+     */
+    private static boolean writePixelColorData(int index, int color, PixelWriter writer) {
+
+        int width = writer.width();
+        int height = writer.height();
 
         if (index < 0 || index >= width || index >= height)
             throw new IllegalArgumentException("Index out of bounds: " + index + " for image size " + width + "x" + height);
 
-        image.setRGB(index, index, color);
+        return writer.setPixel(index * width + index, color);
     }
 
     /**
-     * Writes a column of colors into the specified image.
+     * Writes a column of colors into the specified texture.
      *
      * @param columnIndex The column index (x axis in the texture)
      * @param colors      An array of ARGB color codes as a column (should match the height of the texture).
-     * @param image       The BufferedImage to write to.
+     * @param writer      The pixel writer of the texture.
+     * @return false if a color could not be written.
      */
-    private static void writeColumnColorData(int columnIndex, int[] colors, BufferedImage image) {
+    static boolean writeColumnColorData(int columnIndex, int[] colors, PixelWriter writer) {
 
-        int width = image.getWidth();
-        int height = image.getHeight();
+        int width = writer.width();
+        int height = writer.height();
 
         if (columnIndex < 0 || columnIndex >= width)
             throw new IllegalArgumentException("Index out of bounds : " + columnIndex + " for image width " + width);
@@ -244,22 +794,26 @@ public class ColorMapService {
         if (colors == null || colors.length != height)
             throw new IllegalArgumentException("Colors array height mismatch for index " + columnIndex + ": expected " + height + ", got " + (colors == null ? "null" : colors.length));
 
-        for (int y = 0; y < height; y++) {
-            image.setRGB(columnIndex, y, colors[y]);
+        // Strided copy - one pixel per row
+        for (int y = 0, offset = columnIndex; y < height; y++, offset += width) {
+            if (!writer.setPixel(offset, colors[y])) return false;
         }
+
+        return true;
     }
 
     /**
-     * Writes a row of colors into the specified image.
+     * Writes a row of colors into the specified texture.
      *
      * @param rowIndex The row index (y axis in the texture)
      * @param colors   An array of ARGB color codes as a row (should match the width of the texture).
-     * @param image    The BufferedImage to write to.
+     * @param writer   The pixel writer of the texture.
+     * @return false if a color could not be written.
      */
-    private static void writeRowColorData(int rowIndex, int[] colors, BufferedImage image) {
+    static boolean writeRowColorData(int rowIndex, int[] colors, PixelWriter writer) {
 
-        int width = image.getWidth();
-        int height = image.getHeight();
+        int width = writer.width();
+        int height = writer.height();
 
         if (rowIndex < 0 || rowIndex >= height)
             throw new IllegalArgumentException("Index out of bounds : " + rowIndex + " for image height " + height);
@@ -267,87 +821,472 @@ public class ColorMapService {
         if (colors == null || colors.length != width)
             throw new IllegalArgumentException("Colors array height mismatch for index " + rowIndex + ": expected " + width + ", got " + (colors == null ? "null" : colors.length));
 
-        for (int x = 0; x < width; x++) {
-            image.setRGB(x, rowIndex, colors[x]);
-        }
+        return writer.setRow(rowIndex * width, colors);
     }
 
     /**
-     * Writes the provided image to the specified output path.
+     * Converts the provided image to its output format.
      * If the image contains 256 or fewer colors, it will be saved as an 8bit indexed PNG.
      *
-     * @param image      The BufferedImage to write.
-     * @param outputPath The path to save the image.
-     * @throws IOException If an I/O error occurs during image writing.
+     * @param image The ARGB BufferedImage to convert.
+     * @return The image to encode.
      */
-    private static void writeImage(BufferedImage image, Path outputPath) throws IOException {
+    private static BufferedImage toOutputImage(BufferedImage image) {
 
         BufferedImage outputImage;
 
         int width = image.getWidth();
         int height = image.getHeight();
 
-        Set<Integer> colors = new HashSet<>(256);
+        // Single pass over the pixels: collect the palette and emit indices, stop past 256 colors
+        int[] pixels = getPixels(image);
+        byte[] indices = new byte[pixels.length];
+        ColorPalette palette = ColorPalette.index(pixels, indices);
+
+        if (palette != null) {
+
+            WritableRaster raster = Raster.createInterleavedRaster(
+                    new DataBufferByte(indices, indices.length),
+                    width,
+                    height,
+                    width,
+                    1,
+                    new int[]{0},
+                    null
+            );
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                colors.add(image.getRGB(x, y));
+            // Output as 8bit indexed PNG
+            outputImage = new BufferedImage(palette.toColorModel(), raster, false, null);
+
+        } else {
+
+            // Output as ARGB PNG
+            outputImage = image;
+        }
+
+        return outputImage;
+    }
+
+    /**
+     * Encodes the image as PNG, in its own format.
+     *
+     * @param image The BufferedImage to encode.
+     * @return The encoded PNG.
+     * @throws IOException If an I/O error occurs during image encoding.
+     */
+    private static byte[] encodeImage(BufferedImage image) throws IOException {
+
+        PngEncoder encoder = createPngEncoder();
+
+        if (encoder != null && isPackedIndexed(image)) {
+
+            return encoder.encodeIndexed(image.getWidth(), image.getHeight(),
+                    ((DataBufferByte) image.getRaster().getDataBuffer()).getData(),
+                    (IndexColorModel) image.getColorModel());
+        }
+
+        if (encoder != null && image.getType() == BufferedImage.TYPE_INT_ARGB) {
+
+            return encoder.encodeArgb(image.getWidth(), image.getHeight(), getPixels(image));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        if (!ImageIO.write(image, "png", out)) throw new IOException("No PNG writer available");
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates the PNG encoder matching the configured save mode.
+     *
+     * @return The encoder, or null to encode through ImageIO.
+     */
+    private static PngEncoder createPngEncoder() {
+
+        ArdaBiomesEditorConfiguration configuration = ArdaBiomesEditor.CONFIG.getConfiguration();
+        int compressionLevel = Math.min(configuration.getPngCompressionLevel(), Deflater.BEST_COMPRESSION);
+
+        return switch (configuration.getPngSaveMode()) {
+            case FAST -> new PngEncoder(compressionLevel < 0 ? Deflater.BEST_SPEED : compressionLevel, PngEncoder.FilterStrategy.SUB);
+            case SMALLEST -> new PngEncoder(compressionLevel < 0 ? Deflater.BEST_COMPRESSION : compressionLevel, PngEncoder.FilterStrategy.ADAPTIVE);
+            case IMAGE_IO -> null;
+        };
+    }
+
+    /**
+     * Reads a column or a row of a texture.
+     */
+    @FunctionalInterface
+    private interface LineReader {
+
+        int[] read(int index) throws IOException;
+    }
+
+    /**
+     * Writes pixels into a texture, addressed by row-major offset.
+     */
+    interface PixelWriter {
+
+        int width();
 
-                if (colors.size() > 256) break;
+        int height();
+
+        /**
+         * @return false if the color cannot be represented in the texture.
+         */
+        boolean setPixel(int offset, int argb);
+
+        /**
+         * @return false if a color cannot be represented in the texture.
+         */
+        default boolean setRow(int offset, int[] argb) {
+
+            for (int i = 0; i < argb.length; i++) {
+                if (!setPixel(offset + i, argb[i])) return false;
             }
+
+            return true;
         }
 
-        if (colors.size() <= 256) {
+        /**
+         * @return true if at least one pixel now holds a different color.
+         */
+        boolean isChanged();
+    }
+
+    /**
+     * Writes into the raster of an ARGB image.
+     */
+    static final class ArgbPixelWriter implements PixelWriter {
 
-            List<Integer> palette = new ArrayList<>(colors);
-            int size = palette.size();
+        private final BufferedImage image;
+        private final int[] pixels;
+        private boolean changed;
+
+        ArgbPixelWriter(BufferedImage image) {
+
+            this.image = image;
+            this.pixels = getPixels(image);
+        }
+
+        @Override
+        public int width() {
+            return image.getWidth();
+        }
+
+        @Override
+        public int height() {
+            return image.getHeight();
+        }
 
-            byte[] r = new byte[size];
-            byte[] g = new byte[size];
-            byte[] b = new byte[size];
-            byte[] a = new byte[size];
+        @Override
+        public boolean setPixel(int offset, int argb) {
 
-            for (int i = 0; i < size; i++) {
+            changed |= pixels[offset] != argb;
+            pixels[offset] = argb;
+            return true;
+        }
+
+        @Override
+        public boolean setRow(int offset, int[] argb) {
+
+            changed |= !Arrays.equals(pixels, offset, offset + argb.length, argb, 0, argb.length);
+            System.arraycopy(argb, 0, pixels, offset, argb.length);
+            return true;
+        }
+
+        @Override
+        public boolean isChanged() {
+            return changed;
+        }
+    }
+
+    /**
+     * Records the writes to a tiled texture in an overlay, leaving the texture - shared through the texture cache -
+     * untouched. Edits are held per row as the written offsets and colors, not as whole rows: a column edit of a
+     * large texture touches every row, but a single pixel of each.
+     */
+    private static final class OverlayPixelWriter implements PixelWriter {
+
+        private final TiledTexture texture;
+
+        /**
+         * Edited rows: the x coordinates written, then the colors written, in write order
+         */
+        private final Map<Integer, RowEdits> editedRows = new HashMap<>();
+        private boolean changed;
+
+        private OverlayPixelWriter(TiledTexture texture) {
+            this.texture = texture;
+        }
 
-                int argb = palette.get(i);
-                a[i] = (byte) ((argb >> 24) & 0xFF);
-                r[i] = (byte) ((argb >> 16) & 0xFF);
-                g[i] = (byte) ((argb >> 8) & 0xFF);
-                b[i] = (byte) (argb & 0xFF);
+        @Override
+        public int width() {
+            return texture.width();
+        }
+
+        @Override
+        public int height() {
+            return texture.height();
+        }
+
+        @Override
+        public boolean setPixel(int offset, int argb) {
+
+            int x = offset % texture.width();
+            int y = offset / texture.width();
+
+            try {
+
+                if (!changed && texture.getPixel(x, y) != argb) changed = true;
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
             }
 
-            IndexColorModel icm = new IndexColorModel(8, size, r, g, b, a);
+            editedRows.computeIfAbsent(y, row -> new RowEdits()).add(x, argb);
 
-            BufferedImage indexed = new BufferedImage(
-                    image.getWidth(),
-                    image.getHeight(),
-                    BufferedImage.TYPE_BYTE_INDEXED,
-                    icm
-            );
+            return true;
+        }
+
+        @Override
+        public boolean isChanged() {
+            return changed;
+        }
+
+        /**
+         * Copies a row of the texture with the edits applied.
+         *
+         * @param y   The row.
+         * @param row The destination, of the texture width.
+         * @throws IOException If the tiles of the row cannot be read.
+         */
+        private void copyRow(int y, int[] row) throws IOException {
+
+            texture.copyRow(y, row);
+
+            RowEdits edits = editedRows.get(y);
+
+            if (edits != null) edits.applyTo(row);
+        }
+
+        /**
+         * Writes to a row - later writes of a pixel override earlier ones.
+         */
+        private static final class RowEdits {
 
-            WritableRaster raster = indexed.getRaster();
+            private int[] xs = new int[4];
+            private int[] colors = new int[4];
+            private int size;
 
-            Map<Integer, Integer> indexMap = new HashMap<>(size);
-            for (int i = 0; i < size; i++) {
-                indexMap.put(palette.get(i), i);
+            private void add(int x, int argb) {
+
+                if (size == xs.length) {
+
+                    xs = Arrays.copyOf(xs, size * 2);
+                    colors = Arrays.copyOf(colors, size * 2);
+                }
+
+                xs[size] = x;
+                colors[size++] = argb;
             }
 
-            for (int y = 0; y < image.getHeight(); y++) {
-                for (int x = 0; x < image.getWidth(); x++) {
-                    int argb = image.getRGB(x, y);
-                    raster.setSample(x, y, 0, indexMap.get(argb));
+            private void applyTo(int[] row) {
+
+                for (int i = 0; i < size; i++) row[xs[i]] = colors[i];
+            }
+        }
+    }
+
+    /**
+     * Writes into the index raster of an 8 bit indexed image. The original palette is kept as is:
+     * existing colors reuse their palette entry, new colors are appended while the palette has room, then
+     * take over entries no pixel refers to.
+     * <p>
+     * Only the written pixels are patched. The writer also tracks whether the writes amount to replacing palette
+     * entries - every pixel of an entry written with the same new color - in which case the image data does not need
+     * to be encoded again.
+     */
+    private static final class IndexedPixelWriter implements PixelWriter {
+
+        private final int width;
+        private final int height;
+        private final byte[] indices;
+        private final ColorPalette palette;
+        private final int[] originalPalette;
+
+        /**
+         * Palette entries referenced by at least one pixel - computed when the palette first overflows
+         */
+        private boolean[] usedEntries;
+        private boolean changed;
+
+        /**
+         * Palette replacement tracking: number of pixels of each original entry written, and the color they were
+         * all written with
+         */
+        private final int[] writtenPixels;
+        private final int[] writtenColors;
+        private final BitSet writtenOffsets;
+        private boolean paletteReplacement = true;
+
+        private IndexedPixelWriter(PngDecoder.IndexedImage image) {
+
+            this.width = image.width();
+            this.height = image.height();
+            this.indices = image.indices();
+            this.originalPalette = image.palette();
+            this.palette = ColorPalette.of(originalPalette);
+            this.writtenPixels = new int[originalPalette.length];
+            this.writtenColors = new int[originalPalette.length];
+            this.writtenOffsets = new BitSet(indices.length);
+        }
+
+        @Override
+        public int width() {
+            return width;
+        }
+
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public boolean setPixel(int offset, int argb) {
+
+            if (paletteReplacement) trackPaletteReplacement(offset, argb);
+
+            // Unchanged pixels keep their index, even if the palette holds the color more than once
+            if (palette.getColor(indices[offset] & 0xFF) == argb) return true;
+
+            int index = palette.add(argb);
+
+            if (index < 0) index = recycleEntry(offset, argb);
+            if (index < 0) return false;
+
+            indices[offset] = (byte) index;
+            if (usedEntries != null) usedEntries[index] = true;
+            changed = true;
+
+            return true;
+        }
+
+        @Override
+        public boolean isChanged() {
+            return changed;
+        }
+
+        /**
+         * Records the write of a pixel that still holds its original index.
+         */
+        private void trackPaletteReplacement(int offset, int argb) {
+
+            // A pixel written twice may already hold another index
+            if (writtenOffsets.get(offset)) {
+
+                paletteReplacement = false;
+                return;
+            }
+
+            writtenOffsets.set(offset);
+
+            int entry = indices[offset] & 0xFF;
+
+            if (writtenPixels[entry]++ == 0) writtenColors[entry] = argb;
+            else if (writtenColors[entry] != argb) paletteReplacement = false;
+        }
+
+        /**
+         * Resolves the writes as a replacement of palette entries, if possible.
+         *
+         * @return the original palette with the replaced entries, or null if some pixels of a replaced entry were
+         * not written, or were written with different colors.
+         */
+        private int[] getRemappedPalette() {
+
+            if (!paletteReplacement) return null;
+
+            int[] remappedPalette = originalPalette.clone();
+            int[] pixelCounts = null;
+
+            for (int entry = 0; entry < remappedPalette.length; entry++) {
+
+                if (writtenPixels[entry] == 0 || writtenColors[entry] == originalPalette[entry]) continue;
+
+                if (pixelCounts == null) pixelCounts = countOriginalEntries();
+                if (pixelCounts[entry] != writtenPixels[entry]) return null;
+
+                remappedPalette[entry] = writtenColors[entry];
+            }
+
+            return remappedPalette;
+        }
+
+        /**
+         * Counts the pixels of each original palette entry. Written pixels are counted under their original entry.
+         */
+        private int[] countOriginalEntries() {
+
+            int[] counts = new int[originalPalette.length];
+
+            for (int offset = 0; offset < indices.length; offset++) {
+                if (!writtenOffsets.get(offset)) counts[indices[offset] & 0xFF]++;
+            }
+
+            for (int entry = 0; entry < counts.length; entry++) counts[entry] += writtenPixels[entry];
+
+            return counts;
+        }
+
+        /**
+         * Assigns the color to a palette entry no pixel refers to, once the palette is full.
+         * The pixel at the given offset is about to be overwritten and does not count as a reference. Entries
+         * released by later writes are not tracked - they are reclaimed by the next save.
+         *
+         * @return the recycled palette index, or -1 if every entry is in use.
+         */
+        private int recycleEntry(int offset, int argb) {
+
+            if (usedEntries == null) {
+
+                // Scanned once per save, only when the palette overflows
+                usedEntries = new boolean[ColorPalette.MAX_COLORS];
+                for (int i = 0; i < indices.length; i++) {
+                    if (i != offset) usedEntries[indices[i] & 0xFF] = true;
                 }
             }
 
-            // Output as 8bit indexed PNG
-            outputImage = indexed;
+            for (int index = 0; index < palette.size(); index++) {
 
-        } else {
+                if (!usedEntries[index]) {
 
-            // Output as ARGB PNG
-            outputImage = image;
+                    palette.set(index, argb);
+                    return index;
+                }
+            }
+
+            return -1;
         }
 
-        ImageIO.write(outputImage, "png", outputPath.toFile());
+        /**
+         * @return the updated image, backed by the patched index raster.
+         */
+        private BufferedImage toImage() {
+
+            WritableRaster raster = Raster.createInterleavedRaster(
+                    new DataBufferByte(indices, indices.length),
+                    width,
+                    height,
+                    width,
+                    1,
+                    new int[]{0},
+                    null
+            );
+
+            return new BufferedImage(palette.toColorModel(), raster, false, null);
+        }
     }
 }
\ No newline at end of file
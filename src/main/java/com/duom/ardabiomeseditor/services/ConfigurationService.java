@@ -20,6 +20,9 @@ public class ConfigurationService {
 
     private static final String APP_NAME = "ArdaBiomesEditor";
     private static final String CONFIG_FILE = "config.json";
+    private static final String INDEX_DIRECTORY = "index";
+    private static final String TEXTURE_STORE_DIRECTORY = "textures";
+    private static final String JOURNAL_DIRECTORY = "journal";
 
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     private final Path configPath;
@@ -180,6 +183,19 @@ public class ConfigurationService {
         return configuration.getRecentFiles();
     }
 
+    /**
+     * Retrieves the current configuration, loading it from the configuration file if needed.
+     *
+     * @return The application configuration.
+     */
+    public ArdaBiomesEditorConfiguration getConfiguration() {
+
+        if (configuration == null) loadConfig();
+        if (configuration == null) configuration = new ArdaBiomesEditorConfiguration();
+
+        return configuration;
+    }
+
     /**
      * Retrieves the directory where log files are stored.
      *
@@ -189,4 +205,34 @@ public class ConfigurationService {
 
         return this.configPath.getParent();
     }
+
+    /**
+     * Retrieves the directory where persistent resource pack indexes are stored.
+     *
+     * @return The path to the index directory.
+     */
+    public Path getIndexDirectory() {
+
+        return this.configPath.getParent().resolve(INDEX_DIRECTORY);
+    }
+
+    /**
+     * Retrieves the directory where decoded texture sidecar files are stored.
+     *
+     * @return The path to the texture store directory.
+     */
+    public Path getTextureStoreDirectory() {
+
+        return this.configPath.getParent().resolve(TEXTURE_STORE_DIRECTORY);
+    }
+
+    /**
+     * Retrieves the directory where the journals of unsaved edits are stored.
+     *
+     * @return The path to the change journal directory.
+     */
+    public Path getJournalDirectory() {
+
+        return this.configPath.getParent().resolve(JOURNAL_DIRECTORY);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.duom.ardabiomeseditor.services;
+
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A PNG texture encoded by {@link ColorMapService}, waiting to be written.
+ * <p>
+ * Textures are encoded in memory, except large ones: they are streamed to a spool file while they are encoded.
+ * The spool file of a texture on the default file system is created next to it, so that writing the texture is a
+ * rename. Encoded textures must be closed, written or not, to delete their spool file.
+ * <p>
+ * Several textures are updated together by staging each of them next to its target, then swapping them all in with
+ * {@link #swapInAll(List, List)}.
+ */
+public final class EncodedTexture implements Closeable {
+
+    private final byte[] bytes;
+    private final Path spoolFile;
+    private Path stagedFile;
+
+    private EncodedTexture(byte[] bytes, Path spoolFile) {
+
+        this.bytes = bytes;
+        this.spoolFile = spoolFile;
+    }
+
+    /**
+     * @param bytes The encoded PNG.
+     * @return the texture encoded in memory.
+     */
+    static EncodedTexture ofBytes(byte[] bytes) {
+        return new EncodedTexture(bytes, null);
+    }
+
+    /**
+     * @param spoolFile The file holding the encoded PNG - deleted when the texture is closed, unless moved in place.
+     * @return the texture encoded to a file.
+     */
+    static EncodedTexture ofSpoolFile(Path spoolFile) {
+        return new EncodedTexture(null, spoolFile);
+    }
+
+    /**
+     * Creates the spool file of a large texture.
+     *
+     * @param texturePath The texture being encoded.
+     * @return An empty file - in the directory of the texture if it is on the default file system, so that it can
+     * be moved in place.
+     * @throws IOException If the file cannot be created.
+     */
+    static Path createSpoolFile(Path texturePath) throws IOException {
+
+        if (texturePath.getFileSystem() == FileSystems.getDefault())
+            return Files.createTempFile(texturePath.toAbsolutePath().getParent(), texturePath.getFileName().toString(), ".tmp");
+
+        return Files.createTempFile("arda-texture-", ".png");
+    }
+
+    /**
+     * Writes the texture to the given path.
+     * On the default file system, the texture is written next to the output path then swapped in, so an interrupted
+     * save never leaves a truncated texture. Zip file systems only persist entries when closed - archive updates are
+     * staged by the loader.
+     *
+     * @param outputPath The path the texture is written to.
+     * @throws IOException If an I/O error occurs during writing.
+     */
+    public void writeTo(Path outputPath) throws IOException {
+
+        if (outputPath.getFileSystem() != FileSystems.getDefault()) {
+
+            if (spoolFile != null) Files.copy(spoolFile, outputPath, StandardCopyOption.REPLACE_EXISTING);
+            else Files.write(outputPath, bytes);
+
+            return;
+        }
+
+        stage(outputPath);
+        swapIn(outputPath);
+    }
+
+    /**
+     * Writes the texture next to the given path on the default file system, without replacing it yet.
+     * The staged file gets the permissions of the texture it replaces. It is deleted when the texture is closed,
+     * unless swapped in.
+     *
+     * @param outputPath The path the texture is going to replace.
+     * @throws IOException If the texture cannot be written.
+     * @see #swapInAll(List, List)
+     */
+    public void stage(Path outputPath) throws IOException {
+
+        Path directory = outputPath.toAbsolutePath().getParent();
+
+        // Spooled next to the output - already in place to be swapped in
+        if (spoolFile != null && spoolFile.getFileSystem() == FileSystems.getDefault()
+                && spoolFile.toAbsolutePath().getParent().equals(directory)) {
+
+            stagedFile = spoolFile;
+
+        } else {
+
+            stagedFile = Files.createTempFile(directory, outputPath.getFileName().toString(), ".tmp");
+
+            if (spoolFile != null) Files.copy(spoolFile, stagedFile, StandardCopyOption.REPLACE_EXISTING);
+            else Files.write(stagedFile, bytes);
+        }
+
+        copyPermissions(outputPath, stagedFile);
+    }
+
+    /**
+     * Replaces the output path with the staged texture.
+     *
+     * @param outputPath The path the texture was staged for.
+     * @throws IOException If the staged texture cannot be moved.
+     */
+    private void swapIn(Path outputPath) throws IOException {
+
+        move(stagedFile, outputPath);
+        stagedFile = null;
+    }
+
+    /**
+     * Swaps staged textures in place, all or none.
+     * <p>
+     * Each replaced texture is kept aside - hard linked, or copied if links are not supported - until every texture
+     * is swapped in. If one cannot be swapped in, the textures already replaced are restored from their backup before
+     * the error is rethrown. A backup that cannot be restored is left on disk and logged.
+     *
+     * @param encodedTextures The textures, each staged by {@link #stage(Path)}.
+     * @param outputPaths     The path each texture was staged for.
+     * @throws IOException If a texture cannot be swapped in.
+     */
+    public static void swapInAll(List<EncodedTexture> encodedTextures, List<Path> outputPaths) throws IOException {
+
+        // A null backup stands for a texture that did not exist
+        List<Path> backups = new ArrayList<>();
+        int swapped = 0;
+
+        try {
+
+            for (int i = 0; i < encodedTextures.size(); i++) {
+
+                Path outputPath = outputPaths.get(i);
+
+                backups.add(Files.exists(outputPath) ? backUp(outputPath) : null);
+                encodedTextures.get(i).swapIn(outputPath);
+                swapped++;
+            }
+
+        } catch (IOException | RuntimeException e) {
+
+            for (int i = swapped - 1; i >= 0; i--)
+                restore(outputPaths.get(i), backups.get(i), e);
+
+            // The texture that failed was not replaced - its backup is dropped
+            if (backups.size() > swapped && backups.get(swapped) != null) deleteQuietly(backups.get(swapped));
+
+            throw e;
+        }
+
+        for (Path backup : backups) {
+
+            if (backup != null) deleteQuietly(backup);
+        }
+    }
+
+    /**
+     * Keeps a texture aside before it is replaced.
+     *
+     * @param texture The texture.
+     * @return A file next to the texture, holding its current content.
+     * @throws IOException If the backup cannot be created.
+     */
+    private static Path backUp(Path texture) throws IOException {
+
+        Path backup = Files.createTempFile(texture.toAbsolutePath().getParent(), texture.getFileName().toString(), ".bak");
+
+        try {
+
+            Files.delete(backup);
+            Files.createLink(backup, texture);
+
+        } catch (IOException | UnsupportedOperationException e) {
+
+            Files.copy(texture, backup, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+
+        return backup;
+    }
+
+    /**
+     * Restores a texture replaced by {@link #swapInAll(List, List)}.
+     *
+     * @param texture The texture.
+     * @param backup  Its previous content, or null if the texture was created by the update - it is then deleted.
+     * @param failure The error that aborted the update, collecting rollback errors.
+     */
+    private static void restore(Path texture, Path backup, Exception failure) {
+
+        try {
+
+            if (backup != null) move(backup, texture);
+            else Files.deleteIfExists(texture);
+
+        } catch (IOException e) {
+
+            failure.addSuppressed(e);
+            ArdaBiomesEditor.LOGGER.error("Could not restore texture {}, its previous content is kept in {}", texture, backup);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+
+        try {
+
+            Files.deleteIfExists(file);
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+
+        try {
+
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (AtomicMoveNotSupportedException e) {
+
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Applies the POSIX permissions of a texture to the file replacing it - temporary files are created readable by
+     * their owner only, and saving must never restrict access to the texture. A new texture gets the permissions of its
+     * directory, without the execute bits. Does nothing on file systems without POSIX permissions.
+     *
+     * @param texture The texture being replaced.
+     * @param file    The file replacing it.
+     * @throws IOException If the permissions cannot be read or set.
+     */
+    private static void copyPermissions(Path texture, Path file) throws IOException {
+
+        if (!file.getFileSystem().supportedFileAttributeViews().contains("posix")) return;
+
+        Set<PosixFilePermission> permissions;
+
+        if (Files.exists(texture)) {
+
+            permissions = Files.getPosixFilePermissions(texture);
+
+        } else {
+
+            permissions = Files.getPosixFilePermissions(texture.toAbsolutePath().getParent());
+            permissions.removeAll(Set.of(PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.GROUP_EXECUTE,
+                    PosixFilePermission.OTHERS_EXECUTE));
+        }
+
+        Files.setPosixFilePermissions(file, permissions);
+    }
+
+    /**
+     * Deletes the spool file and the staged file, if any and not moved in place.
+     */
+    @Override
+    public void close() {
+
+        if (stagedFile != null && !stagedFile.equals(spoolFile)) deleteQuietly(stagedFile);
+        if (spoolFile != null) deleteQuietly(spoolFile);
+    }
+}
@@ -1,12 +1,17 @@
 package com.duom.ardabiomeseditor.services;
 
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
 import com.duom.ardabiomeseditor.model.Namespace;
 import com.duom.ardabiomeseditor.model.ResourceIdentifier;
 import com.duom.ardabiomeseditor.model.ResourcePackTreeNode;
+import com.duom.ardabiomeseditor.model.polytone.BiomeColormapIndex;
 import com.duom.ardabiomeseditor.model.polytone.BiomeIdMapper;
 import com.duom.ardabiomeseditor.model.polytone.Colormap;
-import com.duom.ardabiomeseditor.model.polytone.PolytoneAssetDeclarationType;
+import com.duom.ardabiomeseditor.services.journal.ChangeJournal;
+import com.duom.ardabiomeseditor.services.journal.JournalEntry;
 import com.duom.ardabiomeseditor.services.loaders.ResourcePackLoader;
+import com.duom.ardabiomeseditor.services.search.ResourceSearchIndex;
+import com.duom.ardabiomeseditor.services.search.SearchEntry;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -21,6 +26,8 @@ public class ResourcePackService {
 
     private ResourcePackLoader loader;
     private ResourcePackTreeService treeService;
+    private ChangeJournal journal;
+    private ResourceSearchIndex searchIndex = ResourceSearchIndex.EMPTY;
 
     /**
      * Reads the resource pack from the specified path.
@@ -30,9 +37,47 @@ public class ResourcePackService {
      */
     public void readResourcePack(Path path) throws MissingResourceException, IOException {
 
-        loader = new ResourcePackLoader();
+        var configuration = ArdaBiomesEditor.CONFIG.getConfiguration();
+        var loadMode = configuration.isParallelLoading()
+                ? ResourcePackLoader.LoadMode.PARALLEL
+                : ResourcePackLoader.LoadMode.SEQUENTIAL;
+        var indexDirectory = configuration.isPackIndexEnabled() ? ArdaBiomesEditor.CONFIG.getIndexDirectory() : null;
+
+        // Texture dimensions are only known once textures have been read - persist them before switching packs
+        if (loader != null) {
+
+            loader.writeIndex();
+            loader.close();
+        }
+
+        // Namespaces are interned for the loaded pack only
+        Namespace.resetPool();
+
+        loader = new ResourcePackLoader(loadMode, indexDirectory);
         loader.load(path);
-        treeService = new ResourcePackTreeService(path, loader.getPolytoneResourcePack());
+        treeService = new ResourcePackTreeService(path.getFileName().toString(),
+                loader.getResourcePackRoot(),
+                loader.getPolytoneResourcePack());
+        searchIndex = ResourceSearchIndex.build(treeService.getResourceTree());
+
+        openJournal(path, configuration.isChangeJournalEnabled());
+    }
+
+    /**
+     * Opens the change journal of a resource pack. The current journal is kept when the same pack is read again.
+     *
+     * @param path    The path to the resource pack file.
+     * @param enabled Whether unsaved edits are journaled.
+     */
+    private void openJournal(Path path, boolean enabled) {
+
+        Path journalFile = enabled ? ChangeJournal.resolveJournalFile(ArdaBiomesEditor.CONFIG.getJournalDirectory(), path) : null;
+
+        if (journal != null && journal.getJournalFile().equals(journalFile)) return;
+
+        if (journal != null) journal.close();
+
+        journal = journalFile != null ? new ChangeJournal(journalFile) : null;
     }
 
     /**
@@ -51,11 +96,131 @@ public class ResourcePackService {
                                     BiConsumer<String, Double> progressCallback) throws MissingResourceException, IOException {
 
         if (loader != null) {
-            if (biomeMappedChanges)
-                loader.persistBiomeMappedColorChanges(root, colorChanges, progressCallback);
-            else
-                loader.persistColormapColorChanges(root, colorChanges, progressCallback);
+
+            Set<Colormap> modifiedColormaps = biomeMappedChanges
+                    ? loader.persistBiomeMappedColorChanges(root, colorChanges, progressCallback)
+                    : loader.persistColormapColorChanges(root, colorChanges, progressCallback);
+
+            // Archives are mounted again by the loader once rewritten - the pack model is kept as is
+            refreshColormaps(modifiedColormaps);
         }
+
+        // The journaled edits are on disk now
+        if (journal != null) journal.truncate();
+    }
+
+    /**
+     * Records an edit of a displayed column in the change journal. Returns immediately - the journal is written in
+     * the background.
+     *
+     * @param root           The displayed resource identifier.
+     * @param biomeMapped    Indicates if the displayed resource is a mapped biome.
+     * @param column         The identifier of the edited column.
+     * @param previousColors The colors of the column before the edit.
+     * @param colors         The colors of the column after the edit.
+     */
+    public void journalColumnChange(ResourceIdentifier root, boolean biomeMapped, ResourceIdentifier column,
+                                    int[] previousColors, int[] colors) {
+
+        if (journal == null) return;
+
+        JournalEntry entry = JournalEntry.ofChange(root, biomeMapped, column, previousColors, colors);
+
+        if (entry != null) journal.append(entry);
+    }
+
+    /**
+     * Indicates whether edits of a previous session were journaled but never saved, e.g. after a crash.
+     *
+     * @return true if the change journal of the loaded resource pack holds edits.
+     */
+    public boolean hasJournaledChanges() {
+
+        return journal != null && !journal.isEmpty();
+    }
+
+    /**
+     * Drops the journaled edits, after they were reset by the user.
+     */
+    public void discardJournaledChanges() {
+
+        if (journal != null) journal.truncate();
+    }
+
+    /**
+     * Replays the journaled edits of a previous session over the current colors of the pack, without writing them.
+     * The edits are restored in the editor as unsaved changes, and stay journaled until they are saved or reset.
+     * <p>
+     * Switching resources requires saving or resetting the displayed one, so the journal holds the edits of a single
+     * resource: the one edited last is recovered, edits of any other resource are skipped. Edits of columns no longer
+     * found in the pack are skipped as well.
+     *
+     * @return The recovered edits, or null if no edit could be recovered.
+     * @throws MissingResourceException If a required resource is missing.
+     */
+    public RecoveredChanges readJournaledChanges() throws MissingResourceException {
+
+        if (journal == null) return null;
+
+        List<JournalEntry> entries = journal.readEntries();
+
+        if (entries.isEmpty()) return null;
+
+        JournalEntry lastEntry = entries.getLast();
+        ResourceIdentifier root = lastEntry.root();
+        boolean biomeMapped = lastEntry.biomeMapped();
+
+        Map<ResourceIdentifier, int[]> colorMappings = biomeMapped ? getMappedColorsFromBiome(root) : getColormapColors(root);
+        Map<ResourceIdentifier, int[]> colorChanges = new HashMap<>();
+        int recovered = 0;
+
+        for (JournalEntry entry : entries) {
+
+            if (entry.biomeMapped() != biomeMapped || !entry.root().equals(root)) {
+
+                ArdaBiomesEditor.LOGGER.warn("Skipping journaled edit of {} in {}: not the last edited resource", entry.column(), entry.root());
+                continue;
+            }
+
+            int[] originalColors = colorMappings.get(entry.column());
+
+            // Edits are replayed over a copy - the current colors are the original colors of the restored columns
+            int[] columnColors = originalColors == null
+                    ? null
+                    : colorChanges.computeIfAbsent(entry.column(), column -> originalColors.clone());
+
+            if (columnColors != null && entry.applyTo(columnColors)) {
+
+                recovered++;
+
+            } else {
+
+                ArdaBiomesEditor.LOGGER.warn("Skipping journaled edit of {} in {}: column not found", entry.column(), entry.root());
+            }
+        }
+
+        colorChanges.entrySet().removeIf(change -> Arrays.equals(change.getValue(), colorMappings.get(change.getKey())));
+
+        ArdaBiomesEditor.LOGGER.info("Recovered {} journaled edits of {} columns in {}", recovered, colorChanges.size(), root);
+
+        return colorChanges.isEmpty() ? null : new RecoveredChanges(root, biomeMapped, colorMappings, colorChanges);
+    }
+
+    /**
+     * Refreshes the colormaps whose textures were modified on disk, without reloading the resource pack.
+     * The model, the resource trees and the current selection are kept.
+     *
+     * @param colormaps The modified colormaps.
+     * @throws IOException If an I/O error occurs while reading the textures.
+     */
+    public void refreshColormaps(Collection<Colormap> colormaps) throws IOException {
+
+        ArdaBiomesEditor.LOGGER.info("Refreshing {} modified colormaps", colormaps.size());
+
+        for (Colormap colormap : colormaps)
+            ColorMapService.refreshColormap(colormap);
+
+        loader.writeIndex();
     }
 
     /**
@@ -93,6 +258,18 @@ public class ResourcePackService {
         return treeService.getResourceTree();
     }
 
+    /**
+     * Searches the biomes, colormaps and modifiers of the resource pack by name.
+     *
+     * @param query The searched text - a name prefix, a word prefix or a substring, case-insensitive.
+     * @param limit The maximum number of results.
+     * @return The matching resources, best matches first, then by namespace.
+     */
+    public List<SearchEntry> search(String query, int limit) {
+
+        return searchIndex.search(query, limit);
+    }
+
     /**
      * Retrieves a hierarchical tree structure of colormaps.
      *
@@ -116,37 +293,27 @@ public class ResourcePackService {
         if (identifier != null) {
 
             var parentNamespace = identifier.namespace();
-            BiomeIdMapper biomeIdMapper = getBiomeIdMapper(identifier);
-            List<Colormap> colormapsInNamespace = new ArrayList<>();
-            Map<Namespace, Colormap> allColormaps = loader.getPolytoneResourcePack().getColormaps();
-
-            int mappedBiomeIndex = biomeIdMapper.getMappings().getOrDefault(identifier.path(), -1);
-
-            // If the mapping is inlined, find the declaring colormap
-            if (biomeIdMapper.getDeclarationType() == PolytoneAssetDeclarationType.INLINE) {
+            List<BiomeColormapIndex.BiomeUsage> biomeUsages = getBiomeUsages(identifier);
 
-                colormapsInNamespace.add(allColormaps.values().stream()
-                        .filter(colormap -> colormap.getPath().equals(biomeIdMapper.getPath()))
-                        .findFirst()
-                        .orElse(Colormap.EMPTY));
+            if (biomeUsages.isEmpty()) return colorMappings;
 
-                // Else find all non-applicable colormaps - ie not  inlined
-            } else {
+            // Usages of a biome share the index of the biome in its mapper
+            int mappedBiomeIndex = biomeUsages.getFirst().index();
+            List<Colormap> colormapsInNamespace = biomeUsages.stream().map(BiomeColormapIndex.BiomeUsage::colormap).toList();
 
-                colormapsInNamespace = allColormaps.values().stream()
-                        .filter(colormap -> colormap.getBiomeIdMapper() == null || colormap.getBiomeIdMapper().equals(biomeIdMapper))
-                        .toList();
-            }
+            // Decode every candidate texture once, in parallel
+            var biomeColors = ColorMapService.getColorsForBiomeIds(colormapsInNamespace, List.of(mappedBiomeIndex));
 
             for (Colormap colormap : colormapsInNamespace) {
 
-                int[] colormapColors = ColorMapService.getColorsForBiomeId(colormap, mappedBiomeIndex);
+                var colormapBiomeColors = biomeColors.get(colormap);
+                int[] colormapColors = colormapBiomeColors != null ? colormapBiomeColors.get(mappedBiomeIndex) : null;
 
                 if (colormapColors != null && colormapColors.length > 0) {
 
                     var modifierName = colormap.getName();
 
-                    var modifierNamespace = new Namespace(parentNamespace.name(), modifierName);
+                    var modifierNamespace = Namespace.of(parentNamespace.name(), modifierName);
 
                     colorMappings.put(new ResourceIdentifier(modifierNamespace,
                                     colormap.getName(),
@@ -161,15 +328,27 @@ public class ResourcePackService {
     }
 
     /**
-     * Retrieves the BiomeIdMapper for the specified resource identifier.
+     * Retrieves the colormaps using the specified biome, through the biome to colormap index of the pack.
      *
-     * @param identifier The resource identifier of the biome.
-     * @return The BiomeIdMapper associated with the given identifier.
+     * @param identifier The resource identifier of the biome - the namespace of its mapper and its name.
+     * @return The usages of the biome, each one a colormap with its biome mapped axis and the biome index.
+     */
+    public List<BiomeColormapIndex.BiomeUsage> getBiomeUsages(ResourceIdentifier identifier) {
+
+        if (loader == null || identifier == null) return List.of();
+
+        return loader.getPolytoneResourcePack().getBiomeColormapIndex().getUsages(identifier.namespace(), identifier.path());
+    }
+
+    /**
+     * Retrieves the colormaps using the specified biome.
+     *
+     * @param identifier The resource identifier of the biome - the namespace of its mapper and its name.
+     * @return The colormaps, in load order.
      */
-    private BiomeIdMapper getBiomeIdMapper(ResourceIdentifier identifier) {
+    public List<Colormap> getColormapsUsingBiome(ResourceIdentifier identifier) {
 
-        Map<Namespace, BiomeIdMapper> biomeIdMappers = loader.getPolytoneResourcePack().getBiomeIdMappers();
-        return biomeIdMappers.getOrDefault(identifier.namespace(), BiomeIdMapper.EMPTY);
+        return getBiomeUsages(identifier).stream().map(BiomeColormapIndex.BiomeUsage::colormap).toList();
     }
 
     /**
@@ -196,17 +375,11 @@ public class ResourcePackService {
 
         } else {
 
-            var allColors = ColorMapService.getAllColors(colormap);
-            int width = colormap.getTextureWidth();
-            int height = colormap.getTextureHeight();
-
-            for (int idx = 0; idx < width; idx++) {
+            int[][] columns = ColorMapService.getColumns(colormap);
 
-                int[] slice = new int[height];
+            for (int idx = 0; idx < columns.length; idx++) {
 
-                for (int y = 0; y < height; y++) {
-                    slice[y] = allColors[idx * height + y];
-                }
+                int[] slice = columns[idx];
 
                 ResourceIdentifier id = new ResourceIdentifier(
                         identifier.namespace(),
@@ -223,6 +396,17 @@ public class ResourcePackService {
         return colorMappings;
     }
 
+    /**
+     * Indicates whether a colormap is small enough to be opened whole in the editor.
+     *
+     * @param identifier The resource identifier of the colormap.
+     * @return false if the colormap texture exceeds {@link ColorMapService#MAX_EDITOR_PIXELS}.
+     */
+    public boolean fitsEditor(ResourceIdentifier identifier) {
+
+        return ColorMapService.fitsEditor(getColormap(identifier.namespace()));
+    }
+
     /**
      * Retrieves the colormap corresponding to the given namespace.
      *
@@ -250,13 +434,14 @@ public class ResourcePackService {
 
         final BiomeIdMapper biomeIdMapper = getColormapBiomeIdMapper(identifier.namespace(), colormap);
 
-        var allColors = ColorMapService.getAllColors(colormap);
-        int width = colormap.getTextureWidth();
-        int height = colormap.getTextureHeight();
-
         boolean xAxisBiomeIdMapped = colormap.getxAxisMappingType() == Colormap.AxisMappingType.BIOME_ID;
         boolean yAxisBiomeIdMapped = colormap.getyAxisMappingType() == Colormap.AxisMappingType.BIOME_ID;
 
+        // One array per biome line - columns when the X axis is biome mapped, rows otherwise
+        int[][] lines = xAxisBiomeIdMapped ? ColorMapService.getColumns(colormap) : ColorMapService.getRows(colormap);
+        int width = colormap.getTextureWidth();
+        int height = colormap.getTextureHeight();
+
         for (int biomeIndex = 0; biomeIndex < (xAxisBiomeIdMapped ? width : height); biomeIndex++) {
 
             int[] slice;
@@ -266,40 +451,22 @@ public class ResourcePackService {
 
                 // biomeIndex maps to both axes
                 int color = (biomeIndex < height)
-                        ? allColors[biomeIndex * height + biomeIndex]
+                        ? lines[biomeIndex][biomeIndex]
                         : 0x00000000; // Transparent
 
                 slice = new int[]{color};
 
-                // Case 2: X = BIOME_ID maps to a  column
-            } else if (xAxisBiomeIdMapped) {
-
-                slice = new int[height];
-
-                for (int y = 0; y < height; y++) {
-                    slice[y] = allColors[biomeIndex * height + y];
-                }
-
-                // Case 3: Y = BIOME_ID maps to a row
+                // Case 2: a single axis is BIOME_ID - the biome maps to a column (X) or a row (Y), read as its line
             } else {
 
-                slice = new int[width];
-
-                for (int x = 0; x < width; x++) {
-                    slice[x] = allColors[x * height + biomeIndex];
-                }
+                slice = lines[biomeIndex];
             }
 
-            int finalBiomeIndex = biomeIndex;
-            var biomeName = biomeIdMapper.getMappings().entrySet()
-                    .stream()
-                    .filter(e -> e.getValue() == finalBiomeIndex)
-                    .map(Map.Entry::getKey)
-                    .findFirst()
-                    .orElse(Integer.toString(biomeIndex));
+            var biomeName = biomeIdMapper.getBiomeName(biomeIndex);
+            if (biomeName == null) biomeName = Integer.toString(biomeIndex);
 
             ResourceIdentifier id = new ResourceIdentifier(
-                    new Namespace(parentNamespace.name(), biomeIdMapper.getName()),
+                    Namespace.of(parentNamespace.name(), biomeIdMapper.getName()),
                     biomeName,
                     biomeIndex,
                     ResourceIdentifier.DisplayStyle.PATH,
@@ -327,15 +494,25 @@ public class ResourcePackService {
         // Mapper is not explicitly set - resolve it from the colormaps namespace
         if (biomeIdMapper == null) {
 
-            var biomeIdMappers = loader.getPolytoneResourcePack().getBiomeIdMappers();
-            biomeIdMapper = biomeIdMappers.keySet()
+            biomeIdMapper = loader.getPolytoneResourcePack()
+                    .getBiomeIdMappers(namespace.name())
                     .stream()
-                    .filter(mapperNs -> mapperNs.name().equals(namespace.name()))
                     .findFirst()
-                    .map(biomeIdMappers::get)
                     .orElse(BiomeIdMapper.EMPTY);
 
         }
         return biomeIdMapper;
     }
+
+    /**
+     * Journaled edits of a previous session, replayed over the current colors of the pack.
+     *
+     * @param root          the resource displayed when the edits were made
+     * @param biomeMapped   true if the resource is a mapped biome
+     * @param colorMappings the current colors of the resource, as loaded for display
+     * @param colorChanges  the colors of the edited columns
+     */
+    public record RecoveredChanges(ResourceIdentifier root, boolean biomeMapped,
+                                   Map<ResourceIdentifier, int[]> colorMappings,
+                                   Map<ResourceIdentifier, int[]> colorChanges) {}
 }
\ No newline at end of file
@@ -7,10 +7,10 @@ import com.duom.ardabiomeseditor.model.polytone.*;
 
 import java.awt.*;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Service for building tree structures representing resources in a Polytone resource pack.
@@ -19,6 +19,8 @@ public class ResourcePackTreeService {
 
     private final PolytoneResourcePack resourcePack;
 
+    private final String resourcePackName;
+
     private final Path resourcePackPath;
 
     private ResourcePackTreeNode resourcePackTree;
@@ -27,7 +29,21 @@ public class ResourcePackTreeService {
 
     public ResourcePackTreeService(Path resourcePackPath, PolytoneResourcePack resourcePack) {
 
-        this.resourcePackPath = resourcePackPath;
+        this(resourcePackPath.getFileName().toString(), resourcePackPath, resourcePack);
+    }
+
+    /**
+     * Constructs a tree service for a resource pack whose content root differs from the opened path,
+     * such as the root of a zip archive.
+     *
+     * @param resourcePackName The display name of the resource pack.
+     * @param resourcePackRoot The root of the resource pack content.
+     * @param resourcePack     The loaded resource pack.
+     */
+    public ResourcePackTreeService(String resourcePackName, Path resourcePackRoot, PolytoneResourcePack resourcePack) {
+
+        this.resourcePackName = resourcePackName;
+        this.resourcePackPath = resourcePackRoot;
         this.resourcePack = resourcePack;
     }
 
@@ -40,12 +56,12 @@ public class ResourcePackTreeService {
 
         if (colormapsTree == null) {
 
-            colormapsTree = new ResourcePackTreeNode(resourcePackPath.getFileName().toString(),
+            colormapsTree = new ResourcePackTreeNode(resourcePackName,
                     resourcePackPath,
                     ResourcePackTreeNode.Type.DIRECTORY);
 
             // Find all unique root namespaces
-            var rootNamespaces = getUniqueRootNamespaces(resourcePack.getColormaps());
+            var rootNamespaces = resourcePack.getColormapRootNamespaces();
 
             for (String namespace : rootNamespaces) {
 
@@ -82,7 +98,7 @@ public class ResourcePackTreeService {
             var colormapNode = new ResourcePackTreeNode(standaloneColormap.getName(),
                     resourcePackPath.resolve(standaloneColormap.getPath()),
                     ResourcePackTreeNode.Type.COLORMAP,
-                    new ResourceIdentifier(new Namespace(namespace, standaloneColormap.getName()),
+                    new ResourceIdentifier(Namespace.of(namespace, standaloneColormap.getName()),
                             standaloneColormap.getName(),
                             ResourceIdentifier.DisplayStyle.PATH,
                             ResourceIdentifier.ComparisonMethod.LOCAL_NAME));
@@ -130,7 +146,7 @@ public class ResourcePackTreeService {
                         var colormapNode = new ResourcePackTreeNode(inlinedColormap.getName(),
                                 resourcePackPath.resolve(inlinedColormap.getPath()),
                                 ResourcePackTreeNode.Type.COLORMAP,
-                                new ResourceIdentifier(new Namespace(namespace, inlinedColormap.getName()),
+                                new ResourceIdentifier(Namespace.of(namespace, inlinedColormap.getName()),
                                         inlinedColormap.getName(),
                                         ResourceIdentifier.DisplayStyle.PATH,
                                         ResourceIdentifier.ComparisonMethod.LOCAL_NAME));
@@ -159,13 +175,13 @@ public class ResourcePackTreeService {
 
         if (resourcePackTree == null) {
 
-            resourcePackTree = new ResourcePackTreeNode(resourcePackPath.getFileName().toString(),
+            resourcePackTree = new ResourcePackTreeNode(resourcePackName,
                     resourcePackPath,
                     ResourcePackTreeNode.Type.DIRECTORY);
 
-            var allNamespaces = getUniqueRootNamespaces(resourcePack.getBiomeIdMappers());
-            allNamespaces.addAll(getUniqueRootNamespaces(resourcePack.getColormaps()));
-            allNamespaces.addAll(getUniqueRootNamespaces(resourcePack.getModifiers()));
+            Set<String> allNamespaces = new LinkedHashSet<>(resourcePack.getBiomeIdMapperRootNamespaces());
+            allNamespaces.addAll(resourcePack.getColormapRootNamespaces());
+            allNamespaces.addAll(resourcePack.getModifierRootNamespaces());
 
             for (String namespace : allNamespaces) {
 
@@ -194,12 +210,12 @@ public class ResourcePackTreeService {
 
         if (biomeIdMappersTree == null) {
 
-            biomeIdMappersTree = new ResourcePackTreeNode(resourcePackPath.getFileName().toString(),
+            biomeIdMappersTree = new ResourcePackTreeNode(resourcePackName,
                     resourcePackPath,
                     ResourcePackTreeNode.Type.DIRECTORY);
 
             // Group mappers by namespace
-            var uniqueNamespaces = getUniqueRootNamespaces(resourcePack.getBiomeIdMappers());
+            var uniqueNamespaces = resourcePack.getBiomeIdMapperRootNamespaces();
 
             for (String namespace : uniqueNamespaces) {
 
@@ -217,20 +233,6 @@ public class ResourcePackTreeService {
         return biomeIdMappersTree;
     }
 
-    /**
-     * Retrieves the set of unique root namespaces from the given assets map.
-     *
-     * @param assets The map of namespaces to assets.
-     * @return A set of unique root namespace names.
-     */
-    private Set<String> getUniqueRootNamespaces(Map<Namespace, ?> assets) {
-
-        return assets.keySet()
-                .stream()
-                .map(Namespace::name)
-                .collect(Collectors.toSet());
-    }
-
     /**
      * Builds the tree structure for standalone biome ID mappers within the specified namespace.
      *
@@ -239,12 +241,7 @@ public class ResourcePackTreeService {
      */
     private void buildStandaloneMappersTree(String namespace, ResourcePackTreeNode namespaceNode) {
 
-        var standaloneMappersInNamespace = resourcePack.getBiomeIdMappers().entrySet()
-                .stream()
-                .filter(entry -> entry.getKey().name().equals(namespace))
-                .filter(entry -> entry.getValue().getDeclarationType() == PolytoneAssetDeclarationType.STANDALONE)
-                .map(Map.Entry::getValue)
-                .toList();
+        var standaloneMappersInNamespace = resourcePack.getBiomeIdMappers(namespace, PolytoneAssetDeclarationType.STANDALONE);
 
         if (!standaloneMappersInNamespace.isEmpty()) {
 
@@ -258,7 +255,7 @@ public class ResourcePackTreeService {
                         resourcePackPath.resolve(standaloneMapper.getPath()),
                         ResourcePackTreeNode.Type.BIOME_ID_MAPPER,
                         new ResourceIdentifier(
-                                new Namespace(namespace, standaloneMapper.getName()),
+                                Namespace.of(namespace, standaloneMapper.getName()),
                                 standaloneMapper.getName(),
                                 ResourceIdentifier.DisplayStyle.PATH,
                                 ResourceIdentifier.ComparisonMethod.LOCAL_NAME));
@@ -333,7 +330,7 @@ public class ResourcePackTreeService {
                         var mapperNode = new ResourcePackTreeNode("biome_id_mapper",
                                 resourcePackPath.resolve(biomeIdMapper.getPath()),
                                 ResourcePackTreeNode.Type.BIOME_ID_MAPPER,
-                                new ResourceIdentifier(new Namespace(namespace, biomeIdMapper.getName()),
+                                new ResourceIdentifier(Namespace.of(namespace, biomeIdMapper.getName()),
                                         "biome_id_mapper",
                                         ResourceIdentifier.DisplayStyle.PATH,
                                         ResourceIdentifier.ComparisonMethod.LOCAL_NAME));
@@ -368,7 +365,7 @@ public class ResourcePackTreeService {
             var biomeNode = new ResourcePackTreeNode(biomeName,
                     resourcePackPath.resolve(standaloneMapper.getPath()),
                     ResourcePackTreeNode.Type.BIOME_MAPPING,
-                    new ResourceIdentifier(new Namespace(namespace, standaloneMapper.getName()),
+                    new ResourceIdentifier(Namespace.of(namespace, standaloneMapper.getName()),
                             biomeName,
                             biomeIndex,
                             ResourceIdentifier.DisplayStyle.PATH,
@@ -384,29 +381,20 @@ public class ResourcePackTreeService {
      * @param namespace The namespace to filter colormaps by.
      * @return A list of standalone colormaps in the specified namespace.
      */
-    private List<Colormap> getStandaloneColormapsInNamespace(String namespace) {
-
-        return resourcePack.getColormaps().entrySet()
-                .stream()
-                .filter(entry -> entry.getKey().name().equals(namespace))
-                .filter(entry -> entry.getValue().getDeclarationType() == PolytoneAssetDeclarationType.STANDALONE)
-                .map(Map.Entry::getValue)
-                .toList();
+    private Collection<Colormap> getStandaloneColormapsInNamespace(String namespace) {
+
+        return resourcePack.getColormaps(namespace, PolytoneAssetDeclarationType.STANDALONE);
     }
 
     /**
      * Retrieves a map of modifiers grouped by their type within the specified namespace.
      *
      * @param namespace The namespace to filter modifiers by.
-     * @return A map where the key is the modifier type and the value is a list of modifiers of that type.
+     * @return A map where the key is the modifier type and the value is the modifiers of that type.
      */
-    private Map<Modifier.Type, List<Modifier>> getModifiersInNamespace(String namespace) {
-        return resourcePack.getModifiers().entrySet().stream()
-                .filter(entry -> entry.getKey().name().equals(namespace))
-                .collect(Collectors.groupingBy(
-                        entry -> entry.getValue().getType(),
-                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())
-                ));
+    private Map<Modifier.Type, Collection<Modifier>> getModifiersInNamespace(String namespace) {
+
+        return resourcePack.getModifiersByType(namespace);
     }
 
     private void buildInlinedBiomeIdMapperNode(String namespace, BiomeIdMapper biomeIdMapper, ResourcePackTreeNode colormapNode) {
@@ -417,7 +405,7 @@ public class ResourcePackTreeService {
             var mapperNode = new ResourcePackTreeNode("biome_id_mapper",
                     resourcePackPath.resolve(biomeIdMapper.getPath()),
                     ResourcePackTreeNode.Type.BIOME_ID_MAPPER,
-                    new ResourceIdentifier(new Namespace(namespace, biomeIdMapper.getName()),
+                    new ResourceIdentifier(Namespace.of(namespace, biomeIdMapper.getName()),
                             "biome_id_mapper",
                             ResourceIdentifier.DisplayStyle.PATH,
                             ResourceIdentifier.ComparisonMethod.LOCAL_NAME));
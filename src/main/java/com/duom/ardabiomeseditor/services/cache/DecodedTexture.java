@@ -0,0 +1,160 @@
+package com.duom.ardabiomeseditor.services.cache;
+
+import java.nio.IntBuffer;
+
+/**
+ * Decoded colormap texture, stored as non-premultiplied ARGB pixels.
+ * <p>
+ * Pixels are kept in column-major order - the layout the editor works with, a column being the colors of one biome
+ * in x axis mapped colormaps. The layout is private: pixels are read through the accessors, which return copies.
+ * The pixels are held either in a heap array or in a memory-mapped {@link TextureSidecarStore} file.
+ * <p>
+ * Instances are shared through the {@link TextureCache} and are immutable.
+ */
+public final class DecodedTexture {
+
+    private final int width;
+    private final int height;
+    private final IntBuffer columns;
+
+    private DecodedTexture(int width, int height, IntBuffer columns) {
+
+        if (columns.capacity() != width * height)
+            throw new IllegalArgumentException("Pixel count mismatch: expected " + width * height + ", got " + columns.capacity());
+
+        this.width = width;
+        this.height = height;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a texture from column-major pixels. The array is owned by the texture afterward.
+     *
+     * @param width   The texture width.
+     * @param height  The texture height.
+     * @param columns The ARGB pixels, column-major.
+     * @return The texture.
+     */
+    public static DecodedTexture ofColumnMajor(int width, int height, int[] columns) {
+
+        return new DecodedTexture(width, height, IntBuffer.wrap(columns));
+    }
+
+    /**
+     * Creates a texture backed by a buffer of column-major pixels, e.g. a memory-mapped view. The buffer is used
+     * as is and must not be modified afterward.
+     *
+     * @param width   The texture width.
+     * @param height  The texture height.
+     * @param columns The ARGB pixels, column-major, from index 0 to the buffer capacity.
+     * @return The texture.
+     */
+    public static DecodedTexture ofColumnMajor(int width, int height, IntBuffer columns) {
+
+        return new DecodedTexture(width, height, columns);
+    }
+
+    /**
+     * Creates a texture from row-major pixels.
+     *
+     * @param width  The texture width.
+     * @param height The texture height.
+     * @param rows   The ARGB pixels, row-major.
+     * @return The texture.
+     */
+    public static DecodedTexture ofRowMajor(int width, int height, int[] rows) {
+
+        int[] columns = new int[rows.length];
+
+        for (int y = 0, offset = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, offset++) {
+                columns[x * height + y] = rows[offset];
+            }
+        }
+
+        return new DecodedTexture(width, height, IntBuffer.wrap(columns));
+    }
+
+    /** @return the texture width. */
+    public int width() {
+        return width;
+    }
+
+    /** @return the texture height. */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @param x The column.
+     * @param y The row.
+     * @return the ARGB color of the pixel.
+     */
+    public int getPixel(int x, int y) {
+        return columns.get(x * height + y);
+    }
+
+    /**
+     * @param x The column.
+     * @return a copy of the column, top to bottom.
+     */
+    public int[] getColumn(int x) {
+
+        int[] column = new int[height];
+        columns.get(x * height, column);
+
+        return column;
+    }
+
+    /**
+     * @param y The row.
+     * @return a copy of the row, left to right.
+     */
+    public int[] getRow(int y) {
+
+        int[] row = new int[width];
+
+        for (int x = 0, offset = y; x < width; x++, offset += height) row[x] = columns.get(offset);
+
+        return row;
+    }
+
+    /**
+     * @return a copy of the pixels, column-major.
+     */
+    public int[] toColumnMajor() {
+
+        int[] copy = new int[width * height];
+        columns.get(0, copy);
+
+        return copy;
+    }
+
+    /**
+     * Copies the pixels, row-major, into the given array.
+     *
+     * @param rows The array receiving the pixels - at least width * height long.
+     */
+    public void copyRowMajor(int[] rows) {
+
+        for (int x = 0, offset = 0; x < width; x++) {
+            for (int y = 0; y < height; y++, offset++) {
+                rows[y * width + x] = columns.get(offset);
+            }
+        }
+    }
+
+    /**
+     * @return true if the pixels are read from a memory-mapped file rather than the heap.
+     */
+    public boolean isMapped() {
+        return columns.isDirect();
+    }
+
+    /**
+     * @return the approximate footprint of the decoded pixels, on heap or mapped, in bytes.
+     */
+    public long sizeInBytes() {
+        return (long) columns.capacity() * Integer.BYTES;
+    }
+}
@@ -0,0 +1,38 @@
+package com.duom.ardabiomeseditor.services.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Lightweight file identity used to detect on-disk changes without reading the file content.
+ *
+ * @param size         The file size in bytes.
+ * @param lastModified The last modification time in milliseconds since epoch.
+ */
+public record FileFingerprint(long size, long lastModified) {
+
+    /**
+     * Reads the fingerprint of the given file.
+     *
+     * @param path The file to fingerprint.
+     * @return The file fingerprint.
+     * @throws IOException If the file attributes cannot be read.
+     */
+    public static FileFingerprint of(Path path) throws IOException {
+
+        return of(Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * Builds a fingerprint from already resolved file attributes.
+     *
+     * @param attributes The file attributes.
+     * @return The file fingerprint.
+     */
+    public static FileFingerprint of(BasicFileAttributes attributes) {
+
+        return new FileFingerprint(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+}
@@ -0,0 +1,410 @@
+package com.duom.ardabiomeseditor.services.cache;
+
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared LRU cache of decoded colormap textures, bounded by a memory budget.
+ * <p>
+ * Entries are keyed by texture path and validated against the file fingerprint (size and modification time)
+ * on every access, so a texture modified on disk is transparently decoded again.
+ * <p>
+ * The budget bounds heap memory: textures mapped from the on-disk store live in the page cache, and only count for a
+ * nominal weight, which still bounds the number of mappings retained.
+ * <p>
+ * Large textures are kept apart as open {@link TiledTexture}s, so that selecting or saving them again does not
+ * decode the PNG again. At most {@link #MAX_OPEN_TILED_TEXTURES} are kept open; their tiles are unloaded whenever
+ * they are not in use, only their spill file is retained. Evicted, outdated and invalidated tiled textures are
+ * closed once their last user released them.
+ */
+public class TextureCache {
+
+    /**
+     * Budget weight of a texture mapped from the on-disk store - its pixels are not on the heap
+     */
+    static final long MAPPED_TEXTURE_WEIGHT = 64L * 1024L;
+
+    /**
+     * Number of tiled textures kept open - each one holds a spill file as large as its decoded pixels
+     */
+    static final int MAX_OPEN_TILED_TEXTURES = 2;
+
+    /**
+     * Access-ordered map - iteration starts with the least recently used entry
+     */
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * Access-ordered map of the open tiled textures
+     */
+    private final LinkedHashMap<Path, TiledEntry> tiledEntries = new LinkedHashMap<>(4, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long budgetBytes;
+    private long usedBytes;
+
+    /**
+     * Constructs a texture cache with the specified memory budget.
+     *
+     * @param budgetBytes The maximum number of heap bytes of decoded pixels to retain.
+     */
+    public TextureCache(long budgetBytes) {
+
+        this.budgetBytes = Math.max(0, budgetBytes);
+    }
+
+    /**
+     * Retrieves the decoded texture for the given path, decoding it if it is missing or outdated.
+     *
+     * @param path    The texture path.
+     * @param decoder The decoder used on a cache miss.
+     * @return The decoded texture - shared, must not be modified.
+     * @throws IOException If the texture cannot be read or decoded.
+     */
+    public DecodedTexture get(Path path, TextureDecoder decoder) throws IOException {
+
+        Path key = path.toAbsolutePath().normalize();
+        FileFingerprint fingerprint = FileFingerprint.of(key);
+
+        synchronized (this) {
+
+            Entry entry = entries.get(key);
+
+            if (entry != null && entry.fingerprint.equals(fingerprint)) {
+
+                hits.incrementAndGet();
+                return entry.texture;
+            }
+        }
+
+        // Decode outside the lock - concurrent readers of other textures are not blocked
+        misses.incrementAndGet();
+        DecodedTexture texture = decoder.decode(key);
+
+        put(key, fingerprint, texture);
+
+        return texture;
+    }
+
+    /**
+     * Runs a task on the open tiled texture of the given path, opening it if it is missing or outdated.
+     * The texture is not closed while the task runs, even if it is evicted or invalidated meanwhile.
+     *
+     * @param path   The texture path.
+     * @param opener The opener used on a cache miss.
+     * @param task   The task - must not keep the texture past its return.
+     * @param <T>    The task result type.
+     * @return The result of the task.
+     * @throws IOException If the texture cannot be opened, or the task fails.
+     */
+    public <T> T withTiledTexture(Path path, TiledTextureOpener opener, TiledTextureTask<T> task) throws IOException {
+
+        Path key = path.toAbsolutePath().normalize();
+        FileFingerprint fingerprint = FileFingerprint.of(key);
+        TiledEntry entry = acquireTiled(key, fingerprint);
+
+        if (entry == null) {
+
+            // Open outside the lock - decoding a large texture takes seconds
+            misses.incrementAndGet();
+            entry = putTiled(key, fingerprint, opener.open(key));
+
+        } else {
+
+            hits.incrementAndGet();
+        }
+
+        try {
+
+            return task.run(entry.texture);
+
+        } finally {
+
+            releaseTiled(entry);
+        }
+    }
+
+    /**
+     * Retrieves an open tiled texture and marks it in use.
+     *
+     * @return the entry, or null if the texture is not open or outdated.
+     */
+    private synchronized TiledEntry acquireTiled(Path key, FileFingerprint fingerprint) {
+
+        TiledEntry entry = tiledEntries.get(key);
+
+        if (entry == null) return null;
+
+        if (!entry.fingerprint.equals(fingerprint)) {
+
+            tiledEntries.remove(key);
+            retire(entry);
+            return null;
+        }
+
+        entry.users++;
+        return entry;
+    }
+
+    /**
+     * Stores a newly opened tiled texture, marked in use, closing the least recently used ones past the limit.
+     * If the same texture was opened concurrently, the stored one is used and the new one closed.
+     */
+    private synchronized TiledEntry putTiled(Path key, FileFingerprint fingerprint, TiledTexture texture) {
+
+        TiledEntry existing = tiledEntries.get(key);
+
+        if (existing != null && existing.fingerprint.equals(fingerprint)) {
+
+            closeQuietly(key, texture);
+            existing.users++;
+            return existing;
+        }
+
+        if (existing != null) retire(existing);
+
+        TiledEntry entry = new TiledEntry(key, fingerprint, texture);
+        entry.users++;
+        tiledEntries.put(key, entry);
+
+        Iterator<TiledEntry> iterator = tiledEntries.values().iterator();
+
+        while (tiledEntries.size() > MAX_OPEN_TILED_TEXTURES && iterator.hasNext()) {
+
+            TiledEntry eldest = iterator.next();
+
+            if (eldest == entry) continue;
+
+            iterator.remove();
+            retire(eldest);
+            evictions.incrementAndGet();
+        }
+
+        return entry;
+    }
+
+    /**
+     * Marks a tiled texture no longer in use by a task - it is closed if it was retired meanwhile, its tiles
+     * unloaded otherwise.
+     */
+    private synchronized void releaseTiled(TiledEntry entry) {
+
+        if (--entry.users > 0) return;
+
+        if (entry.retired) {
+
+            closeQuietly(entry.key, entry.texture);
+            return;
+        }
+
+        try {
+
+            entry.texture.unloadTiles();
+
+        } catch (IOException e) {
+
+            // The spill file can no longer be trusted
+            ArdaBiomesEditor.LOGGER.warn("Could not unload tiles of {}: {}", entry.key, e.getMessage());
+            tiledEntries.remove(entry.key, entry);
+            closeQuietly(entry.key, entry.texture);
+        }
+    }
+
+    /**
+     * Closes a tiled texture removed from the cache, or marks it to be closed by its last user.
+     */
+    private void retire(TiledEntry entry) {
+
+        entry.retired = true;
+
+        if (entry.users == 0) closeQuietly(entry.key, entry.texture);
+    }
+
+    private static void closeQuietly(Path key, TiledTexture texture) {
+
+        try {
+
+            texture.close();
+            ArdaBiomesEditor.LOGGER.debug("Closed tiled texture {}", key);
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not close tiled texture {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the texture associated with the given path from the cache.
+     *
+     * @param path The texture path.
+     */
+    public synchronized void invalidate(Path path) {
+
+        Path key = path.toAbsolutePath().normalize();
+        Entry removed = entries.remove(key);
+
+        if (removed != null) usedBytes -= weigh(removed.texture);
+
+        TiledEntry removedTiled = tiledEntries.remove(key);
+
+        if (removedTiled != null) retire(removedTiled);
+    }
+
+    /**
+     * Removes every texture from the cache, closing the tiled textures not in use.
+     */
+    public synchronized void clear() {
+
+        entries.clear();
+        usedBytes = 0;
+
+        tiledEntries.values().forEach(this::retire);
+        tiledEntries.clear();
+    }
+
+    /**
+     * Updates the memory budget, evicting entries if the new budget is exceeded.
+     *
+     * @param budgetBytes The maximum number of bytes of decoded pixels to retain.
+     */
+    public synchronized void setBudgetBytes(long budgetBytes) {
+
+        this.budgetBytes = Math.max(0, budgetBytes);
+        evictToBudget();
+    }
+
+    /**
+     * Stores a decoded texture, evicting the least recently used entries to stay within budget.
+     *
+     * @param key         The normalized texture path.
+     * @param fingerprint The fingerprint of the file the texture was decoded from.
+     * @param texture     The decoded texture.
+     */
+    private synchronized void put(Path key, FileFingerprint fingerprint, DecodedTexture texture) {
+
+        // Textures larger than the whole budget are never retained
+        if (weigh(texture) > budgetBytes) return;
+
+        Entry previous = entries.put(key, new Entry(fingerprint, texture));
+
+        if (previous != null) usedBytes -= weigh(previous.texture);
+        usedBytes += weigh(texture);
+
+        evictToBudget();
+    }
+
+    /**
+     * Evicts the least recently used entries until the used bytes fit in the budget.
+     */
+    private void evictToBudget() {
+
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+
+        while (usedBytes > budgetBytes && iterator.hasNext()) {
+
+            Map.Entry<Path, Entry> eldest = iterator.next();
+            usedBytes -= weigh(eldest.getValue().texture);
+            iterator.remove();
+            evictions.incrementAndGet();
+
+            ArdaBiomesEditor.LOGGER.debug("Evicted texture {} from cache", eldest.getKey());
+        }
+    }
+
+    /**
+     * Computes the budget weight of a texture: the size of its pixels on the heap, or a nominal weight if they are
+     * mapped.
+     *
+     * @param texture The decoded texture.
+     * @return The weight in bytes.
+     */
+    static long weigh(DecodedTexture texture) {
+
+        return texture.isMapped() ? MAPPED_TEXTURE_WEIGHT : texture.sizeInBytes();
+    }
+
+    /** @return the number of lookups served from the cache. */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /** @return the number of lookups that required a decode. */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /** @return the number of entries evicted to stay within budget. */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /** @return the budget weight currently retained - heap bytes of decoded pixels plus nominal mapped weights. */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /** @return the memory budget in bytes. */
+    public synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Decodes a texture file on a cache miss.
+     */
+    @FunctionalInterface
+    public interface TextureDecoder {
+
+        DecodedTexture decode(Path path) throws IOException;
+    }
+
+    /**
+     * Opens a large texture as tiles on a cache miss.
+     */
+    @FunctionalInterface
+    public interface TiledTextureOpener {
+
+        TiledTexture open(Path path) throws IOException;
+    }
+
+    /**
+     * Reads or updates an open tiled texture.
+     *
+     * @param <T> The result type.
+     */
+    @FunctionalInterface
+    public interface TiledTextureTask<T> {
+
+        T run(TiledTexture texture) throws IOException;
+    }
+
+    private record Entry(FileFingerprint fingerprint, DecodedTexture texture) {}
+
+    private static final class TiledEntry {
+
+        private final Path key;
+        private final FileFingerprint fingerprint;
+        private final TiledTexture texture;
+
+        /**
+         * Number of running tasks - the texture is only closed once it drops to 0
+         */
+        private int users;
+        private boolean retired;
+
+        private TiledEntry(Path key, FileFingerprint fingerprint, TiledTexture texture) {
+
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.texture = texture;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.duom.ardabiomeseditor.services.cache;
+
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistent store of decoded colormap textures, kept as raw column-major ARGB files next to the configuration.
+ * <p>
+ * Each texture is stored in its own sidecar file, keyed by texture URI and validated against the texture
+ * {@link FileFingerprint}. Stored textures are memory-mapped: reading them costs no decode and no heap copy, pixels
+ * are served from the page cache through an {@link IntBuffer} view. The store is bounded by a disk budget, least
+ * recently read files being deleted first.
+ */
+public class TextureSidecarStore {
+
+    private static final int MAGIC = 0x41424554; // "ABET"
+    private static final int VERSION = 1;
+    private static final String SIDECAR_EXT = ".argb";
+
+    /**
+     * Magic, version, fingerprint size and last modified time, width, height
+     */
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 8 + 4 + 4;
+
+    private final Path directory;
+    private volatile long budgetBytes;
+
+    /**
+     * Constructs a texture store in the specified directory.
+     *
+     * @param directory   The directory holding the sidecar files, created on the first write.
+     * @param budgetBytes The maximum number of bytes of sidecar files to retain.
+     */
+    public TextureSidecarStore(Path directory, long budgetBytes) {
+
+        this.directory = directory;
+        this.budgetBytes = Math.max(0, budgetBytes);
+    }
+
+    /**
+     * Maps the stored pixels of a texture.
+     *
+     * @param texturePath The texture path.
+     * @param fingerprint The current fingerprint of the texture.
+     * @return The texture backed by the mapped sidecar file, or null if the texture is not stored or changed.
+     */
+    public DecodedTexture read(Path texturePath, FileFingerprint fingerprint) {
+
+        Path sidecar = resolveSidecar(texturePath);
+
+        if (!Files.exists(sidecar)) return null;
+
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) return null;
+            }
+
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+            if (!new FileFingerprint(header.getLong(), header.getLong()).equals(fingerprint)) return null;
+
+            int width = header.getInt();
+            int height = header.getInt();
+            long pixelBytes = (long) width * height * Integer.BYTES;
+
+            if (width <= 0 || height <= 0 || channel.size() != HEADER_LENGTH + pixelBytes) return null;
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, pixelBytes);
+            touch(sidecar);
+
+            return DecodedTexture.ofColumnMajor(width, height, mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+
+        } catch (IOException | RuntimeException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Ignoring unreadable texture sidecar {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the decoded pixels of a texture, replacing any previous version. Failures are logged and ignored -
+     * the store is only a cache.
+     *
+     * @param texturePath The texture path.
+     * @param fingerprint The fingerprint of the texture the pixels were decoded from.
+     * @param texture     The decoded texture.
+     */
+    public void write(Path texturePath, FileFingerprint fingerprint, DecodedTexture texture) {
+
+        long fileSize = HEADER_LENGTH + texture.sizeInBytes();
+
+        // Textures larger than the whole budget are never stored
+        if (fileSize > budgetBytes) return;
+
+        Path sidecar = resolveSidecar(texturePath);
+        Path tempFile = null;
+
+        try {
+
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory, sidecar.getFileName().toString(), ".tmp");
+
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(fingerprint.size())
+                        .putLong(fingerprint.lastModified())
+                        .putInt(texture.width())
+                        .putInt(texture.height())
+                        .flip();
+
+                writeFully(channel, header);
+
+                // Column by column - the texture may be too large for a single buffer
+                ByteBuffer column = ByteBuffer.allocate(texture.height() * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+                for (int x = 0; x < texture.width(); x++) {
+
+                    column.clear();
+                    column.asIntBuffer().put(texture.getColumn(x));
+                    writeFully(channel, column);
+                }
+            }
+
+            try {
+
+                Files.move(tempFile, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (AtomicMoveNotSupportedException e) {
+
+                Files.move(tempFile, sidecar, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            evictToBudget(sidecar);
+
+        } catch (IOException | RuntimeException e) {
+
+            // A mapped sidecar cannot be replaced on some platforms - the next read falls back to decoding
+            ArdaBiomesEditor.LOGGER.warn("Could not store texture sidecar for {}: {}", texturePath, e.getMessage());
+
+        } finally {
+
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Deletes every stored texture.
+     */
+    public synchronized void clear() {
+
+        for (Path sidecar : listSidecars()) deleteQuietly(sidecar);
+    }
+
+    /**
+     * Updates the disk budget, evicting sidecar files if the new budget is exceeded.
+     *
+     * @param budgetBytes The maximum number of bytes of sidecar files to retain.
+     */
+    public synchronized void setBudgetBytes(long budgetBytes) {
+
+        this.budgetBytes = Math.max(0, budgetBytes);
+        evictToBudget(null);
+    }
+
+    /**
+     * Deletes the least recently read sidecar files until the store fits in the budget.
+     *
+     * @param keep a sidecar file that must not be evicted, or null
+     */
+    private synchronized void evictToBudget(Path keep) {
+
+        List<StoredFile> storedFiles = new ArrayList<>();
+        long usedBytes = 0;
+
+        for (Path sidecar : listSidecars()) {
+
+            try {
+
+                BasicFileAttributes attrs = Files.readAttributes(sidecar, BasicFileAttributes.class);
+                storedFiles.add(new StoredFile(sidecar, attrs.size(), attrs.lastModifiedTime()));
+                usedBytes += attrs.size();
+
+            } catch (IOException e) {
+
+                ArdaBiomesEditor.LOGGER.debug("Could not read attributes of {}: {}", sidecar, e.getMessage());
+            }
+        }
+
+        if (usedBytes <= budgetBytes) return;
+
+        storedFiles.sort(Comparator.comparing(StoredFile::lastRead));
+
+        for (StoredFile storedFile : storedFiles) {
+
+            if (usedBytes <= budgetBytes) break;
+            if (storedFile.path().equals(keep)) continue;
+
+            if (deleteQuietly(storedFile.path())) {
+
+                usedBytes -= storedFile.size();
+                ArdaBiomesEditor.LOGGER.debug("Evicted texture sidecar {}", storedFile.path());
+            }
+        }
+    }
+
+    private List<Path> listSidecars() {
+
+        if (!Files.isDirectory(directory)) return List.of();
+
+        try (var stream = Files.list(directory)) {
+
+            return stream.filter(path -> path.getFileName().toString().endsWith(SIDECAR_EXT)).toList();
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not list texture sidecars in {}: {}", directory, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Resolves the sidecar file of a texture. Textures are keyed by URI, which also identifies the archive of
+     * textures read from a zipped resource pack.
+     */
+    private Path resolveSidecar(Path texturePath) {
+
+        String key = texturePath.toAbsolutePath().normalize().toUri().toString();
+
+        return directory.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + SIDECAR_EXT);
+    }
+
+    /**
+     * Marks a sidecar file as recently read - eviction is based on the modification time.
+     */
+    private static void touch(Path sidecar) {
+
+        try {
+
+            Files.setLastModifiedTime(sidecar, FileTime.fromMillis(System.currentTimeMillis()));
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.debug("Could not touch texture sidecar {}: {}", sidecar, e.getMessage());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static boolean deleteQuietly(Path path) {
+
+        if (path == null) return false;
+
+        try {
+
+            return Files.deleteIfExists(path);
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.debug("Could not delete {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    private record StoredFile(Path path, long size, FileTime lastRead) {}
+}
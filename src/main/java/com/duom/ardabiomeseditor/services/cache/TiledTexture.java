@@ -0,0 +1,438 @@
+package com.duom.ardabiomeseditor.services.cache;
+
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+import com.duom.ardabiomeseditor.services.png.PngDecoder;
+import com.duom.ardabiomeseditor.services.png.PngHeader;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Large colormap texture kept as fixed-size square tiles, with a bounded number of tiles in memory.
+ * <p>
+ * When opened, the PNG is decoded once, row by row, and its tiles are spilled to a temporary file. Tiles are then
+ * read from that file on demand and kept in an LRU cache bounded by a memory budget. Modified tiles are written
+ * back to the file when evicted, so edits never require the whole texture in memory.
+ * <p>
+ * Instances are thread safe. They must be closed to delete the spill file.
+ */
+public final class TiledTexture implements Closeable {
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesY;
+    private final int maxLoadedTiles;
+
+    /**
+     * False once a pixel with an alpha below 255 was read or written
+     */
+    private boolean opaque;
+
+    private final Path spillFile;
+    private final FileChannel channel;
+
+    /**
+     * Access-ordered map of the loaded tiles by tile index - iteration starts with the least recently used tile
+     */
+    private final LinkedHashMap<Integer, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+    private TiledTexture(int width, int height, int tileSize, long budgetBytes, boolean opaque, Path spillFile, FileChannel channel) {
+
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.tilesX = Math.ceilDiv(width, tileSize);
+        this.tilesY = Math.ceilDiv(height, tileSize);
+        this.opaque = opaque;
+        this.spillFile = spillFile;
+        this.channel = channel;
+
+        // A full row of tiles must fit, so that row by row reads do not reload every tile on each row
+        this.maxLoadedTiles = (int) Math.max(tilesX + 1L, budgetBytes / tileBytes());
+    }
+
+    /**
+     * Opens a texture as tiles.
+     *
+     * @param texturePath The PNG texture.
+     * @param tileSize    The tile width and height, in pixels.
+     * @param budgetBytes The maximum number of bytes of tiles to keep in memory.
+     * @return The tiled texture.
+     * @throws IOException If the texture cannot be read or spilled.
+     */
+    public static TiledTexture open(Path texturePath, int tileSize, long budgetBytes) throws IOException {
+
+        Path spillFile = Files.createTempFile("arda-tiles-", ".bin");
+        FileChannel channel = null;
+
+        try {
+
+            channel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            TileSpiller spiller = new TileSpiller(channel, tileSize);
+
+            if (!PngDecoder.decodeRows(texturePath, spiller)) spillWithImageIO(texturePath, spiller);
+
+            spiller.finish();
+            ArdaBiomesEditor.LOGGER.info("Opened {} as {}x{} tiles of {}px", texturePath, spiller.tilesX, spiller.tilesY, tileSize);
+
+            return new TiledTexture(spiller.width, spiller.height, tileSize, budgetBytes, spiller.opaque, spillFile, channel);
+
+        } catch (UncheckedIOException e) {
+
+            channel.close();
+            Files.deleteIfExists(spillFile);
+            throw e.getCause();
+
+        } catch (IOException | RuntimeException e) {
+
+            if (channel != null) channel.close();
+            Files.deleteIfExists(spillFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Spills a texture in a format the streaming decoder does not support - the whole image is decoded at once.
+     */
+    private static void spillWithImageIO(Path texturePath, TileSpiller spiller) throws IOException {
+
+        BufferedImage image;
+
+        try (InputStream in = Files.newInputStream(texturePath)) {
+
+            image = ImageIO.read(in);
+        }
+
+        if (image == null) throw new IOException("Unsupported or corrupted image file: " + texturePath);
+
+        int width = image.getWidth();
+        int[] row = new int[width];
+
+        spiller.start(new PngHeader(width, image.getHeight(), 8, PngHeader.COLOR_TYPE_RGBA, 0));
+
+        for (int y = 0; y < image.getHeight(); y++) {
+
+            image.getRGB(0, y, width, 1, row, 0, width);
+            spiller.accept(y, row);
+        }
+    }
+
+    /** @return the texture width. */
+    public int width() {
+        return width;
+    }
+
+    /** @return the texture height. */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return true if every pixel is fully opaque - pixels written since the texture was opened included.
+     */
+    public synchronized boolean isOpaque() {
+        return opaque;
+    }
+
+    /**
+     * @param x The column.
+     * @param y The row.
+     * @return the ARGB color of the pixel.
+     * @throws IOException If the tile cannot be loaded.
+     */
+    public synchronized int getPixel(int x, int y) throws IOException {
+
+        checkBounds(x, y);
+        return getTile(x / tileSize, y / tileSize).pixels[(y % tileSize) * tileSize + x % tileSize];
+    }
+
+    /**
+     * Updates a pixel.
+     *
+     * @param x    The column.
+     * @param y    The row.
+     * @param argb The ARGB color.
+     * @throws IOException If the tile cannot be loaded.
+     */
+    public synchronized void setPixel(int x, int y, int argb) throws IOException {
+
+        checkBounds(x, y);
+        Tile tile = getTile(x / tileSize, y / tileSize);
+        tile.pixels[(y % tileSize) * tileSize + x % tileSize] = argb;
+        tile.dirty = true;
+        opaque &= (argb >>> 24) == 0xFF;
+    }
+
+    /**
+     * @param x The column.
+     * @return a copy of the column, top to bottom.
+     * @throws IOException If a tile cannot be loaded.
+     */
+    public synchronized int[] getColumn(int x) throws IOException {
+
+        checkBounds(x, 0);
+        int[] column = new int[height];
+
+        for (int tileY = 0; tileY < tilesY; tileY++) {
+
+            Tile tile = getTile(x / tileSize, tileY);
+            int yEnd = Math.min(height, (tileY + 1) * tileSize);
+
+            for (int y = tileY * tileSize, offset = x % tileSize; y < yEnd; y++, offset += tileSize)
+                column[y] = tile.pixels[offset];
+        }
+
+        return column;
+    }
+
+    /**
+     * @param y The row.
+     * @return a copy of the row, left to right.
+     * @throws IOException If a tile cannot be loaded.
+     */
+    public int[] getRow(int y) throws IOException {
+
+        int[] row = new int[width];
+        copyRow(y, row);
+
+        return row;
+    }
+
+    /**
+     * Copies a row into the given array.
+     *
+     * @param y   The row.
+     * @param row The array receiving the row, left to right - at least width long.
+     * @throws IOException If a tile cannot be loaded.
+     */
+    public synchronized void copyRow(int y, int[] row) throws IOException {
+
+        checkBounds(0, y);
+
+        for (int tileX = 0; tileX < tilesX; tileX++) {
+
+            Tile tile = getTile(tileX, y / tileSize);
+            int x = tileX * tileSize;
+
+            System.arraycopy(tile.pixels, (y % tileSize) * tileSize, row, x, Math.min(tileSize, width - x));
+        }
+    }
+
+    /**
+     * Copies the whole texture, column-major, into the given array. Tiles are visited once each.
+     *
+     * @param columns The array receiving the pixels - at least width * height long.
+     * @throws IOException If a tile cannot be loaded.
+     */
+    public synchronized void copyColumnMajor(int[] columns) throws IOException {
+
+        for (int tileY = 0; tileY < tilesY; tileY++) {
+            for (int tileX = 0; tileX < tilesX; tileX++) {
+
+                Tile tile = getTile(tileX, tileY);
+                int xEnd = Math.min(width, (tileX + 1) * tileSize);
+                int yEnd = Math.min(height, (tileY + 1) * tileSize);
+
+                for (int x = tileX * tileSize; x < xEnd; x++) {
+                    for (int y = tileY * tileSize; y < yEnd; y++) {
+                        columns[x * height + y] = tile.pixels[(y % tileSize) * tileSize + x % tileSize];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the loaded tiles, writing modified ones back to the spill file first. The texture remains usable - tiles
+     * are loaded again on demand, without decoding the PNG again.
+     *
+     * @throws IOException If a modified tile cannot be written.
+     */
+    public synchronized void unloadTiles() throws IOException {
+
+        for (Map.Entry<Integer, Tile> entry : tiles.entrySet()) {
+            if (entry.getValue().dirty) writeTile(channel, entry.getKey() * tileBytes(), entry.getValue().pixels);
+        }
+
+        tiles.clear();
+    }
+
+    /**
+     * Deletes the spill file. The texture cannot be used afterward.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        tiles.clear();
+        channel.close();
+        Files.deleteIfExists(spillFile);
+    }
+
+    private void checkBounds(int x, int y) {
+
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IllegalArgumentException("Pixel out of bounds: " + x + "," + y + " for texture size " + width + "x" + height);
+    }
+
+    private long tileBytes() {
+        return (long) tileSize * tileSize * Integer.BYTES;
+    }
+
+    /**
+     * Retrieves a tile, loading it from the spill file and evicting the least recently used tiles if needed.
+     */
+    private Tile getTile(int tileX, int tileY) throws IOException {
+
+        int index = tileY * tilesX + tileX;
+        Tile tile = tiles.get(index);
+
+        if (tile != null) return tile;
+
+        tile = new Tile(new int[tileSize * tileSize]);
+        ByteBuffer buffer = ByteBuffer.allocate((int) tileBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long position = index * tileBytes();
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Truncated tile file " + spillFile);
+        }
+
+        buffer.flip().asIntBuffer().get(tile.pixels);
+        tiles.put(index, tile);
+
+        evictToBudget();
+
+        return tile;
+    }
+
+    private void evictToBudget() throws IOException {
+
+        Iterator<Map.Entry<Integer, Tile>> iterator = tiles.entrySet().iterator();
+
+        while (tiles.size() > maxLoadedTiles && iterator.hasNext()) {
+
+            Map.Entry<Integer, Tile> eldest = iterator.next();
+
+            if (eldest.getValue().dirty) writeTile(channel, eldest.getKey() * tileBytes(), eldest.getValue().pixels);
+
+            iterator.remove();
+        }
+    }
+
+    private static void writeTile(FileChannel channel, long position, int[] pixels) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(pixels.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(pixels);
+
+        while (buffer.hasRemaining()) channel.write(buffer, position + buffer.position());
+    }
+
+    private static final class Tile {
+
+        private final int[] pixels;
+        private boolean dirty;
+
+        private Tile(int[] pixels) {
+            this.pixels = pixels;
+        }
+    }
+
+    /**
+     * Spills decoded rows to the tile file, one band of tile rows at a time.
+     */
+    private static final class TileSpiller implements PngDecoder.RowSink {
+
+        private final FileChannel channel;
+        private final int tileSize;
+
+        private int width;
+        private int height;
+        private int tilesX;
+        private int tilesY;
+        private int[] band;
+        private int bandRows;
+        private int bandIndex;
+        private boolean opaque = true;
+
+        private TileSpiller(FileChannel channel, int tileSize) {
+
+            this.channel = channel;
+            this.tileSize = tileSize;
+        }
+
+        @Override
+        public void start(PngHeader header) {
+
+            width = header.width();
+            height = header.height();
+            tilesX = Math.ceilDiv(width, tileSize);
+            tilesY = Math.ceilDiv(height, tileSize);
+            band = new int[tileSize * tilesX * tileSize];
+        }
+
+        /**
+         * Decoder callbacks cannot throw checked exceptions - spill failures are rethrown unchecked and unwrapped
+         * by {@link #open(Path, int, long)}.
+         */
+        @Override
+        public void accept(int y, int[] row) {
+
+            System.arraycopy(row, 0, band, bandRows * tilesX * tileSize, width);
+
+            for (int x = 0; x < width && opaque; x++) opaque = (row[x] >>> 24) == 0xFF;
+
+            if (++bandRows == tileSize) flushBand();
+        }
+
+        private void finish() throws IOException {
+
+            if (bandRows > 0) flushBand();
+            if (channel.size() < (long) tilesX * tilesY * tileSize * tileSize * Integer.BYTES)
+                throw new IOException("Incomplete texture data");
+        }
+
+        private void flushBand() {
+
+            int[] tile = new int[tileSize * tileSize];
+            int bandWidth = tilesX * tileSize;
+
+            try {
+
+                for (int tileX = 0; tileX < tilesX; tileX++) {
+
+                    for (int row = 0; row < tileSize; row++) {
+                        System.arraycopy(band, row * bandWidth + tileX * tileSize, tile, row * tileSize, tileSize);
+                    }
+
+                    long index = (long) bandIndex * tilesX + tileX;
+                    writeTile(channel, index * tileSize * tileSize * Integer.BYTES, tile);
+                }
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+            }
+
+            Arrays.fill(band, 0);
+            bandRows = 0;
+            bandIndex++;
+        }
+    }
+}
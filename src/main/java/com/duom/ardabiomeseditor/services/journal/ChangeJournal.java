@@ -0,0 +1,364 @@
+package com.duom.ardabiomeseditor.services.journal;
+
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+import com.duom.ardabiomeseditor.model.Namespace;
+import com.duom.ardabiomeseditor.model.ResourceIdentifier;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the unsaved edits of a resource pack, kept next to the configuration.
+ * <p>
+ * Edits are queued by the UI and written by a single background thread, a short delay after the first queued edit:
+ * slider drags produce a burst of edits of the same columns, and edits overwritten by a later edit of the same batch
+ * are never written. Each entry is framed with its length and checksum, so that an entry torn by a crash is detected
+ * and ignored when the journal is read back. The journal is truncated once its edits are saved or discarded.
+ */
+public class ChangeJournal implements Closeable {
+
+    private static final int MAGIC = 0x4142454A; // "ABEJ"
+    private static final int VERSION = 1;
+    private static final String JOURNAL_EXT = ".journal";
+
+    private static final long FLUSH_DELAY_MS = 250;
+
+    private final Path journalFile;
+    private final ScheduledExecutorService writer;
+    private final Queue<JournalEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * Constructs a journal writing to the specified file.
+     *
+     * @param journalFile The journal file, created on the first write.
+     */
+    public ChangeJournal(Path journalFile) {
+
+        this.journalFile = journalFile;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+            Thread thread = new Thread(runnable, "change-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Resolves the journal file of a resource pack within the journal directory.
+     *
+     * @param journalDirectory The directory holding the journals.
+     * @param resourcePackPath The path of the resource pack.
+     * @return The journal file path.
+     */
+    public static Path resolveJournalFile(Path journalDirectory, Path resourcePackPath) {
+
+        String packKey = resourcePackPath.toAbsolutePath().normalize().toString();
+        UUID packId = UUID.nameUUIDFromBytes(packKey.getBytes(StandardCharsets.UTF_8));
+
+        return journalDirectory.resolve(packId + JOURNAL_EXT);
+    }
+
+    /** @return the journal file. */
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Queues an edit. Returns immediately - the edit is written in the background.
+     *
+     * @param entry The edit.
+     */
+    public void append(JournalEntry entry) {
+
+        pendingEntries.add(entry);
+
+        if (flushScheduled.compareAndSet(false, true))
+            writer.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops every queued and written edit. Returns immediately - the journal file is deleted in the background.
+     */
+    public void truncate() {
+
+        pendingEntries.clear();
+        writer.execute(this::deleteJournalFile);
+    }
+
+    /**
+     * Reads the written edits, once the queued edits are written.
+     *
+     * @return The edits, in the order they were made. Entries following a torn or corrupted entry are dropped.
+     */
+    public List<JournalEntry> readEntries() {
+
+        awaitWriter();
+
+        List<JournalEntry> entries = new ArrayList<>();
+
+        if (!Files.exists(journalFile)) return entries;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+
+                ArdaBiomesEditor.LOGGER.warn("Ignoring outdated change journal {}", journalFile);
+                return entries;
+            }
+
+            // Bytes left after the header - bounds the length of each entry
+            long remaining = Files.size(journalFile) - Integer.BYTES * 2;
+
+            while (true) {
+
+                int length;
+
+                try {
+
+                    length = in.readInt();
+
+                } catch (EOFException e) {
+
+                    break;
+                }
+
+                int checksum = in.readInt();
+                remaining -= Integer.BYTES * 2;
+
+                // A length torn or corrupted by a crash must not size the payload - the journal ends here
+                if (length < 0 || length > remaining) throw new EOFException();
+
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                remaining -= length;
+
+                if (checksum(payload) != checksum) throw new IOException("Checksum mismatch");
+
+                entries.add(readEntry(new DataInputStream(new ByteArrayInputStream(payload))));
+            }
+
+        } catch (EOFException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Change journal {} ends with a torn entry after {} entries", journalFile, entries.size());
+
+        } catch (IOException | RuntimeException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Change journal {} is corrupted after {} entries: {}", journalFile, entries.size(), e.getMessage());
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return true if no edit is queued or written.
+     */
+    public boolean isEmpty() {
+
+        awaitWriter();
+
+        try {
+
+            return !Files.exists(journalFile) || Files.size(journalFile) <= Integer.BYTES * 2;
+
+        } catch (IOException e) {
+
+            return true;
+        }
+    }
+
+    /**
+     * Writes the queued edits, then stops the background writer.
+     */
+    @Override
+    public void close() {
+
+        writer.execute(this::flush);
+        writer.shutdown();
+
+        try {
+
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS))
+                ArdaBiomesEditor.LOGGER.warn("Timed out writing change journal {}", journalFile);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until the queued edits and journal operations are done.
+     */
+    private void awaitWriter() {
+
+        try {
+
+            writer.submit(this::flush).get();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        } catch (ExecutionException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not write change journal {}: {}", journalFile, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Writes the queued edits. Runs on the writer thread only.
+     */
+    private void flush() {
+
+        flushScheduled.set(false);
+
+        List<JournalEntry> entries = new ArrayList<>();
+
+        for (JournalEntry entry; (entry = pendingEntries.poll()) != null; ) entries.add(entry);
+
+        entries = dropSupersededEntries(entries);
+
+        if (entries.isEmpty()) return;
+
+        try {
+
+            Files.createDirectories(journalFile.getParent());
+
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+
+                if (channel.size() == 0) {
+
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                }
+
+                for (JournalEntry entry : entries) {
+
+                    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                    writeEntry(new DataOutputStream(payload), entry);
+
+                    out.writeInt(payload.size());
+                    out.writeInt(checksum(payload.toByteArray()));
+                    payload.writeTo(out);
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+                while (buffer.hasRemaining()) channel.write(buffer);
+
+                channel.force(false);
+            }
+
+        } catch (IOException e) {
+
+            // The journal is a safety net - editing goes on without it
+            ArdaBiomesEditor.LOGGER.warn("Could not write change journal {}: {}", journalFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the entries whose colors are all overwritten by a later entry of the same batch.
+     */
+    private static List<JournalEntry> dropSupersededEntries(List<JournalEntry> entries) {
+
+        if (entries.size() < 2) return entries;
+
+        List<JournalEntry> kept = new ArrayList<>(entries.size());
+
+        for (int i = 0; i < entries.size(); i++) {
+
+            JournalEntry entry = entries.get(i);
+            boolean superseded = false;
+
+            for (int j = i + 1; j < entries.size() && !superseded; j++) superseded = entries.get(j).supersedes(entry);
+
+            if (!superseded) kept.add(entry);
+        }
+
+        return kept;
+    }
+
+    private void deleteJournalFile() {
+
+        try {
+
+            Files.deleteIfExists(journalFile);
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not truncate change journal {}: {}", journalFile, e.getMessage());
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+
+    /*
+     * Serialization
+     */
+
+    private static void writeEntry(DataOutputStream out, JournalEntry entry) throws IOException {
+
+        writeIdentifier(out, entry.root());
+        out.writeBoolean(entry.biomeMapped());
+        writeIdentifier(out, entry.column());
+        out.writeInt(entry.start());
+        out.writeInt(entry.colors().length);
+
+        for (int color : entry.colors()) out.writeInt(color);
+    }
+
+    private static JournalEntry readEntry(DataInputStream in) throws IOException {
+
+        ResourceIdentifier root = readIdentifier(in);
+        boolean biomeMapped = in.readBoolean();
+        ResourceIdentifier column = readIdentifier(in);
+        int start = in.readInt();
+        int count = in.readInt();
+
+        if (count < 0 || count > in.available() / Integer.BYTES) throw new IOException("Invalid color count " + count);
+
+        int[] colors = new int[count];
+
+        for (int i = 0; i < colors.length; i++) colors[i] = in.readInt();
+
+        return new JournalEntry(root, biomeMapped, column, start, colors);
+    }
+
+    private static void writeIdentifier(DataOutputStream out, ResourceIdentifier identifier) throws IOException {
+
+        out.writeUTF(identifier.namespace().name());
+        out.writeUTF(identifier.namespace().localName());
+        out.writeUTF(identifier.path());
+        out.writeInt(identifier.index());
+        out.writeUTF(identifier.displayStyle().name());
+        out.writeUTF(identifier.comparisonMethod().name());
+    }
+
+    private static ResourceIdentifier readIdentifier(DataInputStream in) throws IOException {
+
+        return new ResourceIdentifier(Namespace.of(in.readUTF(), in.readUTF()),
+                in.readUTF(),
+                in.readInt(),
+                ResourceIdentifier.DisplayStyle.valueOf(in.readUTF()),
+                ResourceIdentifier.ComparisonMethod.valueOf(in.readUTF()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.duom.ardabiomeseditor.services.journal;
+
+import com.duom.ardabiomeseditor.model.ResourceIdentifier;
+
+import java.util.Arrays;
+
+/**
+ * A single edit recorded in the {@link ChangeJournal}: a run of new colors written into a column of the colormap
+ * view.
+ *
+ * @param root        the resource displayed when the edit was made - a mapped biome or a colormap
+ * @param biomeMapped true if the root is a mapped biome, its columns being modifiers
+ * @param column      the identifier of the edited column
+ * @param start       the index of the first edited color in the column
+ * @param colors      the new ARGB colors, from the start index
+ */
+public record JournalEntry(ResourceIdentifier root, boolean biomeMapped, ResourceIdentifier column, int start, int[] colors) {
+
+    /**
+     * Creates the entry holding the smallest run of colors that turns a column into its new state.
+     *
+     * @param root           the displayed resource
+     * @param biomeMapped    true if the root is a mapped biome
+     * @param column         the identifier of the edited column
+     * @param previousColors the colors of the column before the edit
+     * @param colors         the colors of the column after the edit - same length
+     * @return the entry, or null if the colors are unchanged
+     */
+    public static JournalEntry ofChange(ResourceIdentifier root, boolean biomeMapped, ResourceIdentifier column,
+                                        int[] previousColors, int[] colors) {
+
+        int first = Arrays.mismatch(previousColors, colors);
+
+        if (first < 0) return null;
+
+        int last = colors.length - 1;
+
+        while (last > first && previousColors[last] == colors[last]) last--;
+
+        return new JournalEntry(root, biomeMapped, column, first, Arrays.copyOfRange(colors, first, last + 1));
+    }
+
+    /**
+     * Writes the run of colors into the given column.
+     *
+     * @param columnColors the colors of the column
+     * @return false if the run does not fit in the column, which is left untouched then
+     */
+    public boolean applyTo(int[] columnColors) {
+
+        if (start < 0 || start + colors.length > columnColors.length) return false;
+
+        System.arraycopy(colors, 0, columnColors, start, colors.length);
+        return true;
+    }
+
+    /**
+     * Indicates whether this entry overwrites every color written by an earlier entry, which is then obsolete.
+     *
+     * @param earlier an entry recorded before this one
+     * @return true if both entries edit the same column and this run covers the earlier one
+     */
+    boolean supersedes(JournalEntry earlier) {
+
+        return biomeMapped == earlier.biomeMapped
+                && root.equals(earlier.root)
+                && column.equals(earlier.column)
+                && start <= earlier.start
+                && start + colors.length >= earlier.start + earlier.colors.length;
+    }
+}
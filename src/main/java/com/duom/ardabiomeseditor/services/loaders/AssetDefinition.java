@@ -0,0 +1,41 @@
+package com.duom.ardabiomeseditor.services.loaders;
+
+import java.util.Map;
+
+/**
+ * Compact, file-level extract of a Polytone json asset - only the data the editor uses.
+ * <p>
+ * Definitions are produced by parsing a json file and are independent of the rest of the pack, which makes them
+ * safe to parse concurrently and to persist in the {@link ResourcePackIndex}. References to other assets are kept as
+ * strings and resolved when the definitions are assembled into a {@link com.duom.ardabiomeseditor.model.polytone.PolytoneResourcePack}.
+ */
+sealed interface AssetDefinition {
+
+    /**
+     * Biome ID mapper definition, either a standalone file or an inline object in a colormap.
+     *
+     * @param textureSize the declared texture size, 0 if undefined
+     * @param mappings    the biome names and their indices, in declaration order
+     */
+    record BiomeIdMapperDefinition(int textureSize, Map<String, Integer> mappings) implements AssetDefinition {}
+
+    /**
+     * Colormap definition, either a standalone file or an inline object in a modifier.
+     *
+     * @param xAxis                  the x axis mapping, null if undefined
+     * @param yAxis                  the y axis mapping, null if undefined
+     * @param biomeIdMapperReference the referenced biome ID mapper ("namespace:name"), null if undefined
+     * @param inlineBiomeIdMapper    the inline biome ID mapper, null if undefined
+     */
+    record ColormapDefinition(String xAxis, String yAxis, String biomeIdMapperReference,
+                              BiomeIdMapperDefinition inlineBiomeIdMapper) implements AssetDefinition {}
+
+    /**
+     * Modifier definition - only colormap related entries are retained.
+     *
+     * @param inlinedColormaps    the inline colormaps by json key, in declaration order
+     * @param referencedColormaps the referenced colormaps ("namespace:name") by json key, in declaration order
+     */
+    record ModifierDefinition(Map<String, ColormapDefinition> inlinedColormaps,
+                              Map<String, String> referencedColormaps) implements AssetDefinition {}
+}
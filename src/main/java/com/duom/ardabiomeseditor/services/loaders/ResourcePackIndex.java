@@ -0,0 +1,351 @@
+package com.duom.ardabiomeseditor.services.loaders;
+
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+import com.duom.ardabiomeseditor.services.cache.FileFingerprint;
+import com.duom.ardabiomeseditor.services.loaders.AssetDefinition.BiomeIdMapperDefinition;
+import com.duom.ardabiomeseditor.services.loaders.AssetDefinition.ColormapDefinition;
+import com.duom.ardabiomeseditor.services.loaders.AssetDefinition.ModifierDefinition;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent binary index of a loaded resource pack.
+ * <p>
+ * The index maps every json asset file of the pack (relative to the pack root) to its {@link FileFingerprint} and
+ * parsed {@link AssetDefinition}, and every known colormap texture to its PNG header data. On reopen, files whose
+ * fingerprint is unchanged are served from the index instead of being read and parsed again.
+ */
+class ResourcePackIndex {
+
+    private static final int MAGIC = 0x41424549; // "ABEI"
+    private static final int VERSION = 2;
+    private static final String INDEX_EXT = ".idx";
+
+    private static final byte BIOME_ID_MAPPER = 1;
+    private static final byte COLORMAP = 2;
+    private static final byte MODIFIER = 3;
+
+    private final Map<String, IndexedDefinition> definitions = new ConcurrentHashMap<>();
+    private final Map<String, IndexedTexture> textures = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the index file of a resource pack within the index directory.
+     *
+     * @param indexDirectory   the directory holding the pack indexes
+     * @param resourcePackPath the path of the resource pack
+     * @return the index file path
+     */
+    static Path resolveIndexFile(Path indexDirectory, Path resourcePackPath) {
+
+        String packKey = resourcePackPath.toAbsolutePath().normalize().toString();
+        UUID packId = UUID.nameUUIDFromBytes(packKey.getBytes(StandardCharsets.UTF_8));
+
+        return indexDirectory.resolve(packId + INDEX_EXT);
+    }
+
+    /**
+     * Reads an index file. Missing, outdated or corrupted indexes result in an empty index.
+     *
+     * @param indexFile the index file to read
+     * @return the index
+     */
+    static ResourcePackIndex read(Path indexFile) {
+
+        ResourcePackIndex index = new ResourcePackIndex();
+
+        if (!Files.exists(indexFile)) return index;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+
+                ArdaBiomesEditor.LOGGER.info("Ignoring outdated resource pack index {}", indexFile);
+                return index;
+            }
+
+            int definitionCount = in.readInt();
+
+            for (int i = 0; i < definitionCount; i++) {
+
+                String path = in.readUTF();
+                FileFingerprint fingerprint = new FileFingerprint(in.readLong(), in.readLong());
+                index.definitions.put(path, new IndexedDefinition(fingerprint, readDefinition(in)));
+            }
+
+            int textureCount = in.readInt();
+
+            for (int i = 0; i < textureCount; i++) {
+
+                String path = in.readUTF();
+                FileFingerprint fingerprint = new FileFingerprint(in.readLong(), in.readLong());
+                index.textures.put(path, new IndexedTexture(fingerprint, in.readInt(), in.readInt(), in.readByte(), in.readByte()));
+            }
+
+            ArdaBiomesEditor.LOGGER.info("Read resource pack index {} ({} files, {} textures)", indexFile, definitionCount, textureCount);
+
+        } catch (IOException | RuntimeException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Ignoring unreadable resource pack index {}: {}", indexFile, e.getMessage());
+            index.definitions.clear();
+            index.textures.clear();
+        }
+
+        return index;
+    }
+
+    /**
+     * Writes the index to the given file. The file is replaced atomically.
+     *
+     * @param indexFile the index file to write
+     * @throws IOException if an I/O error occurs
+     */
+    void write(Path indexFile) throws IOException {
+
+        Files.createDirectories(indexFile.getParent());
+        Path tempFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+
+        try {
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeInt(definitions.size());
+
+                for (var entry : new TreeMap<>(definitions).entrySet()) {
+
+                    out.writeUTF(entry.getKey());
+                    writeFingerprint(out, entry.getValue().fingerprint());
+                    writeDefinition(out, entry.getValue().definition());
+                }
+
+                out.writeInt(textures.size());
+
+                for (var entry : new TreeMap<>(textures).entrySet()) {
+
+                    out.writeUTF(entry.getKey());
+                    writeFingerprint(out, entry.getValue().fingerprint());
+                    out.writeInt(entry.getValue().width());
+                    out.writeInt(entry.getValue().height());
+                    out.writeByte(entry.getValue().bitDepth());
+                    out.writeByte(entry.getValue().colorType());
+                }
+            }
+
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } finally {
+
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Retrieves the definition of a file if its fingerprint matches the indexed one.
+     *
+     * @param path        the file path, relative to the pack root
+     * @param fingerprint the current fingerprint of the file
+     * @return the indexed definition, or null if the file is unknown or changed
+     */
+    AssetDefinition getDefinition(String path, FileFingerprint fingerprint) {
+
+        IndexedDefinition indexed = definitions.get(path);
+
+        return indexed != null && indexed.fingerprint().equals(fingerprint) ? indexed.definition() : null;
+    }
+
+    /**
+     * Records the definition of a file.
+     *
+     * @param path        the file path, relative to the pack root
+     * @param fingerprint the fingerprint of the parsed file
+     * @param definition  the parsed definition
+     */
+    void putDefinition(String path, FileFingerprint fingerprint, AssetDefinition definition) {
+
+        definitions.put(path, new IndexedDefinition(fingerprint, definition));
+    }
+
+    /**
+     * Retrieves the header data of a texture if its fingerprint matches the indexed one.
+     *
+     * @param path        the texture path, relative to the pack root
+     * @param fingerprint the current fingerprint of the texture
+     * @return the indexed texture, or null if the texture is unknown or changed
+     */
+    IndexedTexture getTexture(String path, FileFingerprint fingerprint) {
+
+        IndexedTexture indexed = textures.get(path);
+
+        return indexed != null && indexed.fingerprint().equals(fingerprint) ? indexed : null;
+    }
+
+    /**
+     * Records the header data of a texture.
+     *
+     * @param path        the texture path, relative to the pack root
+     * @param fingerprint the fingerprint of the texture
+     * @param width       the texture width
+     * @param height      the texture height
+     * @param bitDepth    the PNG bit depth, 0 if unknown
+     * @param colorType   the PNG color type, 0 if unknown
+     */
+    void putTexture(String path, FileFingerprint fingerprint, int width, int height, int bitDepth, int colorType) {
+
+        textures.put(path, new IndexedTexture(fingerprint, width, height, bitDepth, colorType));
+    }
+
+    /*
+     * Serialization
+     */
+
+    private static void writeFingerprint(DataOutputStream out, FileFingerprint fingerprint) throws IOException {
+
+        out.writeLong(fingerprint.size());
+        out.writeLong(fingerprint.lastModified());
+    }
+
+    private static void writeDefinition(DataOutputStream out, AssetDefinition definition) throws IOException {
+
+        switch (definition) {
+            case BiomeIdMapperDefinition mapper -> {
+                out.writeByte(BIOME_ID_MAPPER);
+                writeBiomeIdMapper(out, mapper);
+            }
+            case ColormapDefinition colormap -> {
+                out.writeByte(COLORMAP);
+                writeColormap(out, colormap);
+            }
+            case ModifierDefinition modifier -> {
+                out.writeByte(MODIFIER);
+                writeModifier(out, modifier);
+            }
+        }
+    }
+
+    private static AssetDefinition readDefinition(DataInputStream in) throws IOException {
+
+        byte kind = in.readByte();
+
+        return switch (kind) {
+            case BIOME_ID_MAPPER -> readBiomeIdMapper(in);
+            case COLORMAP -> readColormap(in);
+            case MODIFIER -> readModifier(in);
+            default -> throw new IOException("Unknown definition kind " + kind);
+        };
+    }
+
+    private static void writeBiomeIdMapper(DataOutputStream out, BiomeIdMapperDefinition mapper) throws IOException {
+
+        out.writeInt(mapper.textureSize());
+        out.writeInt(mapper.mappings().size());
+
+        for (var entry : mapper.mappings().entrySet()) {
+
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static BiomeIdMapperDefinition readBiomeIdMapper(DataInputStream in) throws IOException {
+
+        int textureSize = in.readInt();
+        int size = in.readInt();
+        Map<String, Integer> mappings = LinkedHashMap.newLinkedHashMap(size);
+
+        for (int i = 0; i < size; i++) mappings.put(in.readUTF(), in.readInt());
+
+        return new BiomeIdMapperDefinition(textureSize, mappings);
+    }
+
+    private static void writeColormap(DataOutputStream out, ColormapDefinition colormap) throws IOException {
+
+        writeNullableString(out, colormap.xAxis());
+        writeNullableString(out, colormap.yAxis());
+        writeNullableString(out, colormap.biomeIdMapperReference());
+
+        out.writeBoolean(colormap.inlineBiomeIdMapper() != null);
+        if (colormap.inlineBiomeIdMapper() != null) writeBiomeIdMapper(out, colormap.inlineBiomeIdMapper());
+    }
+
+    private static ColormapDefinition readColormap(DataInputStream in) throws IOException {
+
+        String xAxis = readNullableString(in);
+        String yAxis = readNullableString(in);
+        String biomeIdMapperReference = readNullableString(in);
+        BiomeIdMapperDefinition inlineBiomeIdMapper = in.readBoolean() ? readBiomeIdMapper(in) : null;
+
+        return new ColormapDefinition(xAxis, yAxis, biomeIdMapperReference, inlineBiomeIdMapper);
+    }
+
+    private static void writeModifier(DataOutputStream out, ModifierDefinition modifier) throws IOException {
+
+        out.writeInt(modifier.inlinedColormaps().size());
+
+        for (var entry : modifier.inlinedColormaps().entrySet()) {
+
+            out.writeUTF(entry.getKey());
+            writeColormap(out, entry.getValue());
+        }
+
+        out.writeInt(modifier.referencedColormaps().size());
+
+        for (var entry : modifier.referencedColormaps().entrySet()) {
+
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    private static ModifierDefinition readModifier(DataInputStream in) throws IOException {
+
+        int inlinedCount = in.readInt();
+        Map<String, ColormapDefinition> inlinedColormaps = LinkedHashMap.newLinkedHashMap(inlinedCount);
+
+        for (int i = 0; i < inlinedCount; i++) inlinedColormaps.put(in.readUTF(), readColormap(in));
+
+        int referencedCount = in.readInt();
+        Map<String, String> referencedColormaps = LinkedHashMap.newLinkedHashMap(referencedCount);
+
+        for (int i = 0; i < referencedCount; i++) referencedColormaps.put(in.readUTF(), in.readUTF());
+
+        return new ModifierDefinition(inlinedColormaps, referencedColormaps);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Indexed json asset file.
+     *
+     * @param fingerprint the fingerprint of the file when it was parsed
+     * @param definition  the parsed definition
+     */
+    private record IndexedDefinition(FileFingerprint fingerprint, AssetDefinition definition) {}
+
+    /**
+     * Indexed texture file.
+     *
+     * @param fingerprint the fingerprint of the texture when its header was read
+     * @param width       the texture width
+     * @param height      the texture height
+     * @param bitDepth    the PNG bit depth, 0 if unknown
+     * @param colorType   the PNG color type, 0 if unknown
+     */
+    record IndexedTexture(FileFingerprint fingerprint, int width, int height, int bitDepth, int colorType) {}
+}
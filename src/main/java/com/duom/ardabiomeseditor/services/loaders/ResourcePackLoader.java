@@ -5,23 +5,36 @@ import com.duom.ardabiomeseditor.model.Namespace;
 import com.duom.ardabiomeseditor.model.ResourceIdentifier;
 import com.duom.ardabiomeseditor.model.polytone.*;
 import com.duom.ardabiomeseditor.services.ColorMapService;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.duom.ardabiomeseditor.services.EncodedTexture;
+import com.duom.ardabiomeseditor.services.cache.FileFingerprint;
+import com.duom.ardabiomeseditor.services.loaders.AssetDefinition.BiomeIdMapperDefinition;
+import com.duom.ardabiomeseditor.services.loaders.AssetDefinition.ColormapDefinition;
+import com.duom.ardabiomeseditor.services.loaders.AssetDefinition.ModifierDefinition;
+import com.duom.ardabiomeseditor.services.png.PngHeader;
+import com.google.gson.Strictness;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.StringReader;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
 
 /**
  * Utility class for loading and saving Polytone resource packs.
+ * Resource packs can be loaded from a folder or from a zip archive.
  */
-public class ResourcePackLoader {
+public class ResourcePackLoader implements Closeable {
 
     private final PolytoneResourcePack polytoneResourcePack;
     private static final String POLYTONE_MAPPINGS                    = "biome_id_mappers";
@@ -32,10 +45,46 @@ public class ResourcePackLoader {
     private static final String POLYTONE_COLORMAPS_ROOT              = "colormaps";
     private static final String JSON_EXT = ".json";
     private static final String PNG_EXT = ".png";
+    private final LoadMode loadMode;
+    private final Path indexDirectory;
     private Path resourcePackPath;
 
+    /**
+     * Root of the pack content - the folder itself, or a directory within the zip file system of an archive
+     */
+    private Path resourcePackRoot;
+    private ZipResourcePackArchive archive;
+    private ResourcePackManifest manifest;
+
+    /**
+     * Index read from the previous load of the pack - definitions of unchanged files are reused
+     */
+    private ResourcePackIndex previousIndex = new ResourcePackIndex();
+
+    /**
+     * Index of the current load - written back once the pack is loaded
+     */
+    private final ResourcePackIndex index = new ResourcePackIndex();
+
+    /**
+     * Interned biome names and mapping tables, shared by every mapper and mapper definition of the pack
+     */
+    private final BiomeMappingPool mappingPool = new BiomeMappingPool();
+
     public ResourcePackLoader(){
 
+        this(LoadMode.SEQUENTIAL, null);
+    }
+
+    /**
+     * Constructs a loader using the specified load mode and index directory.
+     * @param loadMode whether files are read and parsed on the calling thread or fanned out on a worker pool
+     * @param indexDirectory the directory holding persistent pack indexes, or null to always parse every file
+     */
+    public ResourcePackLoader(LoadMode loadMode, Path indexDirectory){
+
+        this.loadMode = loadMode;
+        this.indexDirectory = indexDirectory;
         polytoneResourcePack = new PolytoneResourcePack();
     }
 
@@ -45,296 +94,631 @@ public class ResourcePackLoader {
      * @throws IOException if an I/O error occurs
      */
     public void load(Path path) throws MissingResourceException, IOException {
-        readResourcePackData(path.getFileSystem(), path);
+
+        resourcePackPath = path;
+
+        if (ZipResourcePackArchive.isArchive(path)) {
+
+            archive = ZipResourcePackArchive.open(path);
+            readResourcePackData(archive.getFileSystem(), archive.getRoot());
+
+        } else {
+
+            readResourcePackData(path.getFileSystem(), path);
+        }
     }
 
     /**
      * Reads the resource pack data from the specified root path.
      * This method processes every Polytone root directories in the resource pack and
      * loads their biome ID mappings and modifiers.
+     * <p>
+     * Loading happens in three phases separated by barriers: biome ID mappers, then colormaps (which can reference
+     * mappers), then modifiers (which can reference colormaps from any namespace). Within a phase, files are read and
+     * parsed concurrently in {@link LoadMode#PARALLEL} mode, but always registered in namespace and file order so
+     * the resulting {@link PolytoneResourcePack} does not depend on thread scheduling.
      * @param fileSystem the file system to read from
      * @param root the root path of the resource pack
      * @throws IOException if an I/O error occurs
      */
     protected void readResourcePackData(FileSystem fileSystem, Path root) throws IOException {
 
-        resourcePackPath = root;
+        resourcePackRoot = fileSystem.getPath(root.toString());
+        if (resourcePackPath == null) resourcePackPath = root;
+
+        if (indexDirectory != null)
+            previousIndex = ResourcePackIndex.read(ResourcePackIndex.resolveIndexFile(indexDirectory, resourcePackPath));
 
         // Find all polytone roots in the resource pack
-        Map<String, Path> polytoneRoots = resolvePolytoneRoots(fileSystem.getPath(root.toString()));
+        manifest = ResourcePackManifest.scan(resourcePackRoot);
+        Set<String> namespaces = manifest.getNamespaces();
+
+        try (ExecutorService executor = loadMode == LoadMode.PARALLEL ? createLoaderExecutor() : null) {
+
+            // Read biome ID mappings and colormaps first - modifiers can reference them from other namespaces
+            ArdaBiomesEditor.LOGGER.info("Processing biome mappers for namespaces {}", namespaces);
+            var mapperFiles = listAssetFiles(POLYTONE_MAPPINGS, null);
+            var mapperDefinitions = parseAll(executor, mapperFiles,
+                    file -> readDefinition(file, BiomeIdMapperDefinition.class, this::parseBiomeIdMapper));
+
+            for (int i = 0; i < mapperFiles.size(); i++)
+                readBiomeIdMapperFile(mapperFiles.get(i).namespace(), mapperFiles.get(i).path(), mapperDefinitions.get(i));
 
-        // Read biome ID mappings and colormaps first - modifiers can reference them from other namespaces
-        for (var namespace : polytoneRoots.keySet()) {
+            ArdaBiomesEditor.LOGGER.info("Processing colormaps for namespaces {}", namespaces);
+            var colormapFiles = listAssetFiles(POLYTONE_COLORMAPS_ROOT, null);
+            var colormapDefinitions = parseAll(executor, colormapFiles,
+                    file -> readDefinition(file, ColormapDefinition.class, this::parseColormapFile));
 
-            ArdaBiomesEditor.LOGGER.info("Processing biome mappers and colormaps for namespace {}", namespace);
-            Path subFolder = polytoneRoots.get(namespace);
+            for (int i = 0; i < colormapFiles.size(); i++)
+                readColormapFile(colormapFiles.get(i).namespace(), colormapFiles.get(i).path(), colormapDefinitions.get(i));
 
-            readBiomeMappings(namespace, subFolder.resolve(POLYTONE_MAPPINGS));
-            readColormaps(namespace, subFolder.resolve(POLYTONE_COLORMAPS_ROOT));
+            // Read all modifiers
+            ArdaBiomesEditor.LOGGER.info("Processing modifiers for namespaces {}", namespaces);
+            List<AssetFile> modifierFiles = new ArrayList<>();
+            modifierFiles.addAll(listAssetFiles(POLYTONE_BLOCK_MODIFIERS_ROOT, Modifier.Type.BLOCK));
+            modifierFiles.addAll(listAssetFiles(POLYTONE_DIMENSIONS_MODIFIERS_ROOT, Modifier.Type.DIMENSION));
+            modifierFiles.addAll(listAssetFiles(POLYTONE_FLUID_MODIFIERS_ROOT, Modifier.Type.FLUID));
+            modifierFiles.addAll(listAssetFiles(POLYTONE_PARTICLE_MODIFIERS_ROOT, Modifier.Type.PARTICLE));
+
+            var modifierDefinitions = parseAll(executor, modifierFiles,
+                    file -> readDefinition(file, ModifierDefinition.class, this::parseModifierFile));
+
+            for (int i = 0; i < modifierFiles.size(); i++)
+                readModifier(modifierFiles.get(i).namespace(), modifierFiles.get(i).path(), modifierFiles.get(i).modifierType(), modifierDefinitions.get(i));
+
+            // Every colormap and mapper is known - index the colormaps using each biome
+            polytoneResourcePack.rebuildBiomeColormapIndex();
+
+            // Read texture headers - only the first bytes of each PNG are read, unchanged textures come from the index
+            List<Colormap> colormaps = List.copyOf(polytoneResourcePack.getColormaps().values());
+            var textureHeaders = parseAll(executor, colormaps, this::readTextureHeader);
+
+            for (int i = 0; i < colormaps.size(); i++)
+                applyTextureHeader(colormaps.get(i), textureHeaders.get(i));
         }
 
-        // Read all modifiers
-        for (var namespace : polytoneRoots.keySet()) {
+        // Unchanged definitions were moved to the current index - the previous one is not needed anymore
+        previousIndex = new ResourcePackIndex();
+
+        writeIndex();
 
-            ArdaBiomesEditor.LOGGER.info("Processing namespace {}", namespace);
-            Path subFolder = polytoneRoots.get(namespace);
+        ArdaBiomesEditor.LOGGER.info("Resource pack loaded successfully from {} ({} distinct biome mapping tables)",
+                resourcePackPath, mappingPool.getTableCount());
+    }
 
-            // Modifiers
-            readModifiers(namespace, subFolder.resolve(POLYTONE_BLOCK_MODIFIERS_ROOT), Modifier.Type.BLOCK);
-            readModifiers(namespace, subFolder.resolve(POLYTONE_DIMENSIONS_MODIFIERS_ROOT), Modifier.Type.DIMENSION);
-            readModifiers(namespace, subFolder.resolve(POLYTONE_FLUID_MODIFIERS_ROOT), Modifier.Type.FLUID);
-            readModifiers(namespace, subFolder.resolve(POLYTONE_PARTICLE_MODIFIERS_ROOT), Modifier.Type.PARTICLE);
+    /**
+     * Lists the json asset files of the given polytone sub folder across every namespace.
+     * Files are returned in namespace order, then in file name order.
+     * @param subFolder the polytone sub folder to list (e.g. "colormaps")
+     * @param modifierType the modifier type of the listed files, or null if the files are not modifiers
+     * @return the asset files found
+     */
+    private List<AssetFile> listAssetFiles(String subFolder, Modifier.Type modifierType) {
+
+        return manifest.getJsonFiles(subFolder).stream()
+                .map(entry -> new AssetFile(entry.namespace(), entry.path(), entry.fingerprint(), modifierType))
+                .toList();
+    }
+
+    /**
+     * Applies the parser to every source and returns the results in the same order as the sources.
+     * Sources are parsed concurrently when an executor is provided.
+     * @param executor the executor to parse on, or null to parse on the calling thread
+     * @param sources the sources to parse - asset files, colormaps
+     * @param parser the per source parser
+     * @return the parsed results, index-aligned with the sources
+     * @throws IOException if any source fails to be read
+     */
+    private <S, T> List<T> parseAll(ExecutorService executor, List<S> sources, AssetParser<S, T> parser) throws IOException {
+
+        List<T> results = new ArrayList<>(sources.size());
+
+        if (executor == null) {
+
+            for (S source : sources) results.add(parser.parse(source));
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(sources.size());
+
+        for (S source : sources) futures.add(executor.submit(() -> parser.parse(source)));
+
+        try {
+
+            for (Future<T> future : futures) results.add(future.get());
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new InterruptedIOException("Resource pack loading interrupted");
+
+        } catch (ExecutionException e) {
+
+            futures.forEach(future -> future.cancel(true));
+
+            switch (e.getCause()) {
+                case IOException ioe -> throw ioe;
+                case RuntimeException re -> throw re;
+                case Error err -> throw err;
+                default -> throw new IOException(e.getCause());
+            }
         }
 
-        ArdaBiomesEditor.LOGGER.info("Resource pack loaded successfully from {}", root);
+        return results;
     }
 
     /**
-     * Resolves Polytone root directories within the given root path.
-     * @param root the root path to search within
-     * @return a map of namespaces to their corresponding polytones root paths
+     * Creates the bounded worker pool used in {@link LoadMode#PARALLEL} mode.
+     * @return the executor
+     */
+    private ExecutorService createLoaderExecutor() {
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("pack-loader-", 0).daemon().factory());
+    }
+
+    /**
+     * Retrieves the definition of an asset file from the previous index if the file is unchanged,
+     * otherwise parses the file. The definition is recorded in the current index either way.
+     * @param file the asset file
+     * @param type the expected definition type
+     * @param parser the parser used if the file is not indexed
+     * @return the asset definition
      * @throws IOException if an I/O error occurs
      */
-    private Map<String, Path> resolvePolytoneRoots(Path root) throws IOException {
+    private <T extends AssetDefinition> T readDefinition(AssetFile file, Class<T> type, DefinitionParser<T> parser) throws IOException {
 
-        Map<String, Path> polytoneRoots = new HashMap<>();
-        List<Path> resolvedPaths;
+        String indexKey = getIndexKey(file.path());
+        FileFingerprint fingerprint = file.fingerprint();
+        AssetDefinition indexed = previousIndex.getDefinition(indexKey, fingerprint);
 
-        // Walk the file tree up to a depth of 3 to find 'polytone' directories
-        try (var stream = Files.walk(root, 3)) {
+        T definition = type.isInstance(indexed) ? type.cast(internMappings(indexed)) : parser.parse(file.path());
+        index.putDefinition(indexKey, fingerprint, definition);
 
-            resolvedPaths = stream
-                    .filter(Files::isDirectory)
-                    .filter(path -> path.getFileName().toString().equals("polytone"))
-                    .filter(path -> root.relativize(path).getNameCount() == 3)
-                    .toList();
-        }
+        return definition;
+    }
+
+    /**
+     * Shares the biome mappings of an indexed definition through the mapping pool, as parsed definitions do.
+     * @param definition the indexed definition
+     * @return the definition, holding pooled mapping tables
+     */
+    private AssetDefinition internMappings(AssetDefinition definition) {
 
-        // Map each found 'polytone' directory to its namespace
-        resolvedPaths.forEach(path -> polytoneRoots.put(path.getParent().getFileName().toString(), path));
+        return switch (definition) {
+            case BiomeIdMapperDefinition mapper ->
+                    new BiomeIdMapperDefinition(mapper.textureSize(), mappingPool.intern(mapper.mappings()));
+            case ColormapDefinition colormap when colormap.inlineBiomeIdMapper() != null ->
+                    new ColormapDefinition(colormap.xAxis(), colormap.yAxis(), colormap.biomeIdMapperReference(),
+                            (BiomeIdMapperDefinition) internMappings(colormap.inlineBiomeIdMapper()));
+            case ModifierDefinition modifier -> {
 
-        return polytoneRoots;
+                Map<String, ColormapDefinition> inlinedColormaps = LinkedHashMap.newLinkedHashMap(modifier.inlinedColormaps().size());
+
+                modifier.inlinedColormaps().forEach((key, colormap) ->
+                        inlinedColormaps.put(key, (ColormapDefinition) internMappings(colormap)));
+
+                yield new ModifierDefinition(inlinedColormaps, modifier.referencedColormaps());
+            }
+            default -> definition;
+        };
     }
 
     /**
-     * Reads biome ID mappings from the specified path and adds them to the PolytoneResourcePack.
+     * Parses a biome ID mapping file.
      * This method processes a biome_id_mapper (as json). This method handles duplicates keys.
-     * @param namespace the current namespace - the polytone root containing the asset
-     * @param mappingsPath the path to the biome ID mappings file
+     * @param biomeIdMappingPath the path to the biome ID mappings file
+     * @return the biome ID mapper definition
      * @throws IOException if an I/O error occurs
      */
-    private void readBiomeMappings(String namespace, Path mappingsPath) throws IOException {
+    BiomeIdMapperDefinition parseBiomeIdMapper(Path biomeIdMappingPath) throws IOException {
 
-        if (Files.exists(mappingsPath) && Files.isDirectory(mappingsPath)) {
+        ArdaBiomesEditor.LOGGER.info("Reading biome mappings {}", biomeIdMappingPath.getFileName());
 
-            List<Path> biomeIdMappings;
+        try (JsonReader reader = openReader(biomeIdMappingPath)) {
 
-            try (var stream = Files.walk(mappingsPath, 1)) {
+            Map<String, Integer> mappings = new LinkedHashMap<>();
+            int textureSize = 0;
 
-                biomeIdMappings = stream
-                        .filter(Files::isRegularFile)
-                        .filter(p -> p.toString().endsWith(JSON_EXT))
-                        .toList();
+            reader.beginObject();
+            while (reader.hasNext()) {
+
+                String key = reader.nextName();
+                int value = reader.nextInt();
+
+                if (key.equals("texture_size"))
+                    textureSize = value;
+                else if (!(key.contains(":placeholder")))
+                    mappings.putIfAbsent(key, value);
             }
+            reader.endObject();
 
-            for (Path biomeIdMappingPath : biomeIdMappings) {
+            return new BiomeIdMapperDefinition(textureSize, mappingPool.intern(mappings));
+        }
+    }
 
-                var fileName = biomeIdMappingPath.getFileName().toString();
-                var fileNameWithoutExt = fileName.replaceAll(JSON_EXT, "");
+    /**
+     * Parses a standalone colormap file.
+     * @param colormapPath the path to the colormap json file
+     * @return the colormap definition
+     * @throws IOException if an I/O error occurs
+     */
+    ColormapDefinition parseColormapFile(Path colormapPath) throws IOException {
 
-                ArdaBiomesEditor.LOGGER.info("Reading biome mappings {}", fileName);
+        ArdaBiomesEditor.LOGGER.info("Reading colormap definition {}", colormapPath.getFileName());
 
-                JsonReader reader = new JsonReader(new StringReader(Files.readString(biomeIdMappingPath)));
-                BiomeIdMapper biomeIdMapper = new BiomeIdMapper(fileNameWithoutExt, biomeIdMappingPath);
+        try (JsonReader reader = openLenientReader(colormapPath)) {
 
-                reader.beginObject();
-                while (reader.hasNext()) {
+            return parseColormap(reader);
+        }
+    }
 
-                    String key = reader.nextName();
-                    int value = reader.nextInt();
+    /**
+     * Parses a colormap object from the reader. Entries other than the axes and the biome ID mapper are skipped.
+     * @param reader the reader, positioned on the colormap object (can be inline in a modifier or a file content)
+     * @return the colormap definition
+     * @throws IOException if an I/O error occurs
+     */
+    private ColormapDefinition parseColormap(JsonReader reader) throws IOException {
 
-                    if (key.equals("texture_size"))
-                        biomeIdMapper.setTextureSize(value);
-                    else if (!(key.contains(":placeholder")))
-                        biomeIdMapper.getMappings().computeIfAbsent(key, k -> value);
-                }
-                reader.endObject();
+        String xAxis = null;
+        String yAxis = null;
+        String biomeIdMapperReference = null;
+        BiomeIdMapperDefinition inlineBiomeIdMapper = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+
+            switch (reader.nextName()) {
+
+                case "x_axis" -> xAxis = nextPrimitiveAsString(reader);
+                case "y_axis" -> yAxis = nextPrimitiveAsString(reader);
+                case "biome_id_mapper" -> {
+
+                    biomeIdMapperReference = null;
+                    inlineBiomeIdMapper = null;
 
-                polytoneResourcePack.addBiomeIdMapper(namespace, biomeIdMapper);
+                    // Biome ID mapper reference
+                    if (reader.peek() == JsonToken.STRING)
+                        biomeIdMapperReference = reader.nextString();
+                    // Inline biome ID mapper
+                    else if (reader.peek() == JsonToken.BEGIN_OBJECT)
+                        inlineBiomeIdMapper = parseInlineBiomeIdMapper(reader);
+                    else
+                        reader.skipValue();
+                }
+                default -> reader.skipValue();
             }
         }
+        reader.endObject();
+
+        return new ColormapDefinition(xAxis, yAxis, biomeIdMapperReference, inlineBiomeIdMapper);
     }
 
     /**
-     * Reads colormaps from the specified path and adds them to the PolytoneResourcePack.
-     * This method processes colormap files (as json).
-     * @param namespace the current namespace - the polytone root containing the asset
-     * @param colormapsDirectory the path to the colormaps directory
+     * Parses an inline biome ID mapper object from the reader.
+     * @param reader the reader, positioned on the biome ID mapper object
+     * @return the biome ID mapper definition
      * @throws IOException if an I/O error occurs
      */
-    private void readColormaps(String namespace, Path colormapsDirectory) throws IOException {
+    private BiomeIdMapperDefinition parseInlineBiomeIdMapper(JsonReader reader) throws IOException {
 
-        if (Files.exists(colormapsDirectory) && Files.isDirectory(colormapsDirectory)) {
+        Map<String, Integer> mappings = new LinkedHashMap<>();
+        int textureSize = 0;
 
-            List<Path> colormapFiles;
+        reader.beginObject();
+        while (reader.hasNext()) {
 
-            try (var stream = Files.walk(colormapsDirectory, 1)) {
+            String key = reader.nextName();
+            int value = reader.nextInt();
 
-                colormapFiles = stream
-                        .filter(Files::isRegularFile)
-                        .filter(p -> p.toString().endsWith(JSON_EXT))
-                        .toList();
-            }
+            if (key.equals("texture_size"))
+                textureSize = value;
+            else
+                mappings.put(key, value);
+        }
+        reader.endObject();
+
+        return new BiomeIdMapperDefinition(textureSize, mappingPool.intern(mappings));
+    }
+
+    /**
+     * Parses a modifier file. Only the colormap related entries are read, everything else is skipped.
+     * @param modifierPath the path to the modifier json file
+     * @return the modifier definition
+     * @throws IOException if an I/O error occurs
+     */
+    ModifierDefinition parseModifierFile(Path modifierPath) throws IOException {
+
+        Map<String, ColormapDefinition> inlinedColormaps = new LinkedHashMap<>();
+        Map<String, String> referencedColormaps = new LinkedHashMap<>();
+
+        try (JsonReader reader = openLenientReader(modifierPath)) {
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+
+                String key = reader.nextName();
+
+                if (!key.endsWith("colormap")) {
 
-            for (Path colormapPath : colormapFiles) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                // A later duplicate key replaces the previous entry, whatever its kind
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
 
-                var fileName = colormapPath.getFileName().toString();
-                var textureFilePath = colormapPath.getParent().resolve(fileName.replaceAll(JSON_EXT, PNG_EXT));
-                var fileNameWithoutExt = fileName.replaceAll(JSON_EXT, "");
+                    referencedColormaps.remove(key);
+                    inlinedColormaps.put(key, parseColormap(reader));
 
-                ArdaBiomesEditor.LOGGER.info("Reading colormap definition {}", fileName);
+                } else {
 
-                Colormap colormap = new Colormap(fileNameWithoutExt, colormapPath, textureFilePath);
+                    String colormapRef = nextPrimitiveAsString(reader);
 
-                var jsonString = Files.readString(colormapPath);
-                JsonObject root = JsonParser.parseString(jsonString).getAsJsonObject();
+                    if (colormapRef != null) {
 
-                readColormap(colormap, namespace, fileNameWithoutExt, root);
-                polytoneResourcePack.addColormap(namespace, colormap);
+                        inlinedColormaps.remove(key);
+                        referencedColormaps.put(key, colormapRef);
+                    }
+                }
             }
+            reader.endObject();
         }
+
+        return new ModifierDefinition(inlinedColormaps, referencedColormaps);
     }
 
     /**
-     * Reads all modifiers from the specified path and adds them to the PolytoneResourcePack.
-     * This method processes modifier files (as json).
-     * @param namespace the current namespace - the polytone root containing the asset
-     * @param modifiersPath the path to the modifiers directory
-     * @param modifierType the type of modifier being processed
+     * Opens a streaming reader on a json file.
+     * Asset files are small - they are read whole, which allocates far less than the 8K char and byte buffers of a
+     * buffered file reader on top of the reader's own buffer.
+     * @param jsonPath the path to the json file
+     * @return the json reader
      * @throws IOException if an I/O error occurs
      */
-    private void readModifiers(String namespace, Path modifiersPath, Modifier.Type modifierType) throws IOException {
+    private JsonReader openReader(Path jsonPath) throws IOException {
 
-        if (Files.exists(modifiersPath) && Files.isDirectory(modifiersPath)) {
+        return new JsonReader(new StringReader(Files.readString(jsonPath)));
+    }
 
-            ArdaBiomesEditor.LOGGER.info("Processing modifiers {}", modifiersPath);
-            List<Path> jsonModifiers;
+    /**
+     * Opens a lenient streaming reader on a json file - comments and other lenient syntax are accepted.
+     * @param jsonPath the path to the json file
+     * @return the json reader
+     * @throws IOException if an I/O error occurs
+     */
+    private JsonReader openLenientReader(Path jsonPath) throws IOException {
 
-            try (var stream = Files.walk(modifiersPath, 1)) {
+        JsonReader reader = openReader(jsonPath);
+        reader.setStrictness(Strictness.LENIENT);
+
+        return reader;
+    }
 
-                jsonModifiers = stream
-                        .filter(Files::isRegularFile)
-                        .filter(path -> !path.toString().startsWith("_") && path.toString().endsWith(JSON_EXT))
-                        .toList();
+    /**
+     * Reads the next value as a string if it is a primitive, skips it otherwise.
+     * @param reader the json reader
+     * @return the value as a string, or null if the value is not a primitive
+     * @throws IOException if an I/O error occurs
+     */
+    private String nextPrimitiveAsString(JsonReader reader) throws IOException {
+
+        return switch (reader.peek()) {
+            case STRING, NUMBER -> reader.nextString();
+            case BOOLEAN -> String.valueOf(reader.nextBoolean());
+            default -> {
+                reader.skipValue();
+                yield null;
             }
+        };
+    }
 
-            for (Path modifierPath : jsonModifiers) {
+    /**
+     * Creates a standalone biome ID mapper and adds it to the PolytoneResourcePack.
+     * @param namespace the current namespace - the polytone root containing the asset
+     * @param biomeIdMappingPath the path to the biome ID mappings file
+     * @param definition the biome ID mapper definition
+     */
+    private void readBiomeIdMapperFile(String namespace, Path biomeIdMappingPath, BiomeIdMapperDefinition definition) {
 
-                var modifierName = modifierPath.getFileName().toString().replaceAll(JSON_EXT, "");
-                Modifier modifier = new Modifier(modifierName, modifierPath, modifierType);
+        var fileNameWithoutExt = biomeIdMappingPath.getFileName().toString().replaceAll(JSON_EXT, "");
+        BiomeIdMapper biomeIdMapper = new BiomeIdMapper(fileNameWithoutExt, biomeIdMappingPath);
 
-                var jsonString = Files.readString(modifierPath);
-                JsonObject root = JsonParser.parseString(jsonString).getAsJsonObject();
+        biomeIdMapper.setTextureSize(definition.textureSize());
+        biomeIdMapper.setMappings(mappingPool.intern(definition.mappings()));
 
-                // Process inlined colormaps
-                Map<String, JsonObject> inlinedColormaps = root.entrySet().stream()
-                        .filter(entry -> entry.getKey().endsWith("colormap"))
-                        .filter(entry -> entry.getValue().isJsonObject())
-                        .collect(Collectors.toMap(
-                                Map.Entry::getKey,
-                                entry -> entry.getValue().getAsJsonObject()
-                        ));
+        polytoneResourcePack.addBiomeIdMapper(namespace, biomeIdMapper);
+    }
 
-                // Process referenced colormaps
-                Map<String, String> referencedColormaps = root.entrySet().stream()
-                        .filter(entry -> entry.getKey().endsWith("colormap"))
-                        .filter(entry -> entry.getValue().isJsonPrimitive())
-                        .collect(Collectors.toMap(
-                                Map.Entry::getKey,
-                                entry -> entry.getValue().getAsString()
-                        ));
+    /**
+     * Creates a standalone colormap and adds it to the PolytoneResourcePack.
+     * @param namespace the current namespace - the polytone root containing the asset
+     * @param colormapPath the path to the colormap json file
+     * @param definition the colormap definition
+     */
+    private void readColormapFile(String namespace, Path colormapPath, ColormapDefinition definition) {
 
-                for (var colormapKey : inlinedColormaps.keySet()) {
+        var fileName = colormapPath.getFileName().toString();
+        var textureFilePath = colormapPath.getParent().resolve(fileName.replaceAll(JSON_EXT, PNG_EXT));
+        var fileNameWithoutExt = fileName.replaceAll(JSON_EXT, "");
 
-                    JsonObject colormapObject = inlinedColormaps.get(colormapKey);
+        Colormap colormap = new Colormap(fileNameWithoutExt, colormapPath, textureFilePath);
 
-                    String colormapName = resolveColormapName(colormapKey, modifierPath);
-                    Path colormapPath = getColormapPath(colormapName, modifierPath);
+        readColormap(colormap, namespace, fileNameWithoutExt, definition);
+        polytoneResourcePack.addColormap(namespace, colormap);
+    }
 
-                    Colormap colormap = new Colormap(colormapName, modifierPath, colormapPath, PolytoneAssetDeclarationType.INLINE, modifier);
-                    readColormap(colormap, namespace, colormapKey, colormapObject);
+    /**
+     * Creates a modifier and its inlined colormaps and adds them to the PolytoneResourcePack.
+     * @param namespace the current namespace - the polytone root containing the asset
+     * @param modifierPath the path to the modifier json file
+     * @param modifierType the type of modifier being processed
+     * @param definition the modifier definition
+     */
+    private void readModifier(String namespace, Path modifierPath, Modifier.Type modifierType, ModifierDefinition definition) {
 
-                    modifier.getColormaps().add(colormap);
-                    polytoneResourcePack.addColormap(namespace, colormap);
-                }
+        var modifierName = modifierPath.getFileName().toString().replaceAll(JSON_EXT, "");
+        Modifier modifier = new Modifier(modifierName, modifierPath, modifierType);
 
-                for (var colormapKey : referencedColormaps.keySet()) {
+        for (var inlinedColormap : definition.inlinedColormaps().entrySet()) {
 
-                    String colormapRef = referencedColormaps.get(colormapKey);
-                    Namespace colormapNamespace = Namespace.fromString(colormapRef);
+            String colormapKey = inlinedColormap.getKey();
+            String colormapName = resolveColormapName(colormapKey, modifierPath);
+            Path colormapPath = getColormapPath(colormapName, modifierPath);
 
-                    if (colormapNamespace != null) {
+            Colormap colormap = new Colormap(colormapName, modifierPath, colormapPath, PolytoneAssetDeclarationType.INLINE, modifier);
+            readColormap(colormap, namespace, colormapKey, inlinedColormap.getValue());
 
-                        Colormap colormap = polytoneResourcePack.getColormaps().get(colormapNamespace);
+            modifier.getColormaps().add(colormap);
+            polytoneResourcePack.addColormap(namespace, colormap);
+        }
 
-                        if (colormap != null) modifier.getColormaps().add(colormap);
-                    }
-                }
+        for (var colormapRef : definition.referencedColormaps().values()) {
+
+            Namespace colormapNamespace = Namespace.fromString(colormapRef);
 
-                polytoneResourcePack.addModifier(namespace, modifier);
+            if (colormapNamespace != null) {
+
+                Colormap colormap = polytoneResourcePack.getColormaps().get(colormapNamespace);
+
+                if (colormap != null) modifier.getColormaps().add(colormap);
             }
         }
+
+        polytoneResourcePack.addModifier(namespace, modifier);
     }
 
     /**
-     * Reads a colormap from the given JSON object.
+     * Configures a colormap from its definition, resolving or creating its biome ID mapper.
      *
-     * @param colormapKey the namespace of the colormap
-     * @param colormapObject the JSON object representing the colormap (can be inline in a modifier or a file content)
+     * @param colormap the colormap to configure
+     * @param namespace the current namespace - the polytone root containing the asset
+     * @param colormapKey the name of the inline biome ID mapper, if any
+     * @param definition the colormap definition (can be inline in a modifier or a file content)
      */
-    private void readColormap(Colormap colormap, String namespace, String colormapKey, JsonObject colormapObject) {
+    private void readColormap(Colormap colormap, String namespace, String colormapKey, ColormapDefinition definition) {
 
-        var xAxis = colormapObject.get("x_axis");
-        var yAxis = colormapObject.get("y_axis");
-        var biomeIdMapper = colormapObject.get("biome_id_mapper");
+        if (definition.xAxis() != null) colormap.setXAxis(definition.xAxis());
+        if (definition.yAxis() != null) colormap.setYAxis(definition.yAxis());
 
-        if (xAxis != null) colormap.setXAxis(xAxis.getAsString());
-        if (yAxis != null) colormap.setYAxis(yAxis.getAsString());
+        // Biome ID mapper reference - find the correct mapper
+        if (definition.biomeIdMapperReference() != null) {
 
-        if (biomeIdMapper != null) {
+            var biomeIdMapperNamespace = Namespace.fromString(definition.biomeIdMapperReference());
 
-            // Biome ID mapper reference - find the correct mapper
-            if (biomeIdMapper.isJsonPrimitive() && biomeIdMapper.getAsJsonPrimitive().isString()) {
+            if (biomeIdMapperNamespace != null) {
 
-                var biomeIdMapperNamespace = Namespace.fromString(biomeIdMapper.getAsString());
+                BiomeIdMapper mapper = polytoneResourcePack.getBiomeIdMappers().get(biomeIdMapperNamespace);
+                colormap.setBiomeIdMapper(mapper);
+            }
 
-                if (biomeIdMapperNamespace != null) {
+        // Inline biome ID mapper
+        } else if (definition.inlineBiomeIdMapper() != null) {
 
-                    BiomeIdMapper mapper = polytoneResourcePack.getBiomeIdMappers().get(biomeIdMapperNamespace);
-                    colormap.setBiomeIdMapper(mapper);
-                }
-            // Inline biome ID mapper
-            } else if (biomeIdMapper.isJsonObject()) {
+            BiomeIdMapper mapper = new BiomeIdMapper(colormapKey, colormap.getPath(), PolytoneAssetDeclarationType.INLINE, colormap);
+
+            mapper.setTextureSize(definition.inlineBiomeIdMapper().textureSize());
+            mapper.setMappings(mappingPool.intern(definition.inlineBiomeIdMapper().mappings()));
+
+            polytoneResourcePack.addBiomeIdMapper(namespace, mapper);
+            colormap.setBiomeIdMapper(mapper);
+        }
+    }
 
-                JsonObject mapperObject = biomeIdMapper.getAsJsonObject();
-                BiomeIdMapper mapper = new BiomeIdMapper(colormapKey, colormap.getPath(), PolytoneAssetDeclarationType.INLINE, colormap);
+    /**
+     * Reads the PNG header data of a colormap texture, from the previous index if the texture is unchanged,
+     * otherwise by probing the PNG header. Failures are logged and otherwise ignored.
+     * @param colormap the colormap
+     * @return the texture header data, or null if the texture is missing or unreadable
+     */
+    private ResourcePackIndex.IndexedTexture readTextureHeader(Colormap colormap) {
 
-                for (var entry : mapperObject.entrySet()) {
+        Path texturePath = colormap.getTexturePath();
 
-                    String key = entry.getKey();
-                    int value = entry.getValue().getAsInt();
+        if (texturePath == null) return null;
 
-                    if (key.equals("texture_size"))
-                        mapper.setTextureSize(value);
-                    else
-                        mapper.getMappings().put(key, value);
+        // Textures are fingerprinted by the manifest scan - missing textures have no fingerprint
+        FileFingerprint fingerprint = manifest.getTextureFingerprint(texturePath);
+
+        if (fingerprint == null) return null;
+
+        var indexed = previousIndex.getTexture(getIndexKey(texturePath), fingerprint);
+
+        if (indexed != null) return indexed;
+
+        try {
+
+            PngHeader header = PngHeader.read(texturePath);
+
+            return new ResourcePackIndex.IndexedTexture(fingerprint, header.width(), header.height(), header.bitDepth(), header.colorType());
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not read texture header {}: {}", texturePath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Applies texture header data to a colormap.
+     * @param colormap the colormap
+     * @param textureHeader the texture header data, or null if unknown
+     */
+    private void applyTextureHeader(Colormap colormap, ResourcePackIndex.IndexedTexture textureHeader) {
+
+        if (textureHeader == null) return;
+
+        colormap.setTextureWidth(textureHeader.width());
+        colormap.setTextureHeight(textureHeader.height());
+        colormap.setTextureBitDepth(textureHeader.bitDepth());
+        colormap.setTextureColorType(textureHeader.colorType());
+    }
+
+    /**
+     * Writes the persistent index of the loaded pack, including the header data of every texture known so far.
+     * Does nothing if no index directory is configured. Failures are logged and otherwise ignored.
+     */
+    public void writeIndex() {
+
+        if (indexDirectory == null || resourcePackPath == null) return;
+
+        try {
+
+            for (Colormap colormap : polytoneResourcePack.getColormaps().values()) {
+
+                Path texturePath = colormap.getTexturePath();
+
+                if (colormap.getTextureWidth() > 0 && texturePath != null && Files.exists(texturePath)) {
+
+                    index.putTexture(getIndexKey(texturePath),
+                            FileFingerprint.of(texturePath),
+                            colormap.getTextureWidth(),
+                            colormap.getTextureHeight(),
+                            colormap.getTextureBitDepth(),
+                            colormap.getTextureColorType());
                 }
-                polytoneResourcePack.addBiomeIdMapper(namespace, mapper);
-                colormap.setBiomeIdMapper(mapper);
             }
+
+            index.write(ResourcePackIndex.resolveIndexFile(indexDirectory, resourcePackPath));
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not write resource pack index for {}: {}", resourcePackPath, e.getMessage());
         }
     }
 
+    /**
+     * Computes the index key of a file - its path relative to the resource pack root.
+     * @param path the file path
+     * @return the index key
+     */
+    private String getIndexKey(Path path) {
+
+        return resourcePackRoot.relativize(path).toString();
+    }
+
     /**
      * Resolves the colormap name based on the colormap key and the file path.
      * By default the colormap name is the filename without extension.
@@ -371,10 +755,11 @@ public class ResourcePackLoader {
      * @param root the root resource identifier
      * @param colorChanges the color changes to apply
      * @param progressCallback a callback for reporting progress
+     * @return the colormaps whose texture was written
      * @throws MissingResourceException if a required resource is missing
      * @throws IOException if an I/O error occurs
      */
-    public void persistBiomeMappedColorChanges(ResourceIdentifier root, Map<ResourceIdentifier, int[]> colorChanges, BiConsumer<String, Double> progressCallback) throws MissingResourceException, IOException {
+    public Set<Colormap> persistBiomeMappedColorChanges(ResourceIdentifier root, Map<ResourceIdentifier, int[]> colorChanges, BiConsumer<String, Double> progressCallback) throws MissingResourceException, IOException {
 
         var totalEntries = colorChanges.size();
         var progress = 0d;
@@ -401,37 +786,155 @@ public class ResourcePackLoader {
             }
         }
 
-        persistColormaps(progressCallback, resolveColormaps, progress, totalEntries);
+        return persistColormaps(progressCallback, resolveColormaps);
     }
 
     /**
      * Persists the colormaps with the specified color changes.
+     * <p>
+     * Textures are updated and encoded in memory first, concurrently in {@link LoadMode#PARALLEL} mode. Nothing is
+     * written unless every texture was encoded successfully. Textures whose pixels are left unchanged are not written.
+     * <p>
+     * The update is all or nothing. Textures of a directory pack are all staged next to their targets, then swapped
+     * in together - if one cannot be swapped in, those already replaced are restored. Textures of an archive are
+     * written to a staged copy of the archive, swapped in once every texture is written.
      * @param progressCallback a callback for reporting progress
      * @param colormapsChanges the colormaps to update with their respective color changes
-     * @param progress the current progress value
-     * @param totalEntries the total number of entries to process
+     * @return the colormaps whose texture was written
      * @throws IOException if an I/O error occurs
      */
-    private void persistColormaps(BiConsumer<String, Double> progressCallback, Map<Colormap, Map<Integer, int[]>> colormapsChanges, double progress, int totalEntries) throws IOException {
+    private Set<Colormap> persistColormaps(BiConsumer<String, Double> progressCallback, Map<Colormap, Map<Integer, int[]>> colormapsChanges) throws IOException {
+
+        List<Colormap> colormaps = new ArrayList<>(colormapsChanges.keySet());
+
+        // Each texture is counted twice: once encoded, once written
+        int totalSteps = colormaps.size() * 2;
+        AtomicInteger completedSteps = new AtomicInteger();
+        Object progressLock = new Object();
+
+        // Every encoded texture is tracked as soon as it exists, to delete its spool file even if another one fails
+        List<EncodedTexture> openedTextures = Collections.synchronizedList(new ArrayList<>());
+
+        AssetParser<Colormap, EncodedTexture> encoder = colormap -> {
+
+            EncodedTexture encodedTexture = ColorMapService.encodeIndexedColorChanges(colormap, colormapsChanges.get(colormap));
+
+            if (encodedTexture != null) openedTextures.add(encodedTexture);
+
+            // Workers complete out of order - report under a lock to keep the progress monotonic
+            synchronized (progressLock) {
+                progressCallback.accept("Encoded " + colormap.getTexturePath(), completedSteps.incrementAndGet() * 100d / totalSteps);
+            }
+
+            return encodedTexture;
+        };
+
+        Set<Colormap> writtenColormaps = new HashSet<>();
+        List<Colormap> stagedColormaps = new ArrayList<>();
+        List<EncodedTexture> stagedTextures = new ArrayList<>();
+
+        try {
+
+            List<EncodedTexture> encodedTextures;
+
+            try (ExecutorService executor = loadMode == LoadMode.PARALLEL && colormaps.size() > 1 ? createLoaderExecutor() : null) {
+
+                encodedTextures = parseAll(executor, colormaps, encoder);
+            }
+
+            for (int i = 0; i < colormaps.size(); i++) {
+
+                Colormap colormap = colormaps.get(i);
+                EncodedTexture encodedTexture = encodedTextures.get(i);
+
+                progressCallback.accept("Writing " + colormap.getTexturePath(), completedSteps.incrementAndGet() * 100d / totalSteps);
+
+                if (encodedTexture == null) {
+
+                    ArdaBiomesEditor.LOGGER.info("Texture unchanged, skipping: {}", colormap.getTexturePath());
+                    continue;
+                }
 
-        for (Colormap colormap : colormapsChanges.keySet()) {
+                ArdaBiomesEditor.LOGGER.info("Updating texture: {}", colormap.getTexturePath());
 
-            ArdaBiomesEditor.LOGGER.info("Updating texture: {}", colormap.getTexturePath());
-            progress++;
-            progressCallback.accept("Writing " + colormap.getTexturePath(), (progress / totalEntries * 2) / 100 );
+                // Archive entries are written to a staged copy of the archive, directory textures next to their target
+                if (archive != null) {
 
-            ColorMapService.applyIndexedColorChangesToColormapTexture(colormap, colormapsChanges.get(colormap));
+                    ColorMapService.writeEncodedTexture(colormap, encodedTexture, archive.resolveForWrite(colormap.getTexturePath()));
+                    writtenColormaps.add(colormap);
+
+                } else {
+
+                    encodedTexture.stage(colormap.getTexturePath());
+                    stagedColormaps.add(colormap);
+                    stagedTextures.add(encodedTexture);
+                }
+            }
+
+            if (!stagedTextures.isEmpty()) {
+
+                ColorMapService.swapInEncodedTextures(stagedColormaps, stagedTextures);
+                writtenColormaps.addAll(stagedColormaps);
+            }
+
+            if (archive != null && !writtenColormaps.isEmpty()) {
+
+                try {
+
+                    archive.commit();
+
+                } finally {
+
+                    // The archive is mounted again whether or not the update replaced it
+                    remountArchivePaths();
+                }
+            }
+
+        } catch (IOException | RuntimeException e) {
+
+            if (archive != null) archive.discard();
+            throw e;
+
+        } finally {
+
+            synchronized (openedTextures) {
+                openedTextures.forEach(EncodedTexture::close);
+            }
         }
+
+        return writtenColormaps;
+    }
+
+    /**
+     * Points the loaded pack at the zip file system mounted by the last archive commit.
+     * Texture paths are the only archive paths read after loading; decoded textures of the previous file system are
+     * dropped.
+     */
+    private void remountArchivePaths() {
+
+        FileSystem fileSystem = archive.getFileSystem();
+        resourcePackRoot = archive.getRoot();
+
+        for (Colormap colormap : polytoneResourcePack.getColormaps().values()) {
+
+            Path texturePath = colormap.getTexturePath();
+
+            if (texturePath != null && texturePath.getFileSystem() != fileSystem)
+                colormap.setTexturePath(fileSystem.getPath(texturePath.toString()));
+        }
+
+        ColorMapService.getTextureCache().clear();
     }
 
     /** Saves the color changes to the root modifier. Each color change is tied to a biome ID.
      * @param root the root resource identifier
      * @param colorChanges the color changes to apply
      * @param progressCallback a callback for reporting progress
+     * @return the colormaps whose texture was written
      * @throws MissingResourceException if a required resource is missing
      * @throws IOException if an I/O error occurs
      */
-    public void persistColormapColorChanges(ResourceIdentifier root, Map<ResourceIdentifier, int[]> colorChanges, BiConsumer<String, Double> progressCallback) throws MissingResourceException, IOException {
+    public Set<Colormap> persistColormapColorChanges(ResourceIdentifier root, Map<ResourceIdentifier, int[]> colorChanges, BiConsumer<String, Double> progressCallback) throws MissingResourceException, IOException {
 
         var totalEntries = colorChanges.size();
         var progress = 0d;
@@ -460,8 +963,10 @@ public class ResourcePackLoader {
             }
 
             resolvedColormaps.put(colormap, indexedColors);
-            persistColormaps(progressCallback, resolvedColormaps, progress, totalEntries);
+            return persistColormaps(progressCallback, resolvedColormaps);
         }
+
+        return Set.of();
     }
 
     /**
@@ -478,20 +983,19 @@ public class ResourcePackLoader {
         // Resolve from namespace
         if (idMapper == null) {
 
-            idMapper = polytoneResourcePack.getBiomeIdMappers().entrySet()
+            idMapper = polytoneResourcePack.getBiomeIdMappers(root.namespace().name())
                     .stream()
-                    .filter(entry -> entry.getKey().name().equals(root.namespace().name()))
                     .findFirst()
-                    .map(Map.Entry::getValue)
                     .orElseGet(()->BiomeIdMapper.EMPTY);
         }
 
-        Map<String, Integer> mappings = idMapper.getMappings();
+        BiomeMappingTable mappings = idMapper.getMappings();
 
         // Resolve a filtered list of all mappings targeted by the color changes
         for (ResourceIdentifier resourceId : colorChanges.keySet()) {
 
-            Integer mappingIndex = mappings.get(resourceId.path());
+            int biomeIndex = mappings.getIndex(resourceId.path());
+            Integer mappingIndex = biomeIndex != BiomeMappingTable.UNMAPPED ? biomeIndex : null;
             int[] colors = colorChanges.get(resourceId);;
 
             // Try to parse the resource ID path as an integer index if no mapping found
@@ -512,6 +1016,40 @@ public class ResourcePackLoader {
         }
     }
 
+    /**
+     * Indicates whether the loaded resource pack is a zip archive.
+     * Saving to an archive rewrites it and mounts it again - texture paths of the pack are updated accordingly.
+     *
+     * @return true if the resource pack was loaded from a zip archive
+     */
+    public boolean isArchive() {
+        return archive != null;
+    }
+
+    /**
+     * Closes the zip archive of the resource pack, if any. Cached textures are dropped, and the tiled textures opened
+     * for the pack are closed.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+
+            if (archive != null) archive.close();
+
+        } finally {
+
+            ColorMapService.getTextureCache().clear();
+        }
+    }
+
+    /** @return the root of the resource pack content - within the zip file system for archives. */
+    public Path getResourcePackRoot() {
+        return resourcePackRoot;
+    }
+
     /** @return the path of the loaded resource pack. */
     public Path getResourcePackPath() {
         return resourcePackPath;
@@ -521,4 +1059,40 @@ public class ResourcePackLoader {
     public PolytoneResourcePack getPolytoneResourcePack() {
         return polytoneResourcePack;
     }
+
+    /**
+     * Defines how resource pack files are read and parsed.
+     */
+    public enum LoadMode {
+        SEQUENTIAL,
+        PARALLEL
+    }
+
+    /**
+     * A json asset file found under a polytone root.
+     *
+     * @param namespace    the namespace of the polytone root containing the file
+     * @param path         the path to the file
+     * @param fingerprint  the fingerprint of the file when the pack was scanned
+     * @param modifierType the modifier type if the file is a modifier, null otherwise
+     */
+    private record AssetFile(String namespace, Path path, FileFingerprint fingerprint, Modifier.Type modifierType) {}
+
+    /**
+     * Parses a single json asset file into its definition.
+     */
+    @FunctionalInterface
+    private interface DefinitionParser<T extends AssetDefinition> {
+
+        T parse(Path path) throws IOException;
+    }
+
+    /**
+     * Parses a single source - may be invoked concurrently in {@link LoadMode#PARALLEL} mode.
+     */
+    @FunctionalInterface
+    private interface AssetParser<S, T> {
+
+        T parse(S source) throws IOException;
+    }
 }
\ No newline at end of file
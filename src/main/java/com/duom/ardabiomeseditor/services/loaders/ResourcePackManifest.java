@@ -0,0 +1,142 @@
+package com.duom.ardabiomeseditor.services.loaders;
+
+import com.duom.ardabiomeseditor.services.cache.FileFingerprint;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Listing of the Polytone files of a resource pack, built from a single traversal of the pack.
+ * <p>
+ * Polytone assets live at a fixed depth: {@code <root>/<assets>/<namespace>/polytone/<kind>/<file>}. The traversal
+ * stops at that depth, skips every directory that cannot contain Polytone assets, and records the attributes of
+ * every json and png file it visits so readers never have to stat or list the pack again.
+ */
+class ResourcePackManifest {
+
+    private static final String POLYTONE = "polytone";
+    private static final String JSON_EXT = ".json";
+    private static final String PNG_EXT = ".png";
+
+    private static final int POLYTONE_ROOT_DEPTH = 3;
+    private static final int ASSET_DEPTH = 5;
+
+    /**
+     * Polytone root of each namespace, sorted by namespace
+     */
+    private final Map<String, Path> polytoneRoots = new TreeMap<>();
+
+    /**
+     * Json files by polytone sub folder (e.g. "colormaps")
+     */
+    private final Map<String, List<Entry>> jsonFiles = new HashMap<>();
+
+    /**
+     * Fingerprints of the png files found under polytone roots
+     */
+    private final Map<Path, FileFingerprint> textures = new HashMap<>();
+
+    private ResourcePackManifest() {}
+
+    /**
+     * Scans the resource pack.
+     *
+     * @param root the root of the resource pack content
+     * @return the manifest of the resource pack
+     * @throws IOException if an I/O error occurs
+     */
+    static ResourcePackManifest scan(Path root) throws IOException {
+
+        ResourcePackManifest manifest = new ResourcePackManifest();
+        List<Entry> allJsonFiles = new ArrayList<>();
+
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), ASSET_DEPTH, new SimpleFileVisitor<>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+
+                Path relative = root.relativize(dir);
+                int depth = dir.equals(root) ? 0 : relative.getNameCount();
+
+                if (depth == POLYTONE_ROOT_DEPTH) {
+
+                    if (!dir.getFileName().toString().equals(POLYTONE)) return FileVisitResult.SKIP_SUBTREE;
+
+                    manifest.polytoneRoots.put(dir.getParent().getFileName().toString(), dir);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+
+                if (!attrs.isRegularFile() || root.relativize(file).getNameCount() != ASSET_DEPTH)
+                    return FileVisitResult.CONTINUE;
+
+                String fileName = file.getFileName().toString();
+
+                if (fileName.endsWith(PNG_EXT)) {
+
+                    manifest.textures.put(file, FileFingerprint.of(attrs));
+
+                } else if (!file.toString().startsWith("_") && file.toString().endsWith(JSON_EXT)) {
+
+                    Path polytoneRoot = file.getParent().getParent();
+                    allJsonFiles.add(new Entry(polytoneRoot.getParent().getFileName().toString(), file, FileFingerprint.of(attrs)));
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        // Only keep the files of the retained polytone root of each namespace, sorted by namespace then path
+        allJsonFiles.stream()
+                .filter(entry -> entry.path().getParent().getParent().equals(manifest.polytoneRoots.get(entry.namespace())))
+                .sorted(Comparator.comparing(Entry::namespace).thenComparing(Entry::path))
+                .forEach(entry -> manifest.jsonFiles
+                        .computeIfAbsent(entry.path().getParent().getFileName().toString(), k -> new ArrayList<>())
+                        .add(entry));
+
+        return manifest;
+    }
+
+    /**
+     * @return the namespaces containing a polytone root, sorted.
+     */
+    Set<String> getNamespaces() {
+        return polytoneRoots.keySet();
+    }
+
+    /**
+     * Retrieves the json files of the given polytone sub folder across every namespace.
+     * Files are returned in namespace order, then in path order.
+     *
+     * @param subFolder the polytone sub folder (e.g. "colormaps")
+     * @return the json files found
+     */
+    List<Entry> getJsonFiles(String subFolder) {
+        return jsonFiles.getOrDefault(subFolder, List.of());
+    }
+
+    /**
+     * Retrieves the fingerprint of a png file recorded during the scan.
+     *
+     * @param texturePath the png file path
+     * @return the fingerprint, or null if the file was not found
+     */
+    FileFingerprint getTextureFingerprint(Path texturePath) {
+        return textures.get(texturePath);
+    }
+
+    /**
+     * A json file found under a polytone root.
+     *
+     * @param namespace   the namespace of the polytone root containing the file
+     * @param path        the path to the file
+     * @param fingerprint the fingerprint of the file at scan time
+     */
+    record Entry(String namespace, Path path, FileFingerprint fingerprint) {}
+}
@@ -0,0 +1,230 @@
+package com.duom.ardabiomeseditor.services.loaders;
+
+import com.duom.ardabiomeseditor.ArdaBiomesEditor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resource pack packaged as a zip archive.
+ * <p>
+ * The archive is mounted as a zip file system: its central directory is read once when the archive is opened, and
+ * entries are then read in place, concurrently if needed, without being extracted to disk.
+ * <p>
+ * Updates are never written into the opened archive. The first write stages a copy of the archive next to it,
+ * modified entries are written into that copy, and {@link #commit()} swaps the copy in place of the original, then
+ * mounts the updated archive again. Paths resolved from the previous file system must then be resolved again from
+ * {@link #getFileSystem()}.
+ */
+class ZipResourcePackArchive implements Closeable {
+
+    private static final String ZIP_EXT = ".zip";
+
+    private final Path archivePath;
+    private FileSystem fileSystem;
+    private Path root;
+
+    private Path stagingArchive;
+    private FileSystem stagingFileSystem;
+
+    private ZipResourcePackArchive(Path archivePath, FileSystem fileSystem, Path root) {
+
+        this.archivePath = archivePath;
+        this.fileSystem = fileSystem;
+        this.root = root;
+    }
+
+    /**
+     * Indicates whether the given path points to a zipped resource pack.
+     *
+     * @param path the resource pack path
+     * @return true if the path is a zip archive
+     */
+    static boolean isArchive(Path path) {
+
+        return Files.isRegularFile(path) && path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ZIP_EXT);
+    }
+
+    /**
+     * Opens a zipped resource pack.
+     *
+     * @param archivePath the path to the zip archive
+     * @return the opened archive
+     * @throws IOException if the archive cannot be opened
+     */
+    static ZipResourcePackArchive open(Path archivePath) throws IOException {
+
+        FileSystem fileSystem = FileSystems.newFileSystem(archivePath);
+
+        try {
+
+            Path root = resolvePackRoot(fileSystem.getPath("/"));
+            ArdaBiomesEditor.LOGGER.info("Opened resource pack archive {} (root {})", archivePath, root);
+
+            return new ZipResourcePackArchive(archivePath, fileSystem, root);
+
+        } catch (IOException | RuntimeException e) {
+
+            fileSystem.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Resolves the resource pack root within the archive.
+     * Packs are usually zipped from their content, but some are zipped from their enclosing folder.
+     *
+     * @param archiveRoot the root of the zip file system
+     * @return the directory containing the "assets" folder, or the archive root if none is found
+     * @throws IOException if an I/O error occurs
+     */
+    private static Path resolvePackRoot(Path archiveRoot) throws IOException {
+
+        if (Files.isDirectory(archiveRoot.resolve("assets"))) return archiveRoot;
+
+        List<Path> children;
+
+        try (var stream = Files.list(archiveRoot)) {
+
+            children = stream.filter(Files::isDirectory).toList();
+        }
+
+        if (children.size() == 1 && Files.isDirectory(children.getFirst().resolve("assets")))
+            return children.getFirst();
+
+        return archiveRoot;
+    }
+
+    /**
+     * Resolves the path an archive entry must be written to during an update.
+     * The first call stages a copy of the archive.
+     *
+     * @param entryPath the entry path, within the opened archive
+     * @return the corresponding path within the staged copy
+     * @throws IOException if the archive cannot be staged
+     */
+    synchronized Path resolveForWrite(Path entryPath) throws IOException {
+
+        if (stagingFileSystem == null) {
+
+            Path directory = archivePath.toAbsolutePath().getParent();
+            stagingArchive = Files.createTempFile(directory, archivePath.getFileName().toString(), ".tmp");
+
+            Files.copy(archivePath, stagingArchive, StandardCopyOption.REPLACE_EXISTING);
+
+            // Temporary files are owner-only - the staged copy keeps the archive permissions once swapped in
+            if (stagingArchive.getFileSystem().supportedFileAttributeViews().contains("posix"))
+                Files.setPosixFilePermissions(stagingArchive, Files.getPosixFilePermissions(archivePath));
+
+            stagingFileSystem = FileSystems.newFileSystem(stagingArchive);
+
+            ArdaBiomesEditor.LOGGER.info("Staged archive update in {}", stagingArchive);
+        }
+
+        return stagingFileSystem.getPath(entryPath.toString());
+    }
+
+    /**
+     * Replaces the archive with the staged copy, then mounts the updated archive. Does nothing if nothing was written.
+     * <p>
+     * The staged copy is only dropped once it replaced the archive. If it cannot be moved, it is kept on disk for
+     * recovery, the original archive is mounted again and the error is rethrown.
+     *
+     * @throws IOException if the staged copy cannot be written or moved, or the archive cannot be mounted again
+     */
+    synchronized void commit() throws IOException {
+
+        if (stagingFileSystem == null) return;
+
+        // Closing the zip file system writes the pending entries into the staged archive
+        stagingFileSystem.close();
+        stagingFileSystem = null;
+        fileSystem.close();
+
+        try {
+
+            try {
+
+                Files.move(stagingArchive, archivePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (AtomicMoveNotSupportedException e) {
+
+                Files.move(stagingArchive, archivePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException | RuntimeException e) {
+
+            ArdaBiomesEditor.LOGGER.error("Could not replace resource pack archive {}, the update is kept in {}", archivePath, stagingArchive);
+
+            // The staged copy is left on disk - it is no longer owned by this archive
+            stagingArchive = null;
+            remount();
+            throw e;
+        }
+
+        stagingArchive = null;
+        remount();
+
+        ArdaBiomesEditor.LOGGER.info("Updated resource pack archive {}", archivePath);
+    }
+
+    /**
+     * Mounts the archive again after its file system was closed, keeping the same pack root.
+     *
+     * @throws IOException if the archive cannot be opened
+     */
+    private void remount() throws IOException {
+
+        fileSystem = FileSystems.newFileSystem(archivePath);
+        root = fileSystem.getPath(root.toString());
+    }
+
+    /**
+     * Drops the staged copy, if any, leaving the archive untouched.
+     */
+    synchronized void discard() {
+
+        try {
+
+            if (stagingFileSystem != null) stagingFileSystem.close();
+            if (stagingArchive != null) Files.deleteIfExists(stagingArchive);
+
+        } catch (IOException e) {
+
+            ArdaBiomesEditor.LOGGER.warn("Could not delete staged archive {}: {}", stagingArchive, e.getMessage());
+        }
+
+        stagingFileSystem = null;
+        stagingArchive = null;
+    }
+
+    /**
+     * Closes the archive, dropping any uncommitted update.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        discard();
+        if (fileSystem.isOpen()) fileSystem.close();
+    }
+
+    /** @return the path to the zip archive. */
+    Path getArchivePath() {
+        return archivePath;
+    }
+
+    /** @return the zip file system mounted on the archive - a new one after each {@link #commit()}. */
+    synchronized FileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    /** @return the resource pack root within the archive. */
+    synchronized Path getRoot() {
+        return root;
+    }
+}
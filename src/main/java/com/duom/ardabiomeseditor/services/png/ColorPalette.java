@@ -0,0 +1,195 @@
+package com.duom.ardabiomeseditor.services.png;
+
+import java.awt.image.IndexColorModel;
+import java.util.Arrays;
+
+/**
+ * Palette of up to 256 ARGB colors, for 8 bit indexed PNG output.
+ * <p>
+ * Colors are looked up through a primitive open-addressing hash table, so building the palette of a texture
+ * allocates nothing per pixel.
+ */
+public final class ColorPalette {
+
+    public static final int MAX_COLORS = 256;
+
+    /**
+     * Hash table capacity - a power of two, at most half full
+     */
+    private static final int CAPACITY = 512;
+    private static final int HASH_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(CAPACITY);
+
+    private final int[] colors = new int[MAX_COLORS];
+    private final int[] slotColors = new int[CAPACITY];
+
+    /**
+     * Palette index + 1 of the color in each slot - 0 marks an empty slot, as any int is a valid color
+     */
+    private final short[] slotIndices = new short[CAPACITY];
+
+    private int size;
+
+    /**
+     * Builds the palette of the given pixels and converts them to palette indices in a single pass.
+     * Colors are indexed in order of first appearance.
+     *
+     * @param argb    The ARGB pixels.
+     * @param indices The array receiving the palette index of each pixel - at least as long as the pixels.
+     * @return The palette, or null if the pixels contain more than {@link #MAX_COLORS} colors.
+     */
+    public static ColorPalette index(int[] argb, byte[] indices) {
+
+        ColorPalette palette = new ColorPalette();
+
+        for (int i = 0; i < argb.length; i++) {
+
+            int index = palette.add(argb[i]);
+
+            if (index < 0) return null;
+
+            indices[i] = (byte) index;
+        }
+
+        return palette;
+    }
+
+    /**
+     * Creates a palette holding the given entries, in order, e.g. the palette of a decoded indexed PNG.
+     * Duplicate entries are kept so existing indices remain valid - lookups resolve to the first one.
+     *
+     * @param colors The ARGB palette entries, at most {@link #MAX_COLORS}.
+     * @return The palette.
+     */
+    public static ColorPalette of(int[] colors) {
+
+        if (colors.length > MAX_COLORS) throw new IllegalArgumentException("Too many palette entries: " + colors.length);
+
+        ColorPalette palette = new ColorPalette();
+        System.arraycopy(colors, 0, palette.colors, 0, colors.length);
+        palette.size = colors.length;
+        palette.rehash();
+
+        return palette;
+    }
+
+    /**
+     * Adds a color to the palette if it is not already present.
+     *
+     * @param argb The ARGB color.
+     * @return The palette index of the color, or -1 if the palette is full.
+     */
+    public int add(int argb) {
+
+        int slot = findSlot(argb);
+
+        if (slotIndices[slot] != 0) return slotIndices[slot] - 1;
+        if (size == MAX_COLORS) return -1;
+
+        colors[size] = argb;
+        slotColors[slot] = argb;
+        slotIndices[slot] = (short) (size + 1);
+
+        return size++;
+    }
+
+    /**
+     * Replaces the color at the given palette index, e.g. to recycle an entry no pixel refers to.
+     *
+     * @param index The palette index, lower than {@link #size()}.
+     * @param argb  The ARGB color.
+     */
+    public void set(int index, int argb) {
+
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Palette index " + index + " out of bounds for size " + size);
+
+        colors[index] = argb;
+        rehash();
+    }
+
+    /**
+     * Rebuilds the lookup table from the palette colors. Duplicate colors resolve to their first index.
+     */
+    private void rehash() {
+
+        Arrays.fill(slotIndices, (short) 0);
+
+        for (int i = 0; i < size; i++) {
+
+            int slot = findSlot(colors[i]);
+
+            if (slotIndices[slot] == 0) {
+
+                slotColors[slot] = colors[i];
+                slotIndices[slot] = (short) (i + 1);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the palette index of a color.
+     *
+     * @param argb The ARGB color.
+     * @return The palette index, or -1 if the color is not in the palette.
+     */
+    public int indexOf(int argb) {
+
+        return slotIndices[findSlot(argb)] - 1;
+    }
+
+    /**
+     * Finds the slot holding the color, or the empty slot where it would be inserted.
+     *
+     * @param argb The ARGB color.
+     * @return The slot.
+     */
+    private int findSlot(int argb) {
+
+        // Fibonacci hashing spreads neighbouring colors across the table
+        int slot = (argb * 0x9E3779B9) >>> HASH_SHIFT;
+
+        while (slotIndices[slot] != 0 && slotColors[slot] != argb)
+            slot = (slot + 1) & (CAPACITY - 1);
+
+        return slot;
+    }
+
+    /**
+     * @return the number of colors in the palette.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The palette index.
+     * @return the ARGB color at the given index.
+     */
+    public int getColor(int index) {
+        return colors[index];
+    }
+
+    /**
+     * Creates an 8 bit color model holding the palette colors.
+     *
+     * @return The color model.
+     */
+    public IndexColorModel toColorModel() {
+
+        byte[] r = new byte[size];
+        byte[] g = new byte[size];
+        byte[] b = new byte[size];
+        byte[] a = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+
+            int argb = colors[i];
+            a[i] = (byte) ((argb >> 24) & 0xFF);
+            r[i] = (byte) ((argb >> 16) & 0xFF);
+            g[i] = (byte) ((argb >> 8) & 0xFF);
+            b[i] = (byte) (argb & 0xFF);
+        }
+
+        return new IndexColorModel(8, size, r, g, b, a);
+    }
+}
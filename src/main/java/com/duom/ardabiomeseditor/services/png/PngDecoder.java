@@ -0,0 +1,511 @@
+package com.duom.ardabiomeseditor.services.png;
+
+import com.duom.ardabiomeseditor.services.cache.DecodedTexture;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Minimal streaming PNG decoder for the formats colormap textures use: 8 bit RGB, RGBA and indexed, non-interlaced.
+ * <p>
+ * Scanlines are inflated and unfiltered one at a time, and their pixels written straight into the column-major
+ * pixel array of a {@link DecodedTexture} - no intermediate image is created. Scanlines can also be streamed to a
+ * {@link RowSink}, holding a single row in memory, and the palette indices of indexed images to an
+ * {@link IndexedRowSink}. Other formats are left to ImageIO.
+ */
+public final class PngDecoder {
+
+    private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+
+    private static final int IHDR = 0x49484452;
+    private static final int PLTE = 0x504C5445;
+    private static final int TRNS = 0x74524E53;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private PngDecoder() {}
+
+    /**
+     * Indicates whether the decoder supports the format of the image.
+     *
+     * @param header The PNG header.
+     * @return True if the image is 8 bit RGB, RGBA or indexed, and non-interlaced.
+     */
+    public static boolean isSupported(PngHeader header) {
+
+        return header.bitDepth() == 8
+                && header.interlaceMethod() == 0
+                && (header.colorType() == PngHeader.COLOR_TYPE_RGB
+                    || header.colorType() == PngHeader.COLOR_TYPE_RGBA
+                    || header.colorType() == PngHeader.COLOR_TYPE_INDEXED);
+    }
+
+    /**
+     * Decodes a PNG file.
+     *
+     * @param path The PNG file.
+     * @return The decoded texture, or null if the format is not supported.
+     * @throws IOException If the file cannot be read or is not a valid PNG file.
+     */
+    public static DecodedTexture decode(Path path) throws IOException {
+
+        ColumnMajorSink sink = new ColumnMajorSink();
+
+        return decodeRows(path, sink) ? sink.toTexture() : null;
+    }
+
+    /**
+     * Decodes a PNG file scanline by scanline.
+     *
+     * @param path The PNG file.
+     * @param sink The receiver of the header and the decoded rows.
+     * @return True if the image was decoded, false if the format is not supported - the sink is not called then.
+     * @throws IOException If the file cannot be read or is not a valid PNG file.
+     */
+    public static boolean decodeRows(Path path, RowSink sink) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+
+            return decodeRows(in, sink, null);
+        }
+    }
+
+    /**
+     * Decodes the palette and the index raster of an 8 bit indexed PNG file, without resolving pixel colors.
+     *
+     * @param path The PNG file.
+     * @return The indexed image, or null if the file is not an 8 bit indexed, non-interlaced PNG.
+     * @throws IOException If the file cannot be read or is not a valid PNG file.
+     */
+    public static IndexedImage decodeIndexed(Path path) throws IOException {
+
+        IndexedImageSink sink = new IndexedImageSink();
+
+        return decodeIndexedRows(path, sink) ? sink.toImage() : null;
+    }
+
+    /**
+     * Decodes the palette and the index rows of an 8 bit indexed PNG file, scanline by scanline.
+     *
+     * @param path The PNG file.
+     * @param sink The receiver of the header, the palette and the index rows.
+     * @return True if the image was decoded, false if it is not an 8 bit indexed, non-interlaced PNG - the sink is
+     * not called then.
+     * @throws IOException If the file cannot be read or is not a valid PNG file.
+     */
+    public static boolean decodeIndexedRows(Path path, IndexedRowSink sink) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+
+            return decodeRows(in, null, sink);
+        }
+    }
+
+    /**
+     * Reads the chunks up to the image data, then streams the scanlines to the ARGB sink, or to the indexed sink if
+     * one is given.
+     */
+    private static boolean decodeRows(DataInputStream in, RowSink sink, IndexedRowSink indexedSink) throws IOException {
+
+        if (in.readLong() != SIGNATURE) throw new IOException("Not a PNG file");
+
+        int length = in.readInt();
+
+        if (in.readInt() != IHDR) throw new IOException("Missing PNG header");
+
+        PngHeader header = new PngHeader(in.readInt(), in.readInt(), in.readUnsignedByte(), in.readUnsignedByte(), readInterlaceMethod(in));
+        in.skipNBytes(length - 13 + 4); // Remaining data, CRC
+
+        if (!isSupported(header)) return false;
+        if (indexedSink != null && header.colorType() != PngHeader.COLOR_TYPE_INDEXED) return false;
+
+        int[] palette = null;
+        int transparentColor = -1;
+
+        while (true) {
+
+            length = in.readInt();
+            int type = in.readInt();
+
+            switch (type) {
+                case PLTE -> palette = readPalette(in, length);
+                case TRNS -> {
+
+                    if (header.colorType() == PngHeader.COLOR_TYPE_INDEXED) {
+
+                        if (palette == null) throw new IOException("tRNS chunk before PLTE chunk");
+                        for (int i = 0; i < length; i++) {
+                            int alpha = in.readUnsignedByte();
+                            if (i < palette.length) palette[i] = (palette[i] & 0x00FFFFFF) | (alpha << 24);
+                        }
+
+                    } else if (header.colorType() == PngHeader.COLOR_TYPE_RGB && length == 6) {
+
+                        // 16 bit samples - only the low byte is used at 8 bit depth
+                        transparentColor = (in.readUnsignedShort() & 0xFF) << 16 | (in.readUnsignedShort() & 0xFF) << 8 | (in.readUnsignedShort() & 0xFF);
+
+                    } else {
+
+                        in.skipNBytes(length);
+                    }
+
+                    in.skipNBytes(4);
+                }
+                case IDAT -> {
+
+                    if (header.colorType() == PngHeader.COLOR_TYPE_INDEXED && palette == null)
+                        throw new IOException("Missing PNG palette");
+
+                    if (indexedSink != null) {
+
+                        indexedSink.start(header, palette);
+                        readIndices(new IdatInputStream(in, length), header, palette.length, indexedSink);
+
+                    } else {
+
+                        sink.start(header);
+                        readPixels(new IdatInputStream(in, length), header, palette, transparentColor, sink);
+                    }
+
+                    return true;
+                }
+                case IEND -> throw new IOException("Missing PNG image data");
+                default -> in.skipNBytes((long) length + 4);
+            }
+        }
+    }
+
+    private static int readInterlaceMethod(DataInputStream in) throws IOException {
+
+        in.readUnsignedByte(); // Compression method
+        in.readUnsignedByte(); // Filter method
+
+        return in.readUnsignedByte();
+    }
+
+    private static int[] readPalette(DataInputStream in, int length) throws IOException {
+
+        int[] palette = new int[length / 3];
+
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = 0xFF000000 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+        }
+
+        in.skipNBytes(length % 3 + 4);
+
+        return palette;
+    }
+
+    /**
+     * Inflates and unfilters the scanlines, passing each one to the sink as ARGB pixels.
+     */
+    private static void readPixels(InputStream idat, PngHeader header, int[] palette, int transparentColor, RowSink sink) throws IOException {
+
+        int width = header.width();
+        int bytesPerPixel = switch (header.colorType()) {
+            case PngHeader.COLOR_TYPE_RGB -> 3;
+            case PngHeader.COLOR_TYPE_RGBA -> 4;
+            default -> 1;
+        };
+
+        int[] pixels = new int[width];
+
+        readScanlines(idat, header, bytesPerPixel, (y, row) -> {
+
+            for (int x = 0, i = 1; x < width; x++) {
+
+                int argb = switch (bytesPerPixel) {
+                    case 1 -> {
+                        int index = row[i++] & 0xFF;
+                        if (index >= palette.length) throw new IOException("Palette index out of bounds: " + index);
+                        yield palette[index];
+                    }
+                    case 3 -> {
+                        int rgb = (row[i] & 0xFF) << 16 | (row[i + 1] & 0xFF) << 8 | (row[i + 2] & 0xFF);
+                        i += 3;
+                        yield rgb == transparentColor ? rgb : 0xFF000000 | rgb;
+                    }
+                    default -> {
+                        int rgba = (row[i + 3] & 0xFF) << 24 | (row[i] & 0xFF) << 16 | (row[i + 1] & 0xFF) << 8 | (row[i + 2] & 0xFF);
+                        i += 4;
+                        yield rgba;
+                    }
+                };
+
+                pixels[x] = argb;
+            }
+
+            sink.accept(y, pixels);
+        });
+    }
+
+    /**
+     * Inflates and unfilters the scanlines of an indexed image, passing each one to the sink as palette indices.
+     */
+    private static void readIndices(InputStream idat, PngHeader header, int paletteSize, IndexedRowSink sink) throws IOException {
+
+        int width = header.width();
+
+        readScanlines(idat, header, 1, (y, row) -> {
+
+            for (int i = 1; i <= width; i++) {
+                if ((row[i] & 0xFF) >= paletteSize) throw new IOException("Palette index out of bounds: " + (row[i] & 0xFF));
+            }
+
+            sink.accept(y, row, 1);
+        });
+    }
+
+    /**
+     * Inflates and unfilters the scanlines, top to bottom.
+     */
+    private static void readScanlines(InputStream idat, PngHeader header, int bytesPerPixel, ScanlineConsumer consumer) throws IOException {
+
+        int rowLength = header.width() * bytesPerPixel;
+        byte[] row = new byte[rowLength + 1];
+        byte[] previousRow = new byte[rowLength + 1];
+
+        Inflater inflater = new Inflater();
+
+        try (InputStream in = new InflaterInputStream(idat, inflater, BUFFER_SIZE)) {
+
+            for (int y = 0; y < header.height(); y++) {
+
+                if (in.readNBytes(row, 0, row.length) != row.length) throw new EOFException("Truncated PNG image data");
+
+                unfilter(row, previousRow, bytesPerPixel);
+                consumer.accept(y, row);
+
+                byte[] swap = previousRow;
+                previousRow = row;
+                row = swap;
+            }
+
+        } finally {
+
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reverts the filter of a scanline in place.
+     *
+     * @param row           the filter type byte followed by the filtered scanline
+     * @param previousRow   the previous unfiltered scanline, in the same layout - zeroed for the first row
+     * @param bytesPerPixel the bytes per complete pixel
+     * @throws IOException if the filter type is unknown
+     */
+    private static void unfilter(byte[] row, byte[] previousRow, int bytesPerPixel) throws IOException {
+
+        int filter = row[0];
+
+        switch (filter) {
+            case 0 -> {}
+            case 1 -> {
+                for (int i = 1 + bytesPerPixel; i < row.length; i++) row[i] += row[i - bytesPerPixel];
+            }
+            case 2 -> {
+                for (int i = 1; i < row.length; i++) row[i] += previousRow[i];
+            }
+            case 3 -> {
+                for (int i = 1; i < row.length; i++) {
+                    int left = i > bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+                    row[i] += (byte) ((left + (previousRow[i] & 0xFF)) >>> 1);
+                }
+            }
+            case 4 -> {
+                for (int i = 1; i < row.length; i++) {
+                    int left = i > bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+                    int upperLeft = i > bytesPerPixel ? previousRow[i - bytesPerPixel] & 0xFF : 0;
+                    row[i] += (byte) paethPredictor(left, previousRow[i] & 0xFF, upperLeft);
+                }
+            }
+            default -> throw new IOException("Unknown PNG filter type: " + filter);
+        }
+    }
+
+    private static int paethPredictor(int a, int b, int c) {
+
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+
+        if (pa <= pb && pa <= pc) return a;
+        if (pb <= pc) return b;
+        return c;
+    }
+
+    /**
+     * Image data stream: the data of consecutive IDAT chunks, read as a single stream.
+     */
+    private static final class IdatInputStream extends InputStream {
+
+        private final DataInputStream in;
+        private int remaining;
+        private boolean ended;
+
+        private IdatInputStream(DataInputStream in, int firstChunkLength) {
+
+            this.in = in;
+            this.remaining = firstChunkLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+
+            while (remaining == 0) {
+
+                if (ended) return -1;
+
+                in.skipNBytes(4); // CRC of the previous chunk
+                int nextLength = in.readInt();
+
+                if (in.readInt() != IDAT) {
+
+                    ended = true;
+                    return -1;
+                }
+
+                remaining = nextLength;
+            }
+
+            int read = in.read(buffer, offset, Math.min(length, remaining));
+
+            if (read < 0) throw new EOFException("Truncated PNG image data");
+
+            remaining -= read;
+            return read;
+        }
+    }
+
+    /**
+     * Receives the rows of a decoded image, top to bottom.
+     */
+    public interface RowSink {
+
+        /**
+         * Called once, before the first row.
+         *
+         * @param header The PNG header.
+         */
+        void start(PngHeader header);
+
+        /**
+         * @param y   The row.
+         * @param row The ARGB pixels of the row - reused for the next row, copy what must be kept.
+         */
+        void accept(int y, int[] row);
+    }
+
+    /**
+     * Receives the palette and the index rows of a decoded 8 bit indexed image, top to bottom.
+     */
+    public interface IndexedRowSink {
+
+        /**
+         * Called once, before the first row.
+         *
+         * @param header  The PNG header.
+         * @param palette The ARGB palette entries, alpha from the tRNS chunk.
+         */
+        void start(PngHeader header, int[] palette);
+
+        /**
+         * @param y       The row.
+         * @param indices The palette indices of the row, from the offset on - reused for the next row, copy what must
+         *                be kept.
+         * @param offset  The offset of the first index.
+         */
+        void accept(int y, byte[] indices, int offset);
+    }
+
+    /**
+     * An 8 bit indexed image: its palette and the index of each pixel.
+     *
+     * @param width   The image width.
+     * @param height  The image height.
+     * @param palette The ARGB palette entries.
+     * @param indices The palette index of each pixel, in row-major order.
+     */
+    public record IndexedImage(int width, int height, int[] palette, byte[] indices) {}
+
+    /**
+     * Receives an unfiltered scanline - the filter type byte followed by the raw bytes of the row.
+     */
+    @FunctionalInterface
+    private interface ScanlineConsumer {
+
+        void accept(int y, byte[] row) throws IOException;
+    }
+
+    /**
+     * Writes each row at its column-major position.
+     */
+    private static final class ColumnMajorSink implements RowSink {
+
+        private int width;
+        private int height;
+        private int[] columns;
+
+        @Override
+        public void start(PngHeader header) {
+
+            width = header.width();
+            height = header.height();
+            columns = new int[width * height];
+        }
+
+        @Override
+        public void accept(int y, int[] row) {
+
+            for (int x = 0, offset = y; x < width; x++, offset += height) columns[offset] = row[x];
+        }
+
+        private DecodedTexture toTexture() {
+            return DecodedTexture.ofColumnMajor(width, height, columns);
+        }
+    }
+
+    /**
+     * Copies each index row into a row-major index raster.
+     */
+    private static final class IndexedImageSink implements IndexedRowSink {
+
+        private int width;
+        private int height;
+        private int[] palette;
+        private byte[] indices;
+
+        @Override
+        public void start(PngHeader header, int[] palette) {
+
+            this.width = header.width();
+            this.height = header.height();
+            this.palette = palette;
+            this.indices = new byte[Math.multiplyExact(width, height)];
+        }
+
+        @Override
+        public void accept(int y, byte[] indices, int offset) {
+
+            System.arraycopy(indices, offset, this.indices, y * width, width);
+        }
+
+        private IndexedImage toImage() {
+            return new IndexedImage(width, height, palette, indices);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.duom.ardabiomeseditor.services.png;
+
+import java.awt.image.IndexColorModel;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal PNG encoder for colormap textures: 8 bit RGB, RGBA and indexed images, non-interlaced.
+ * <p>
+ * Compared to the generic ImageIO writer, the compression level and the scanline filters are chosen by the caller,
+ * and the {@link Deflater} of each thread is reused across images. Encoders are immutable and thread safe.
+ */
+public final class PngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BIT_DEPTH = 8;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+    private static final int FILTER_COUNT = 5;
+
+    /**
+     * Deflaters are costly to create and hold native memory - keep one per encoding thread
+     */
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(Deflater::new);
+
+    /**
+     * Size of the deflate output buffer - each filled buffer is written as one IDAT chunk
+     */
+    private static final int IDAT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Initial capacity of in-memory PNG buffers. They grow with the encoded data - presizing them from the image
+     * dimensions would allocate hundreds of megabytes, or overflow, for large textures.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Scanline filter selection.
+     */
+    public enum FilterStrategy {
+
+        /** No filtering - fastest, best for indexed images. */
+        NONE,
+
+        /** Difference with the left pixel on every row - cheap and effective on horizontal gradients. */
+        SUB,
+
+        /** Paeth predictor on every row. */
+        PAETH,
+
+        /** Tries every filter on each row and keeps the one with the smallest sum of absolute differences. */
+        ADAPTIVE
+    }
+
+    private final int compressionLevel;
+    private final FilterStrategy filterStrategy;
+
+    /**
+     * @param compressionLevel The deflate level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+     * @param filterStrategy   The filter selection of truecolor images. Indexed images are never filtered.
+     */
+    public PngEncoder(int compressionLevel, FilterStrategy filterStrategy) {
+
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+
+        this.compressionLevel = compressionLevel;
+        this.filterStrategy = filterStrategy;
+    }
+
+    /**
+     * Encodes ARGB pixels. Images without transparency are written as RGB, others as RGBA.
+     *
+     * @param width  The image width.
+     * @param height The image height.
+     * @param argb   The ARGB pixels, in row-major order.
+     * @return The encoded PNG.
+     * @throws IOException If the image cannot be encoded.
+     */
+    public byte[] encodeArgb(int width, int height, int[] argb) throws IOException {
+
+        return encodeArgb(width, height, !isOpaque(argb, width * height),
+                (y, row) -> System.arraycopy(argb, y * width, row, 0, width));
+    }
+
+    /**
+     * Encodes ARGB pixels supplied row by row, e.g. from a tiled texture. A single row is held in memory.
+     *
+     * @param width      The image width.
+     * @param height     The image height.
+     * @param alpha      True to write RGBA, false to write RGB and drop the alpha channel.
+     * @param rowReader  The supplier of the ARGB pixels of each row.
+     * @return The encoded PNG.
+     * @throws IOException If the image cannot be encoded.
+     */
+    public byte[] encodeArgb(int width, int height, boolean alpha, ArgbRowReader rowReader) throws IOException {
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        encodeArgb(width, height, alpha, rowReader, png);
+
+        return png.toByteArray();
+    }
+
+    /**
+     * Encodes ARGB pixels supplied row by row to a stream, e.g. a large texture to a file. A single row is held in
+     * memory, and the image data is written as it is compressed.
+     *
+     * @param width       The image width.
+     * @param height      The image height.
+     * @param alpha       True to write RGBA, false to write RGB and drop the alpha channel.
+     * @param rowReader   The supplier of the ARGB pixels of each row.
+     * @param destination The stream receiving the PNG - left open.
+     * @throws IOException If the image cannot be encoded or written.
+     */
+    public void encodeArgb(int width, int height, boolean alpha, ArgbRowReader rowReader, OutputStream destination) throws IOException {
+
+        int bytesPerPixel = alpha ? 4 : 3;
+        int colorType = alpha ? PngHeader.COLOR_TYPE_RGBA : PngHeader.COLOR_TYPE_RGB;
+        int[] pixels = new int[width];
+
+        encode(width, height, colorType, bytesPerPixel, filterStrategy, null, (y, row) -> {
+
+            rowReader.read(y, pixels);
+
+            for (int x = 0, i = 0; x < width; x++) {
+
+                int pixel = pixels[x];
+                row[i++] = (byte) (pixel >> 16);
+                row[i++] = (byte) (pixel >> 8);
+                row[i++] = (byte) pixel;
+                if (alpha) row[i++] = (byte) (pixel >>> 24);
+            }
+        }, destination);
+    }
+
+    private static boolean isOpaque(int[] argb, int length) {
+
+        for (int i = 0; i < length; i++) {
+            if ((argb[i] >>> 24) != 0xFF) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Encodes an 8 bit indexed image.
+     *
+     * @param width      The image width.
+     * @param height     The image height.
+     * @param indices    The palette index of each pixel, in row-major order.
+     * @param colorModel The palette, at most 256 colors.
+     * @return The encoded PNG.
+     * @throws IOException If the image cannot be encoded.
+     */
+    public byte[] encodeIndexed(int width, int height, byte[] indices, IndexColorModel colorModel) throws IOException {
+
+        int[] colors = new int[colorModel.getMapSize()];
+        colorModel.getRGBs(colors);
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        encode(width, height, PngHeader.COLOR_TYPE_INDEXED, 1, FilterStrategy.NONE, toPaletteChunks(colors),
+                (y, row) -> System.arraycopy(indices, y * width, row, 0, width), png);
+
+        return png.toByteArray();
+    }
+
+    /**
+     * Rewrites the palette of an 8 bit indexed PNG file. Every other chunk, image data included, is copied as is -
+     * no pixel is decoded or encoded again.
+     *
+     * @param path    The indexed PNG file.
+     * @param palette The new ARGB palette entries, as many as the current palette.
+     * @return The PNG with the new palette.
+     * @throws IOException If the file cannot be read or is not an indexed PNG file.
+     */
+    public static byte[] replacePalette(Path path, int[] palette) throws IOException {
+
+        byte[][] paletteChunks = toPaletteChunks(palette);
+        boolean paletteFound = false;
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        DataOutputStream out = new DataOutputStream(png);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+
+            byte[] signature = in.readNBytes(SIGNATURE.length);
+
+            if (!Arrays.equals(signature, SIGNATURE)) throw new IOException("Not a PNG file");
+
+            out.write(signature);
+
+            while (true) {
+
+                int length = in.readInt();
+                byte[] type = in.readNBytes(4);
+                String typeName = new String(type, StandardCharsets.US_ASCII);
+
+                switch (typeName) {
+                    case "PLTE" -> {
+
+                        if (length != palette.length * 3) throw new IOException("Palette size mismatch: " + length / 3 + " entries, " + palette.length + " given");
+
+                        in.skipNBytes((long) length + 4);
+                        writeChunk(out, "PLTE", paletteChunks[0]);
+                        if (paletteChunks[1].length > 0) writeChunk(out, "tRNS", paletteChunks[1]);
+                        paletteFound = true;
+                    }
+                    // Written along with the palette
+                    case "tRNS" -> in.skipNBytes((long) length + 4);
+                    default -> {
+
+                        if (typeName.equals("IDAT") && !paletteFound) throw new IOException("Not an indexed PNG file");
+
+                        // Data and CRC are unchanged
+                        out.writeInt(length);
+                        out.write(type);
+                        copy(in, out, length + 4L);
+                    }
+                }
+
+                if (typeName.equals("IEND")) return png.toByteArray();
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+
+        byte[] buffer = new byte[(int) Math.min(length, 64 * 1024)];
+
+        while (length > 0) {
+
+            int read = in.read(buffer, 0, (int) Math.min(length, buffer.length));
+
+            if (read < 0) throw new EOFException("Truncated PNG file");
+
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+
+    /**
+     * Builds the PLTE and tRNS chunk data of a palette.
+     *
+     * @param colors The ARGB palette entries.
+     * @return the PLTE data, then the tRNS data - empty if every entry is opaque.
+     */
+    private static byte[][] toPaletteChunks(int[] colors) {
+
+        byte[] palette = new byte[colors.length * 3];
+        int transparentEntries = 0;
+
+        for (int i = 0; i < colors.length; i++) {
+
+            palette[i * 3] = (byte) (colors[i] >> 16);
+            palette[i * 3 + 1] = (byte) (colors[i] >> 8);
+            palette[i * 3 + 2] = (byte) colors[i];
+
+            if ((colors[i] >>> 24) != 0xFF) transparentEntries = i + 1;
+        }
+
+        // Trailing opaque entries are implied by a shorter tRNS chunk
+        byte[] alphas = new byte[transparentEntries];
+
+        for (int i = 0; i < transparentEntries; i++) alphas[i] = (byte) (colors[i] >>> 24);
+
+        return new byte[][]{palette, alphas};
+    }
+
+    /**
+     * Writes the PNG stream.
+     *
+     * @param palette     the PLTE and tRNS chunk data of indexed images, null otherwise
+     * @param destination the stream receiving the PNG - left open
+     */
+    private void encode(int width, int height, int colorType, int bytesPerPixel, FilterStrategy strategy,
+                        byte[][] palette, RowReader rowReader, OutputStream destination) throws IOException {
+
+        DataOutputStream out = new DataOutputStream(destination);
+
+        out.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(width);
+        headerOut.writeInt(height);
+        headerOut.writeByte(BIT_DEPTH);
+        headerOut.writeByte(colorType);
+        headerOut.writeByte(0); // Deflate compression
+        headerOut.writeByte(0); // Adaptive filtering
+        headerOut.writeByte(0); // No interlace
+        writeChunk(out, "IHDR", header.toByteArray());
+
+        if (palette != null) {
+
+            writeChunk(out, "PLTE", palette[0]);
+            if (palette[1].length > 0) writeChunk(out, "tRNS", palette[1]);
+        }
+
+        compress(width, height, bytesPerPixel, strategy, rowReader, out);
+        writeChunk(out, "IEND", new byte[0]);
+
+        out.flush();
+    }
+
+    /**
+     * Filters and deflates the scanlines, writing the compressed data as IDAT chunks as it is produced.
+     */
+    private void compress(int width, int height, int bytesPerPixel, FilterStrategy strategy, RowReader rowReader,
+                          DataOutputStream out) throws IOException {
+
+        int rowLength = width * bytesPerPixel;
+        byte[] previousRow = new byte[rowLength];
+        byte[] row = new byte[rowLength];
+        byte[][] filtered = new byte[FILTER_COUNT][rowLength + 1];
+
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setLevel(compressionLevel);
+
+        // Each buffer of deflated data becomes an IDAT chunk - the chunk stream is closed with the deflater stream,
+        // the destination is not
+        OutputStream idat = new OutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] data, int offset, int length) throws IOException {
+                if (length > 0) writeChunk(out, "IDAT", data, offset, length);
+            }
+        };
+
+        // The stream does not end a deflater it was given, so it can be reused by the next image
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(idat, deflater, IDAT_BUFFER_SIZE)) {
+
+            for (int y = 0; y < height; y++) {
+
+                rowReader.read(y, row);
+                deflaterOut.write(filterRow(row, previousRow, bytesPerPixel, strategy, filtered));
+
+                byte[] swap = previousRow;
+                previousRow = row;
+                row = swap;
+            }
+        }
+    }
+
+    /**
+     * Filters a scanline.
+     *
+     * @param row           the raw scanline
+     * @param previousRow   the raw previous scanline, zeroed for the first row
+     * @param bytesPerPixel the bytes per complete pixel
+     * @param strategy      the filter selection
+     * @param filtered      one buffer per filter type, receiving the filter type byte followed by the filtered row
+     * @return the buffer holding the selected filtered row
+     */
+    private static byte[] filterRow(byte[] row, byte[] previousRow, int bytesPerPixel, FilterStrategy strategy, byte[][] filtered) {
+
+        return switch (strategy) {
+            case NONE -> applyFilter(FILTER_NONE, row, previousRow, bytesPerPixel, filtered[FILTER_NONE]);
+            case SUB -> applyFilter(FILTER_SUB, row, previousRow, bytesPerPixel, filtered[FILTER_SUB]);
+            case PAETH -> applyFilter(FILTER_PAETH, row, previousRow, bytesPerPixel, filtered[FILTER_PAETH]);
+            case ADAPTIVE -> {
+
+                byte[] best = null;
+                long bestSum = Long.MAX_VALUE;
+
+                for (int filter = 0; filter < FILTER_COUNT; filter++) {
+
+                    byte[] candidate = applyFilter(filter, row, previousRow, bytesPerPixel, filtered[filter]);
+                    long sum = 0;
+
+                    // Minimum sum of absolute differences, bytes taken as signed
+                    for (int i = 1; i < candidate.length && sum < bestSum; i++) sum += Math.abs(candidate[i]);
+
+                    if (sum < bestSum) {
+
+                        bestSum = sum;
+                        best = candidate;
+                    }
+                }
+
+                yield best;
+            }
+        };
+    }
+
+    private static byte[] applyFilter(int filter, byte[] row, byte[] previousRow, int bytesPerPixel, byte[] out) {
+
+        out[0] = (byte) filter;
+
+        for (int i = 0; i < row.length; i++) {
+
+            int x = row[i] & 0xFF;
+            int a = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+            int b = previousRow[i] & 0xFF;
+            int c = i >= bytesPerPixel ? previousRow[i - bytesPerPixel] & 0xFF : 0;
+
+            out[i + 1] = (byte) switch (filter) {
+                case FILTER_SUB -> x - a;
+                case FILTER_UP -> x - b;
+                case FILTER_AVERAGE -> x - ((a + b) >>> 1);
+                case FILTER_PAETH -> x - paethPredictor(a, b, c);
+                default -> x;
+            };
+        }
+
+        return out;
+    }
+
+    private static int paethPredictor(int a, int b, int c) {
+
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+
+        if (pa <= pb && pa <= pc) return a;
+        if (pb <= pc) return b;
+        return c;
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+
+        writeChunk(out, type, data, 0, data.length);
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data, int offset, int length) throws IOException {
+
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Supplies the ARGB pixels of a row.
+     */
+    @FunctionalInterface
+    public interface ArgbRowReader {
+
+        /**
+         * @param y   The row.
+         * @param row The array receiving the ARGB pixels of the row.
+         */
+        void read(int y, int[] row);
+    }
+
+    /**
+     * Supplies the raw bytes of a scanline.
+     */
+    @FunctionalInterface
+    private interface RowReader {
+
+        void read(int y, byte[] row);
+    }
+}
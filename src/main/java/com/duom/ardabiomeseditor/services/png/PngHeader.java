@@ -0,0 +1,90 @@
+package com.duom.ardabiomeseditor.services.png;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * PNG image header, as declared in the IHDR chunk.
+ * <p>
+ * The IHDR chunk always immediately follows the PNG signature, so the header is read from the first 33 bytes of
+ * the file without decoding any pixel data.
+ *
+ * @param width           The image width.
+ * @param height          The image height.
+ * @param bitDepth        The number of bits per sample or per palette index (1, 2, 4, 8 or 16).
+ * @param colorType       The PNG color type - see the {@code COLOR_TYPE_*} constants.
+ * @param interlaceMethod The interlace method - 0 for none, 1 for Adam7.
+ */
+public record PngHeader(int width, int height, int bitDepth, int colorType, int interlaceMethod) {
+
+    public static final int COLOR_TYPE_GRAYSCALE = 0;
+    public static final int COLOR_TYPE_RGB = 2;
+    public static final int COLOR_TYPE_INDEXED = 3;
+    public static final int COLOR_TYPE_GRAYSCALE_ALPHA = 4;
+    public static final int COLOR_TYPE_RGBA = 6;
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IHDR = 0x49484452;
+    private static final int IHDR_LENGTH = 13;
+
+    /**
+     * Signature, IHDR chunk length and type, IHDR data
+     */
+    private static final int HEADER_LENGTH = SIGNATURE.length + 8 + IHDR_LENGTH;
+
+    /**
+     * Reads the header of a PNG file.
+     *
+     * @param path The PNG file.
+     * @return The PNG header.
+     * @throws IOException If the file cannot be read or is not a valid PNG file.
+     */
+    public static PngHeader read(Path path) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+
+        try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+
+            while (buffer.hasRemaining()) {
+
+                if (channel.read(buffer) < 0) throw new EOFException("Truncated PNG header: " + path);
+            }
+        }
+
+        buffer.flip();
+
+        for (byte expected : SIGNATURE) {
+
+            if (buffer.get() != expected) throw new IOException("Not a PNG file: " + path);
+        }
+
+        if (buffer.getInt() != IHDR_LENGTH || buffer.getInt() != IHDR)
+            throw new IOException("Missing PNG IHDR chunk: " + path);
+
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int bitDepth = Byte.toUnsignedInt(buffer.get());
+        int colorType = Byte.toUnsignedInt(buffer.get());
+
+        buffer.get(); // Compression method - always 0
+        buffer.get(); // Filter method - always 0
+
+        int interlaceMethod = Byte.toUnsignedInt(buffer.get());
+
+        if (width <= 0 || height <= 0)
+            throw new IOException("Invalid PNG dimensions " + width + "x" + height + ": " + path);
+
+        return new PngHeader(width, height, bitDepth, colorType, interlaceMethod);
+    }
+
+    /**
+     * @return true if the image stores palette indices rather than color samples.
+     */
+    public boolean isIndexed() {
+        return colorType == COLOR_TYPE_INDEXED;
+    }
+}
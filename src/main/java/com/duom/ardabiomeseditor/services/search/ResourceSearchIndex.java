@@ -0,0 +1,402 @@
+package com.duom.ardabiomeseditor.services.search;
+
+import com.duom.ardabiomeseditor.model.ResourceIdentifier;
+import com.duom.ardabiomeseditor.model.ResourcePackTreeNode;
+
+import java.util.*;
+
+/**
+ * Pack-wide search index over biome, colormap and modifier names.
+ * <p>
+ * Entries are collected from the resource tree, so that each result identifies an item of the tree, and sorted by
+ * namespace, kind and name: the id of an entry is its rank among the results of a same match quality.
+ * Names are matched by prefix - of the whole name or of any word of it, words being separated by ':', '/', '_',
+ * '.', '-' or spaces - and by substring through a trigram index. Prefix matches are ranges of sorted keys, from
+ * which the best ranked entries are drawn without visiting the whole range, so that a single letter query costs no
+ * more than a full name.
+ */
+public final class ResourceSearchIndex {
+
+    /**
+     * Convenience - empty index constant.
+     */
+    public static final ResourceSearchIndex EMPTY = new ResourceSearchIndex(List.of());
+
+    private static final int TRIGRAM = 3;
+
+    /**
+     * Trigrams are hashed into a fixed number of buckets - colliding trigrams only add candidates, which are checked
+     */
+    private static final int TRIGRAM_BUCKETS = 1 << 16;
+
+    private final SearchEntry[] entries;
+
+    /**
+     * Normalized names of the entries
+     */
+    private final String[] keys;
+
+    /**
+     * Normalized names, sorted
+     */
+    private final SortedKeys names;
+
+    /**
+     * Suffixes of the normalized names starting at a word other than the first one, sorted
+     */
+    private final SortedKeys words;
+
+    /**
+     * Sorted entry ids of the names containing a trigram of each bucket, the ids of bucket b being stored from
+     * trigramOffsets[b] to trigramOffsets[b + 1]
+     */
+    private final int[] trigramOffsets;
+    private final int[] trigramEntries;
+
+    private ResourceSearchIndex(List<KeyedEntry> sortedEntries) {
+
+        this.entries = new SearchEntry[sortedEntries.size()];
+        this.keys = new String[entries.length];
+
+        List<IndexedKey> nameKeys = new ArrayList<>(entries.length);
+        List<IndexedKey> wordKeys = new ArrayList<>();
+
+        for (int id = 0; id < entries.length; id++) {
+
+            String key = sortedEntries.get(id).key();
+            entries[id] = sortedEntries.get(id).entry();
+            keys[id] = key;
+
+            nameKeys.add(new IndexedKey(key, id));
+
+            for (int start = 1; start < key.length(); start++) {
+                if (isSeparator(key.charAt(start - 1))) wordKeys.add(new IndexedKey(key.substring(start), id));
+            }
+        }
+
+        this.names = new SortedKeys(nameKeys);
+        this.words = new SortedKeys(wordKeys);
+
+        // Two passes over the names - count the ids of each bucket, then store them
+        this.trigramOffsets = new int[TRIGRAM_BUCKETS + 1];
+
+        int[] lastEntries = new int[TRIGRAM_BUCKETS];
+        Arrays.fill(lastEntries, -1);
+
+        for (int id = 0; id < keys.length; id++) {
+
+            for (int start = 0; start + TRIGRAM <= keys[id].length(); start++) {
+
+                int bucket = trigramBucket(keys[id], start);
+
+                // A trigram can occur several times in a name
+                if (lastEntries[bucket] != id) {
+
+                    lastEntries[bucket] = id;
+                    trigramOffsets[bucket + 1]++;
+                }
+            }
+        }
+
+        for (int bucket = 0; bucket < TRIGRAM_BUCKETS; bucket++) trigramOffsets[bucket + 1] += trigramOffsets[bucket];
+
+        this.trigramEntries = new int[trigramOffsets[TRIGRAM_BUCKETS]];
+
+        int[] positions = Arrays.copyOf(trigramOffsets, TRIGRAM_BUCKETS);
+        Arrays.fill(lastEntries, -1);
+
+        for (int id = 0; id < keys.length; id++) {
+
+            for (int start = 0; start + TRIGRAM <= keys[id].length(); start++) {
+
+                int bucket = trigramBucket(keys[id], start);
+
+                if (lastEntries[bucket] != id) {
+
+                    lastEntries[bucket] = id;
+                    trigramEntries[positions[bucket]++] = id;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the index of the resources of a resource tree.
+     *
+     * @param resourceTree The resource tree holding every resource of the pack.
+     * @return The index.
+     */
+    public static ResourceSearchIndex build(ResourcePackTreeNode resourceTree) {
+
+        List<SearchEntry> entries = new ArrayList<>();
+
+        // Top level nodes are the root namespaces
+        for (ResourcePackTreeNode namespaceNode : resourceTree.getChildren())
+            collectEntries(namespaceNode.getValue().name(), namespaceNode, entries);
+
+        List<KeyedEntry> keyedEntries = new ArrayList<>(entries.size());
+
+        // Entries are ranked by namespace, kind, name, then location - folded into a single sort key
+        for (SearchEntry entry : entries) {
+
+            String key = normalize(entry.name());
+            String sortKey = entry.namespace() + '\0' + entry.kind().ordinal() + '\0' + key + '\0' + entry.identifier().namespace();
+
+            keyedEntries.add(new KeyedEntry(sortKey, key, entry));
+        }
+
+        Collections.sort(keyedEntries);
+
+        return new ResourceSearchIndex(keyedEntries);
+    }
+
+    private static void collectEntries(String namespace, ResourcePackTreeNode node, List<SearchEntry> entries) {
+
+        var data = node.getValue();
+
+        switch (data.type()) {
+            case BIOME_MAPPING -> {
+                if (data.resourceIdentifier() != null)
+                    entries.add(new SearchEntry(data.resourceIdentifier().path(), SearchEntry.Kind.BIOME, namespace, data.resourceIdentifier()));
+            }
+            case COLORMAP -> {
+                if (data.resourceIdentifier() != null)
+                    entries.add(new SearchEntry(data.name(), SearchEntry.Kind.COLORMAP, namespace, data.resourceIdentifier()));
+            }
+            case MODIFIER -> {
+
+                // Modifiers have no identifier of their own - they lead to their first colormap
+                ResourceIdentifier firstColormap = findFirstIdentifier(node);
+
+                if (firstColormap != null)
+                    entries.add(new SearchEntry(data.name(), SearchEntry.Kind.MODIFIER, namespace, firstColormap));
+            }
+            case null, default -> {}
+        }
+
+        for (ResourcePackTreeNode child : node.getChildren())
+            collectEntries(namespace, child, entries);
+    }
+
+    private static ResourceIdentifier findFirstIdentifier(ResourcePackTreeNode node) {
+
+        for (ResourcePackTreeNode child : node.getChildren()) {
+
+            if (child.getValue().resourceIdentifier() != null) return child.getValue().resourceIdentifier();
+
+            ResourceIdentifier identifier = findFirstIdentifier(child);
+
+            if (identifier != null) return identifier;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the number of indexed resources.
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Searches the resources whose name matches the query.
+     * <p>
+     * Results are ranked by match quality - exact name, name prefix, word prefix, then substring - and, within a
+     * match quality, by namespace, kind and name.
+     *
+     * @param query The searched text, case-insensitive. Substrings are matched from three characters.
+     * @param limit The maximum number of results.
+     * @return The matching resources, best first.
+     */
+    public List<SearchEntry> search(String query, int limit) {
+
+        String normalizedQuery = normalize(query == null ? "" : query.strip());
+
+        if (normalizedQuery.isEmpty() || limit <= 0 || entries.length == 0) return List.of();
+
+        List<SearchEntry> results = new ArrayList<>(Math.min(limit, 64));
+        BitSet found = new BitSet(entries.length);
+
+        // Exact names, then name prefixes, then word prefixes - ranges of sorted keys
+        int namesFrom = names.lowerBound(normalizedQuery);
+
+        names.collect(namesFrom, names.lowerBound(normalizedQuery + '\0'), found, results, limit);
+        names.collect(namesFrom, names.lowerBound(normalizedQuery + Character.MAX_VALUE), found, results, limit);
+        words.collect(words.lowerBound(normalizedQuery), words.lowerBound(normalizedQuery + Character.MAX_VALUE), found, results, limit);
+
+        // Substring matches - candidates, in rank order, hold the rarest trigram of the query
+        if (results.size() < limit && normalizedQuery.length() >= TRIGRAM) {
+
+            int candidatesBucket = -1;
+
+            for (int start = 0; start + TRIGRAM <= normalizedQuery.length(); start++) {
+
+                int bucket = trigramBucket(normalizedQuery, start);
+                int bucketSize = trigramOffsets[bucket + 1] - trigramOffsets[bucket];
+
+                if (bucketSize == 0) return results;
+
+                if (candidatesBucket < 0 || bucketSize < trigramOffsets[candidatesBucket + 1] - trigramOffsets[candidatesBucket])
+                    candidatesBucket = bucket;
+            }
+
+            for (int i = trigramOffsets[candidatesBucket]; i < trigramOffsets[candidatesBucket + 1] && results.size() < limit; i++) {
+
+                int id = trigramEntries[i];
+
+                if (!found.get(id) && keys[id].contains(normalizedQuery)) addResult(id, found, results);
+            }
+        }
+
+        return results;
+    }
+
+    private void addResult(int id, BitSet found, List<SearchEntry> results) {
+
+        found.set(id);
+        results.add(entries[id]);
+    }
+
+    /**
+     * Lower cases a name, spaces being equivalent to underscores - "Dark Forest" matches "dark_forest".
+     */
+    private static String normalize(String name) {
+
+        return name.toLowerCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    private static boolean isSeparator(char c) {
+
+        return c == ':' || c == '/' || c == '_' || c == '.' || c == '-';
+    }
+
+    private static int trigramBucket(String key, int start) {
+
+        int hash = (key.charAt(start) * 31 + key.charAt(start + 1)) * 31 + key.charAt(start + 2);
+
+        return (hash ^ (hash >>> 16)) & (TRIGRAM_BUCKETS - 1);
+    }
+
+    /**
+     * Sorted keys with the entry id of each one, and a segment tree locating the smallest id of any range of keys.
+     */
+    private final class SortedKeys {
+
+        private final String[] sortedKeys;
+        private final int[] ids;
+
+        /**
+         * Position of the smallest id under each node of the tree, the leaves starting at sortedKeys.length
+         */
+        private final int[] minPositions;
+
+        private SortedKeys(List<IndexedKey> indexedKeys) {
+
+            Collections.sort(indexedKeys);
+
+            int size = indexedKeys.size();
+
+            this.sortedKeys = new String[size];
+            this.ids = new int[size];
+            this.minPositions = new int[2 * size];
+
+            for (int position = 0; position < size; position++) {
+
+                sortedKeys[position] = indexedKeys.get(position).key();
+                ids[position] = indexedKeys.get(position).id();
+                minPositions[size + position] = position;
+            }
+
+            for (int node = size - 1; node > 0; node--)
+                minPositions[node] = minPosition(minPositions[2 * node], minPositions[2 * node + 1]);
+        }
+
+        /**
+         * @return the position of the first key greater than or equal to the given key
+         */
+        private int lowerBound(String key) {
+
+            int low = 0;
+            int high = sortedKeys.length;
+
+            while (low < high) {
+
+                int middle = (low + high) >>> 1;
+
+                if (sortedKeys[middle].compareTo(key) < 0) low = middle + 1;
+                else high = middle;
+            }
+
+            return low;
+        }
+
+        /**
+         * Adds the entries of a range of keys not found yet to the results, smallest ids first. Only the sub-ranges
+         * holding the next smallest ids are visited - the range is split around each id taken.
+         */
+        private void collect(int from, int to, BitSet found, List<SearchEntry> results, int limit) {
+
+            if (from >= to || results.size() >= limit) return;
+
+            PriorityQueue<KeyRange> ranges = new PriorityQueue<>();
+            ranges.add(range(from, to));
+
+            while (!ranges.isEmpty() && results.size() < limit) {
+
+                KeyRange range = ranges.poll();
+                int position = range.minPosition();
+
+                if (!found.get(ids[position])) addResult(ids[position], found, results);
+
+                if (range.from() < position) ranges.add(range(range.from(), position));
+                if (position + 1 < range.to()) ranges.add(range(position + 1, range.to()));
+            }
+        }
+
+        private KeyRange range(int from, int to) {
+
+            int position = -1;
+
+            for (int low = from + ids.length, high = to + ids.length; low < high; low >>>= 1, high >>>= 1) {
+
+                if ((low & 1) != 0) position = minPosition(position, minPositions[low++]);
+                if ((high & 1) != 0) position = minPosition(position, minPositions[--high]);
+            }
+
+            return new KeyRange(from, to, position, ids[position]);
+        }
+
+        private int minPosition(int position, int otherPosition) {
+
+            return position < 0 || ids[otherPosition] < ids[position] ? otherPosition : position;
+        }
+    }
+
+    /**
+     * Range of sorted keys, ordered by its smallest entry id.
+     */
+    private record KeyRange(int from, int to, int minPosition, int minId) implements Comparable<KeyRange> {
+
+        @Override
+        public int compareTo(KeyRange other) {
+            return Integer.compare(minId, other.minId);
+        }
+    }
+
+    private record KeyedEntry(String sortKey, String key, SearchEntry entry) implements Comparable<KeyedEntry> {
+
+        @Override
+        public int compareTo(KeyedEntry other) {
+            return sortKey.compareTo(other.sortKey);
+        }
+    }
+
+    private record IndexedKey(String key, int id) implements Comparable<IndexedKey> {
+
+        @Override
+        public int compareTo(IndexedKey other) {
+            return key.compareTo(other.key);
+        }
+    }
+}
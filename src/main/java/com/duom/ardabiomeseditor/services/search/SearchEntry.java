@@ -0,0 +1,30 @@
+package com.duom.ardabiomeseditor.services.search;
+
+import com.duom.ardabiomeseditor.model.ResourceIdentifier;
+
+/**
+ * A searchable resource of the {@link ResourceSearchIndex}.
+ *
+ * @param name       the searched name - a biome, colormap or modifier name
+ * @param kind       the kind of resource
+ * @param namespace  the root namespace declaring the resource
+ * @param identifier the identifier of the resource tree item to select - the first colormap of a modifier
+ */
+public record SearchEntry(String name, Kind kind, String namespace, ResourceIdentifier identifier) {
+
+    /**
+     * Kinds of searchable resources, in ranking order.
+     */
+    public enum Kind {
+
+        BIOME,
+        COLORMAP,
+        MODIFIER
+    }
+
+    @Override
+    public String toString() {
+
+        return String.format("%s (%s)", name, identifier.namespace());
+    }
+}
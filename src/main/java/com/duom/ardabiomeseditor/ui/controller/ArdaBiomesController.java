@@ -62,6 +62,15 @@ public class ArdaBiomesController {
         resourceSelectorController.setColormapSelectionChangedCallback(this::colormapSelectionChanged);
         resourceSelectorController.setDefaultSelectionChangedCallback(this::defaultSelection);
 
+        // Edits are journaled in the background, so that they survive a crash
+        colormapController.setColumnChangedCallback((identifier, previousColors, colors) ->
+                resourcePackService.journalColumnChange(colormapController.getDisplayedResourceIdentifier(),
+                        colormapController.getDisplayedResourceType() == ColormapController.DisplayedResourceType.BIOME_MAPPED_COLORMAP,
+                        identifier,
+                        previousColors,
+                        colors));
+        colormapController.setChangesResetCallback(resourcePackService::discardJournaledChanges);
+
         fileManagementController.setResourcePackService(resourcePackService);
         fileManagementController.setOnFileLoadedCallback(refreshList -> {
             if (!refreshList) resourceSelectorController.reload();
@@ -70,6 +79,83 @@ public class ArdaBiomesController {
         fileManagementController.setSaveCallback(this::saveBiomeEdits);
         fileManagementController.setMenuExitCallback(this::onExitApplication);
         fileManagementController.setResourcePackLoadCallback(this::clearUiOnResourcePackLoad);
+        fileManagementController.setRecoveryCallback(this::recoverJournaledChanges);
+    }
+
+    /**
+     * Replays the journaled edits of a previous session in the background, then displays the edited resource with the
+     * edits restored as unsaved changes. They are persisted by the next save, like any other edit.
+     */
+    private void recoverJournaledChanges() {
+
+        ArdaBiomesEditor.LOGGER.info("Recovering journaled edits");
+
+        Task<ResourcePackService.RecoveredChanges> recoveryTask = new Task<>() {
+            @Override
+            protected ResourcePackService.RecoveredChanges call() {
+                updateMessage(I18nService.get("ardabiomeseditor.filmanagement.recovery.step.replaying"));
+                updateProgress(-1, 100);
+
+                return resourcePackService.readJournaledChanges();
+            }
+        };
+
+        progressBar.progressProperty().bind(recoveryTask.progressProperty());
+        progressLabel.textProperty().bind(recoveryTask.messageProperty());
+
+        recoveryTask.setOnRunning(e -> progressOverlay.setVisible(true));
+        recoveryTask.setOnSucceeded(e -> handleRecoverySuccess(recoveryTask.getValue()));
+        recoveryTask.setOnFailed(e -> handleRecoveryFailure(recoveryTask));
+
+        new Thread(recoveryTask).start();
+    }
+
+    /**
+     * Displays the resource edited by the recovered edits, and restores them as unsaved changes.
+     *
+     * @param recoveredChanges The recovered edits, or null if none could be recovered.
+     */
+    private void handleRecoverySuccess(ResourcePackService.RecoveredChanges recoveredChanges) {
+
+        progressOverlay.setVisible(false);
+
+        if (recoveredChanges == null) {
+
+            ArdaBiomesEditor.LOGGER.warn("No journaled edit could be recovered");
+            resourcePackService.discardJournaledChanges();
+            return;
+        }
+
+        resourceSelectorController.showResource(recoveredChanges.root());
+
+        colormapController.setVisible(true);
+        colormapController.configure(recoveredChanges.root(),
+                recoveredChanges.biomeMapped()
+                        ? ColormapController.DisplayedResourceType.BIOME_MAPPED_COLORMAP
+                        : ColormapController.DisplayedResourceType.COLORMAP,
+                recoveredChanges.colorMappings());
+        colormapController.restoreColorChanges(recoveredChanges.colorChanges());
+    }
+
+    /**
+     * Handles a failure while replaying the journaled edits. The journal is kept, so that recovery is offered again
+     * the next time the resource pack is opened.
+     *
+     * @param recoveryTask The task that encountered the failure.
+     */
+    private void handleRecoveryFailure(Task<ResourcePackService.RecoveredChanges> recoveryTask) {
+
+        ArdaBiomesEditor.LOGGER.error("Error while recovering journaled edits", recoveryTask.getException());
+        progressOverlay.setVisible(false);
+
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(I18nService.get("ardabiomeseditor.filmanagement.recovery.error_title"));
+        alert.setHeaderText(I18nService.get("ardabiomeseditor.filmanagement.recovery.error_title"));
+        alert.setContentText(recoveryTask.getException().getMessage());
+
+        alert.getButtonTypes().setAll(new ButtonType(I18nService.get("ardabiomeseditor.generic.ok")));
+
+        alert.showAndWait();
     }
 
     /**
@@ -151,7 +237,7 @@ public class ArdaBiomesController {
     private void handleSaveSuccess(Runnable onSuccess) {
         ArdaBiomesEditor.LOGGER.info("Successfully persisted edits");
 
-        fileManagementController.loadResourcePack(resourcePackService.getCurrentResourcePackPath(), true);
+        // Modified colormaps are refreshed by the save task - no need to reload the whole resource pack
         progressOverlay.setVisible(false);
         colormapController.persistColorChanges();
 
@@ -282,6 +368,21 @@ public class ArdaBiomesController {
 
         if (identifier == null) return;
 
+        // Very large colormaps are edited through the biome mapped views only - see ColorMapService.MAX_EDITOR_PIXELS
+        if (!resourcePackService.fitsEditor(identifier)) {
+
+            ArdaBiomesEditor.LOGGER.warn("Colormap {} is too large to be opened in the editor", identifier);
+            colormapController.setVisible(false);
+
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle(I18nService.get("ardabiomeseditor.colormap.too_large.title"));
+            alert.setHeaderText(I18nService.get("ardabiomeseditor.colormap.too_large.title"));
+            alert.setContentText(I18nService.get("ardabiomeseditor.colormap.too_large.content", identifier.toString()));
+            alert.getButtonTypes().setAll(new ButtonType(I18nService.get("ardabiomeseditor.generic.ok")));
+            alert.showAndWait();
+            return;
+        }
+
         ArdaBiomesEditor.LOGGER.info("Loading mapped colors for Colormap {} in {}", identifier, identifier.namespace());
         colormapController.configure(identifier,
                 ColormapController.DisplayedResourceType.COLORMAP,
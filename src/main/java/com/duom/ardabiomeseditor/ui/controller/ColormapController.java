@@ -117,7 +117,7 @@ public class ColormapController {
     private int rowCount;
 
     /**
-     * Underlying image for the canvas rendering
+     * Underlying image for the canvas rendering - sized to the visible area and its buffer, not to the texture
      */
     private WritableImage image;
     private PixelWriter pixelWriter;
@@ -135,6 +135,9 @@ public class ColormapController {
 
     private ContextMenu headerContextMenu;
 
+    private ColumnChangedCallback columnChangedCallback;
+    private Runnable changesResetCallback;
+
     /**
      * Snaps a value to the nearest pixel based on the provided pixel scale.
      *
@@ -252,8 +255,7 @@ public class ColormapController {
         canvasPane.setPrefWidth(columns.size());
         canvasPane.setPrefHeight(rowCount);
 
-        image = new WritableImage(columns.size(), rowCount);
-        pixelWriter = image.getPixelWriter();
+        image = null;
 
         colormapRoot.addEventFilter(ScrollEvent.SCROLL, this::handleScrollWheelEvents);
         colormapRoot.getScene().addEventFilter(KeyEvent.KEY_PRESSED, this::handleKeyboardEvents);
@@ -571,6 +573,7 @@ public class ColormapController {
                 }
 
                 column.modified.set(!Arrays.equals(column.originalColorData, shiftedColors));
+                notifyColumnChanged(column, shiftedColors);
 
                 columns.set(colIndex, new Column(column.index,
                         column.identifier,
@@ -605,6 +608,7 @@ public class ColormapController {
                 }
 
                 column.modified.set(!Arrays.equals(column.originalColorData, shiftedColors));
+                notifyColumnChanged(column, shiftedColors);
 
                 columns.set(colIndex, new Column(column.index,
                         column.identifier,
@@ -618,6 +622,17 @@ public class ColormapController {
         redraw();
     }
 
+    /**
+     * Reports the new colors of an edited column, e.g. to journal the edit.
+     *
+     * @param column The column, holding its colors before the edit.
+     * @param colors The new colors of the column.
+     */
+    private void notifyColumnChanged(Column column, int[] colors) {
+
+        if (columnChangedCallback != null) columnChangedCallback.columnChanged(column.identifier, column.colorData, colors);
+    }
+
     /**
      * Updates the zoom factor based on the vertical scroll delta.
      */
@@ -1070,20 +1085,29 @@ public class ColormapController {
         canvas.setWidth(nbCellsWidth * scale + xBuffer.total() * scale);
         canvas.setHeight(nbCellsHeight * scale + yBuffer.total() * scale);
 
-        // Pixel array reading offset
-        var offset = (texCoordsScrollOffsetY - yBuffer.before) * texWidth + (texCoordsScrollOffsetX - xBuffer.before);
+        int windowWidth = nbCellsWidth + xBuffer.total();
+        int windowHeight = nbCellsHeight + yBuffer.total();
+
+        // The image only grows - with the viewport, or when zooming out
+        if (image == null || image.getWidth() < windowWidth || image.getHeight() < windowHeight) {
+
+            int imageWidth = Math.max(windowWidth, image == null ? 0 : (int) image.getWidth());
+            int imageHeight = Math.max(windowHeight, image == null ? 0 : (int) image.getHeight());
+
+            image = new WritableImage(Math.max(1, imageWidth), Math.max(1, imageHeight));
+        }
 
         // Write only visible pixels and extra buffer pixels into viewport
         pixelWriter = image.getPixelWriter();
         pixelWriter.setPixels(
                 0,
                 0,
-                nbCellsWidth + xBuffer.total(),
-                nbCellsHeight + yBuffer.total(),
+                windowWidth,
+                windowHeight,
                 PixelFormat.getIntArgbInstance(),
-                flattenColumns(texWidth),
-                offset,
-                texWidth
+                flattenColumns(texCoordsScrollOffsetX - xBuffer.before, texCoordsScrollOffsetY - yBuffer.before, windowWidth, windowHeight),
+                0,
+                windowWidth
         );
 
         // Clear canvas
@@ -1137,26 +1161,37 @@ public class ColormapController {
     }
 
     /**
-     * Flattens the columnar color data into a single row-major array.
+     * Flattens the columnar color data of a window of the visible columns into a single row-major array.
+     * Only the window is copied, so the cost of a redraw does not depend on the texture size.
      *
+     * @param firstColumn The first visible column of the window.
+     * @param firstRow    The first row of the window.
+     * @param width       The number of columns of the window.
+     * @param height      The number of rows of the window.
      * @return A flattened array of color data.
      */
-    private int[] flattenColumns(int visibleColumnCount) {
+    private int[] flattenColumns(int firstColumn, int firstRow, int width, int height) {
 
         // Allocate a 2D array flattened row-major:
-        int[] buf = new int[visibleColumnCount * rowCount];
+        int[] buf = new int[width * height];
 
         int visibleIndex = 0;
         for (Column column : columns) {
 
             if (!column.visible.get()) continue;
 
-            int[] col = column.colorData();
+            if (visibleIndex >= firstColumn + width) break;
+
+            if (visibleIndex >= firstColumn) {
 
-            for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
-                // guard if a column has fewer rows than rowCount
-                int value = rowIdx < col.length ? col[rowIdx] : 0;
-                buf[rowIdx * visibleColumnCount + visibleIndex] = value;
+                int[] col = column.colorData();
+
+                for (int rowIdx = 0; rowIdx < height; rowIdx++) {
+                    // guard if a column has fewer rows than rowCount
+                    int textureRow = firstRow + rowIdx;
+                    int value = textureRow < col.length ? col[textureRow] : 0;
+                    buf[rowIdx * width + visibleIndex - firstColumn] = value;
+                }
             }
 
             visibleIndex++;
@@ -1272,6 +1307,9 @@ public class ColormapController {
                         new SimpleBooleanProperty(false)));
             }
         }
+
+        if (changesResetCallback != null) changesResetCallback.run();
+
         canvasRedrawDebouncer.play();
     }
 
@@ -1291,6 +1329,35 @@ public class ColormapController {
         return changes;
     }
 
+    /**
+     * Restores edits of the displayed colormap as unsaved changes, e.g. edits recovered from the change journal.
+     * The edits are not reported to the column changed callback - they are journaled already.
+     *
+     * @param colorChanges A map of resource identifiers to their modified color data.
+     */
+    public void restoreColorChanges(Map<ResourceIdentifier, int[]> colorChanges) {
+
+        for (int colIndex = 0; colIndex < columns.size(); colIndex++) {
+
+            Column column = columns.get(colIndex);
+            int[] colors = colorChanges.get(column.identifier);
+
+            if (colors != null) {
+
+                columns.set(colIndex, new Column(column.index,
+                        column.identifier,
+                        column.originalColorData(),
+                        colors,
+                        column.selected,
+                        column.visible,
+                        new SimpleBooleanProperty(!Arrays.equals(column.originalColorData, colors))));
+            }
+        }
+
+        refreshHeaders();
+        canvasRedrawDebouncer.play();
+    }
+
     /**
      * Gets the resource identifier of the displayed colormap.
      *
@@ -1333,6 +1400,24 @@ public class ColormapController {
         canvasRedrawDebouncer.play();
     }
 
+    /**
+     * Sets the callback to be executed when the colors of a column are edited.
+     *
+     * @param callback The column changed callback.
+     */
+    public void setColumnChangedCallback(ColumnChangedCallback callback) {
+        this.columnChangedCallback = callback;
+    }
+
+    /**
+     * Sets the callback to be executed when all edits are reset.
+     *
+     * @param callback The changes reset callback.
+     */
+    public void setChangesResetCallback(Runnable callback) {
+        this.changesResetCallback = callback;
+    }
+
     /**
      * Sets the visibility of the colormap view.
      *
@@ -1352,6 +1437,22 @@ public class ColormapController {
         COLORMAP
     }
 
+    /**
+     * Receives the edits of the displayed columns.
+     */
+    @FunctionalInterface
+    public interface ColumnChangedCallback {
+
+        /**
+         * Called on the FX thread whenever the colors of a column are edited - must return quickly.
+         *
+         * @param identifier     The identifier of the edited column.
+         * @param previousColors The colors of the column before the edit.
+         * @param colors         The colors of the column after the edit.
+         */
+        void columnChanged(ResourceIdentifier identifier, int[] previousColors, int[] colors);
+    }
+
     /**
      * Simple record to represent a colormap column
      *
@@ -11,6 +11,7 @@ import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.text.Text;
 import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 
 import java.awt.*;
 import java.io.IOException;
@@ -36,6 +37,7 @@ public class FileManagementController {
     private Consumer<Runnable> menuExitCallback;
     private Consumer<Void> showAllCallback;
     private Consumer<String> resourcePackLoadCallback;
+    private Runnable recoveryCallback;
 
     /**
      * Displays an error popup with the specified title, header, and content.
@@ -98,6 +100,22 @@ public class FileManagementController {
         }
     }
 
+    /**
+     * Opens a file chooser dialog to select a zip archive and loads the selected resource pack.
+     */
+    @FXML
+    public void onOpenArchive() {
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Select Resource Pack Archive");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Resource Pack Archives", "*.zip"));
+
+        var archive = chooser.showOpenDialog(null);
+        if (archive != null) {
+            loadResourcePack(archive.toPath(), false);
+        }
+    }
+
     /**
      * Loads a resource pack from the specified file path.
      *
@@ -134,11 +152,38 @@ public class FileManagementController {
         if (!reload) {
             ArdaBiomesEditor.CONFIG.addRecentFile(filePath.toAbsolutePath().toString());
             updateRecentFilesMenu();
+
+            if (resourcePackService.hasJournaledChanges()) showRecoveryDialog(filePath);
         }
 
         if (onFileLoadedCallback != null) onFileLoadedCallback.accept(reload);
     }
 
+    /**
+     * Offers to recover the unsaved edits journaled by a previous session of the resource pack, e.g. after a crash.
+     * Recovered edits are restored in the editor as unsaved changes, discarded edits are dropped from the journal.
+     *
+     * @param filePath The path to the resource pack file.
+     */
+    private void showRecoveryDialog(Path filePath) {
+
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle(I18nService.get("ardabiomeseditor.filmanagement.recovery.title"));
+        alert.setHeaderText(I18nService.get("ardabiomeseditor.filmanagement.recovery.header"));
+        alert.setContentText(I18nService.get("ardabiomeseditor.filmanagement.recovery.content", filePath.getFileName().toString()));
+
+        ButtonType recoverButton = new ButtonType(I18nService.get("ardabiomeseditor.filmanagement.recovery.recover"));
+        ButtonType discardButton = new ButtonType(I18nService.get("ardabiomeseditor.filmanagement.recovery.discard"));
+
+        alert.getButtonTypes().setAll(recoverButton, discardButton);
+
+        alert.showAndWait().ifPresent(response -> {
+
+            if (response == recoverButton && recoveryCallback != null) recoveryCallback.run();
+            else resourcePackService.discardJournaledChanges();
+        });
+    }
+
     /**
      * Opens a recent file by its path.
      *
@@ -257,6 +302,15 @@ public class FileManagementController {
         this.menuExitCallback = menuExitCallback;
     }
 
+    /**
+     * Sets the callback to be executed when the user chooses to recover the journaled edits of the loaded pack.
+     *
+     * @param recoveryCallback The recovery callback function.
+     */
+    public void setRecoveryCallback(Runnable recoveryCallback) {
+        this.recoveryCallback = recoveryCallback;
+    }
+
     /**
      * Sets the callback to be executed when a resource pack is loaded.
      *
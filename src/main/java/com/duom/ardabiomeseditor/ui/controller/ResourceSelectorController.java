@@ -6,14 +6,18 @@ import com.duom.ardabiomeseditor.model.ResourcePackTreeNode;
 import com.duom.ardabiomeseditor.services.I18nService;
 import com.duom.ardabiomeseditor.services.IconResourceService;
 import com.duom.ardabiomeseditor.services.ResourcePackService;
+import com.duom.ardabiomeseditor.services.search.SearchEntry;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
+import javafx.geometry.Side;
 import javafx.scene.control.*;
 import javafx.scene.input.MouseEvent;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -24,10 +28,18 @@ import java.util.function.Consumer;
  */
 public class ResourceSelectorController {
 
+    /**
+     * Maximum number of search results listed under the search field.
+     */
+    private static final int SEARCH_RESULT_LIMIT = 20;
+
     /* UI Elements */
 
     @FXML private TreeView<ResourcePackTreeNode.Data> resourcePackTreeview;
     @FXML private ComboBox<TreeResourceType> resourceSelectionCombo;
+    @FXML private TextField searchField;
+
+    private final ContextMenu searchResultsMenu = new ContextMenu();
 
     /**
      * Context menu display preferences for the treeview (sorting / naming).
@@ -64,6 +76,7 @@ public class ResourceSelectorController {
         });
 
         initializeContextMenu(resourcePackTreeview, treeDisplayPreferences);
+        initializeSearchField();
 
         treeSelectionListener = this::handleTreeSelection;
 
@@ -147,6 +160,87 @@ public class ResourceSelectorController {
         });
     }
 
+    /**
+     * Initializes the search field. Matching resources are listed under the field while typing, and choosing one -
+     * or pressing enter for the best match - selects it in the TreeView.
+     */
+    private void initializeSearchField() {
+
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> showSearchResults(newVal));
+        searchField.setOnKeyPressed(event -> {
+
+            switch (event.getCode()) {
+                case ENTER  -> search(searchField.getText(), 1).stream().findFirst().ifPresent(this::selectSearchResult);
+                case ESCAPE -> searchResultsMenu.hide();
+                default     -> {}
+            }
+        });
+    }
+
+    /**
+     * Lists the resources matching the query under the search field.
+     * @param query The searched text.
+     */
+    private void showSearchResults(String query) {
+
+        List<SearchEntry> results = search(query, SEARCH_RESULT_LIMIT);
+
+        if (results.isEmpty()) {
+
+            searchResultsMenu.hide();
+            return;
+        }
+
+        List<MenuItem> menuItems = new ArrayList<>(results.size());
+
+        for (SearchEntry result : results) {
+
+            MenuItem menuItem = new MenuItem(result.toString());
+            menuItem.setMnemonicParsing(false);
+            menuItem.setGraphic(switch (result.kind()) {
+                case BIOME    -> IconResourceService.getIcon(IconResourceService.IconType.BIOME_ID_MAPPER);
+                case COLORMAP -> IconResourceService.getIcon(IconResourceService.IconType.COLORMAP);
+                case MODIFIER -> IconResourceService.getIcon(IconResourceService.IconType.MODIFIER);
+            });
+            menuItem.setOnAction(e -> selectSearchResult(result));
+            menuItems.add(menuItem);
+        }
+
+        searchResultsMenu.getItems().setAll(menuItems);
+
+        if (!searchResultsMenu.isShowing()) searchResultsMenu.show(searchField, Side.BOTTOM, 0, 0);
+    }
+
+    /**
+     * Searches the resources of the loaded resource pack.
+     * @param query The searched text.
+     * @param limit The maximum number of results.
+     * @return The matching resources, best first - empty if no resource pack is loaded.
+     */
+    private List<SearchEntry> search(String query, int limit) {
+
+        if (resourcePackService == null) return List.of();
+
+        return resourcePackService.search(query, limit);
+    }
+
+    /**
+     * Selects a search result in the TreeView, showing all resources if the displayed tree does not hold it.
+     * @param result The search result to select.
+     */
+    private void selectSearchResult(SearchEntry result) {
+
+        searchResultsMenu.hide();
+
+        if (resourcePackTreeview.getRoot() == null) return;
+
+        if (findTreeItem(resourcePackTreeview.getRoot(), result.identifier()).isEmpty())
+            resourceSelectionCombo.getSelectionModel().select(TreeResourceType.ALL);
+
+        selectItem(result.identifier(), resourcePackTreeview);
+        resourcePackTreeview.scrollTo(resourcePackTreeview.getSelectionModel().getSelectedIndex());
+    }
+
     /**
      * Sorts the given TreeView based on the user's display preferences.
      * @param treeView The TreeView to sort.
@@ -417,6 +511,26 @@ public class ResourceSelectorController {
         resourcePackTreeview.getSelectionModel().selectedItemProperty().addListener(treeSelectionListener);
     }
 
+    /**
+     * Selects a resource in the TreeView without triggering the selection change callbacks, e.g. a resource displayed
+     * by the caller. All resources are shown if the displayed tree does not hold it.
+     * @param identifier The resource identifier to select.
+     */
+    public void showResource(ResourceIdentifier identifier) {
+
+        if (resourcePackTreeview.getRoot() == null) return;
+
+        // Remove listener to prevent triggering selection change callback
+        resourcePackTreeview.getSelectionModel().selectedItemProperty().removeListener(treeSelectionListener);
+
+        if (findTreeItem(resourcePackTreeview.getRoot(), identifier).isEmpty())
+            resourceSelectionCombo.getSelectionModel().select(TreeResourceType.ALL);
+
+        selectItem(identifier, resourcePackTreeview);
+        resourcePackTreeview.scrollTo(resourcePackTreeview.getSelectionModel().getSelectedIndex());
+        resourcePackTreeview.getSelectionModel().selectedItemProperty().addListener(treeSelectionListener);
+    }
+
     /**
      * Resets the current selection in the Treeview.
      */
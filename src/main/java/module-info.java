@@ -29,6 +29,10 @@ module com.duom.ardabiomeseditor {
     exports com.duom.ardabiomeseditor.model.polytone;
     opens com.duom.ardabiomeseditor.model.polytone to com.fasterxml.jackson.databind, com.google.gson, javafx.fxml;
     exports com.duom.ardabiomeseditor.services.loaders;
+    exports com.duom.ardabiomeseditor.services.cache;
+    exports com.duom.ardabiomeseditor.services.png;
+    exports com.duom.ardabiomeseditor.services.journal;
+    exports com.duom.ardabiomeseditor.services.search;
     opens com.duom.ardabiomeseditor.services.loaders to com.google.gson;
     opens com.duom.ardabiomeseditor.services to com.google.gson, org.apache.logging.log4j;
 }
\ No newline at end of file